@@ -34,6 +34,11 @@ android {
         encoding = "UTF-8"
     }
 
+    buildFeatures {
+        // 调试功能（数据库语句统计）通过 BuildConfig.DEBUG 判断
+        buildConfig = true
+    }
+
     testOptions {
         unitTests.isReturnDefaultValues = true
     }
@@ -58,6 +63,9 @@ dependencies {
     implementation("de.hdodenhof:circleimageview:3.1.0")
     
     implementation("androidx.work:work-runtime:2.9.0")
+    
+    // 下拉刷新
+    implementation("androidx.swiperefreshlayout:swiperefreshlayout:1.1.0")
     implementation(libs.room.common.jvm)
     implementation(libs.room.runtime.android)
     
@@ -72,7 +80,8 @@ dependencies {
     
     testImplementation(libs.junit)
     testImplementation("org.mockito:mockito-core:4.8.0")
-    testImplementation("org.robolectric:robolectric:4.9")
+    // 4.11 起可以使用原生 SQLite（带 ICU 分词器），见测试类上的 @SQLiteMode
+    testImplementation("org.robolectric:robolectric:4.11.1")
     
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
@@ -0,0 +1,81 @@
+package com.example.todolist.data;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 批量写入基准测试：5000 条云端任务逐条 insertTodo 与一次 upsertTodos 的耗时对比。
+ * 使用磁盘数据库，逐条写入时每条都要单独提交。
+ */
+@RunWith(AndroidJUnit4.class)
+public class BulkUpsertBenchmarkTest {
+    private static final String TAG = "BulkUpsertBenchmark";
+    private static final String DB_NAME = "bulk-upsert-benchmark.db";
+    private static final int ROWS = 5_000;
+
+    private Context context;
+    private AppDatabase db;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        db = Room.databaseBuilder(context, AppDatabase.class, DB_NAME).build();
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void compareRowByRowWithBulkUpsert() {
+        List<Todo> first = newTodos();
+        long start = System.nanoTime();
+        for (Todo todo : first) {
+            db.taskDao().insertTodo(todo);
+        }
+        long rowByRow = System.nanoTime() - start;
+
+        List<Todo> second = newTodos();
+        start = System.nanoTime();
+        db.taskDao().upsertTodos(second);
+        long bulk = System.nanoTime() - start;
+
+        Log.i(TAG, String.format("%d rows: row by row %d ms, bulk %d ms",
+                ROWS, rowByRow / 1_000_000, bulk / 1_000_000));
+        assertEquals(ROWS * 2, db.taskDao().getAllUnfiltered().size());
+
+        List<String> uuids = new ArrayList<>();
+        for (Todo todo : second) {
+            uuids.add(todo.uuid);
+        }
+        // 超过参数上限的 IN 查询会被分块
+        assertEquals(ROWS, db.taskDao().getTodosByUuids(uuids).size());
+    }
+
+    private List<Todo> newTodos() {
+        List<Todo> todos = new ArrayList<>(ROWS);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < ROWS; i++) {
+            todos.add(new Todo(UUID.randomUUID().toString(), "云端任务 " + i, now + i, "", "工作", false, "user"));
+        }
+        return todos;
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.todolist.data;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 每日统计汇总表测试：随机插入/替换/更新/删除任务后，触发器维护的汇总应与全量重建的结果一致。
+ * 记录的时区与当前时区不同时汇总按当前时区重建，并通知观察汇总的 LiveData。
+ * 同时对比全表扫描统计与读取汇总表的耗时（TAG: DailyStatsTrigger）。
+ */
+@RunWith(AndroidJUnit4.class)
+public class DailyStatsTriggerTest {
+    private static final String TAG = "DailyStatsTrigger";
+    private static final String[] CATEGORIES = {"工作", "个人", "学习", "", null};
+    private static final int[] PRIORITIES = {Priority.HIGH, Priority.MEDIUM, Priority.LOW};
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+    private AppDatabase db;
+    private final Random random = new Random(42);
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .addCallback(AppDatabase.OPEN_CALLBACK)
+                .build();
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void triggersMatchRebuild() {
+        TaskDao taskDao = db.taskDao();
+        List<Todo> todos = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            todos.add(randomTodo(UUID.randomUUID().toString()));
+        }
+        taskDao.upsertTodos(todos);
+
+        for (int i = 0; i < 3_000; i++) {
+            Todo todo = todos.get(random.nextInt(todos.size()));
+            int op = random.nextInt(10);
+            if (op < 4) {
+                // insertTodo 使用 REPLACE
+                Todo replaced = randomTodo(todo.uuid);
+                taskDao.insertTodo(replaced);
+                todos.set(todos.indexOf(todo), replaced);
+            } else if (op < 7) {
+                todo.completed = !todo.completed;
+                todo.pomodoroMinutes += 25;
+                todo.deleted = random.nextInt(5) == 0;
+                taskDao.updateTodo(todo);
+            } else if (op < 9) {
+                taskDao.deleteTodo(todo);
+            } else {
+                taskDao.insertTodo(randomTodo(UUID.randomUUID().toString()));
+            }
+        }
+
+        List<DailyStats> incremental = db.dailyStatsDao().getAll();
+        SupportSQLiteDatabase sqlite = db.getOpenHelper().getWritableDatabase();
+        sqlite.execSQL("DELETE FROM daily_stats");
+        sqlite.execSQL(DailyStats.REBUILD_SQL);
+        assertSameStats(db.dailyStatsDao().getAll(), incremental);
+    }
+
+    @Test
+    public void rebuildsWhenTimeZoneChanges() throws InterruptedException {
+        List<Todo> todos = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            todos.add(randomTodo(UUID.randomUUID().toString()));
+        }
+        db.taskDao().upsertTodos(todos);
+        SupportSQLiteDatabase sqlite = db.getOpenHelper().getWritableDatabase();
+        List<DailyStats> expected = db.dailyStatsDao().getAll();
+        int expectedVisibleTotal = 0;
+        for (DailyStats stats : expected) {
+            if (!stats.grouped) {
+                expectedVisibleTotal += stats.total;
+            }
+        }
+
+        // 统计页观察的 LiveData，重建后应重新发出数据
+        LiveData<List<StatsSummary>> byDay = db.dailyStatsDao().observeVisibleByDay("0000-00-00", "9999-99-99");
+        AtomicReference<List<StatsSummary>> latest = new AtomicReference<>();
+        Semaphore emitted = new Semaphore(0);
+        Observer<List<StatsSummary>> observer = value -> {
+            latest.set(value);
+            emitted.release();
+        };
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> byDay.observeForever(observer));
+        assertTrue(emitted.tryAcquire(5, TimeUnit.SECONDS));
+        // 忽略之前写入引起的刷新，只看重建之后的
+        Thread.sleep(200);
+        emitted.drainPermits();
+
+        // 模拟在另一个时区下累加出的汇总（直接写 SQLite，不经过 Room，不会通知 LiveData）
+        sqlite.execSQL("UPDATE daily_stats SET total = total + 1");
+        sqlite.execSQL("UPDATE daily_stats_time_zone SET timeZone = 'Pacific/Kiritimati'");
+        db.onTimeZoneChanged();
+        assertSameStats(expected, db.dailyStatsDao().getAll());
+
+        assertTrue("重建后 LiveData 未刷新", emitted.tryAcquire(5, TimeUnit.SECONDS));
+        int observedTotal = 0;
+        for (StatsSummary summary : latest.get()) {
+            observedTotal += summary.total;
+        }
+        assertEquals(expectedVisibleTotal, observedTotal);
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> byDay.removeObserver(observer));
+
+        // 时区未变时不重建
+        sqlite.execSQL("UPDATE daily_stats SET total = total + 1");
+        db.onTimeZoneChanged();
+        assertEquals(expected.get(0).total + 1, db.dailyStatsDao().getAll().get(0).total);
+    }
+
+    private static void assertSameStats(List<DailyStats> rebuilt, List<DailyStats> incremental) {
+        assertEquals(rebuilt.size(), incremental.size());
+        for (int i = 0; i < rebuilt.size(); i++) {
+            DailyStats expected = rebuilt.get(i);
+            DailyStats actual = incremental.get(i);
+            String key = expected.userId + "/" + expected.day + "/" + expected.category + "/" + expected.grouped;
+            assertEquals(key, actual.userId + "/" + actual.day + "/" + actual.category + "/" + actual.grouped);
+            assertEquals(key, expected.total, actual.total);
+            assertEquals(key, expected.completed, actual.completed);
+            assertEquals(key, expected.focusMinutes, actual.focusMinutes);
+            assertEquals(key, expected.points, actual.points);
+        }
+    }
+
+    @Test
+    public void compareScanWithRollup() {
+        List<Todo> todos = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            todos.add(randomTodo(UUID.randomUUID().toString()));
+        }
+        db.taskDao().upsertTodos(todos);
+        SupportSQLiteDatabase sqlite = db.getOpenHelper().getWritableDatabase();
+
+        long start = System.nanoTime();
+        int scanned = db.taskDao().getVisibleTasksForUser().size();
+        long scanMicros = (System.nanoTime() - start) / 1000;
+
+        start = System.nanoTime();
+        int rows;
+        try (Cursor cursor = sqlite.query(
+                "SELECT day, SUM(total), SUM(completed), SUM(focusMinutes) FROM daily_stats WHERE grouped = 0 GROUP BY day")) {
+            rows = cursor.getCount();
+        }
+        long rollupMicros = (System.nanoTime() - start) / 1000;
+
+        Log.i(TAG, String.format("%d visible tasks: scan %d us, rollup %d us (%d days)",
+                scanned, scanMicros, rollupMicros, rows));
+    }
+
+    private Todo randomTodo(String uuid) {
+        long time = System.currentTimeMillis() - random.nextInt(30) * DAY_MS;
+        Todo todo = new Todo(uuid, "任务", time, "",
+                CATEGORIES[random.nextInt(CATEGORIES.length)], random.nextBoolean(), "user-" + random.nextInt(2));
+        todo.priority = PRIORITIES[random.nextInt(PRIORITIES.length)];
+        todo.pomodoroMinutes = random.nextInt(60);
+        todo.belongsToTaskGroup = random.nextInt(4) == 0;
+        todo.deleted = random.nextInt(10) == 0;
+        return todo;
+    }
+}
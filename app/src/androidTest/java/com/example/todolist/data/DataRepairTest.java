@@ -0,0 +1,76 @@
+package com.example.todolist.data;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 迁移后数据修复测试：10 万行数据上一次性修复负数番茄钟字段，并且只执行一次（TAG: DataRepair）。
+ */
+@RunWith(AndroidJUnit4.class)
+public class DataRepairTest {
+    private static final String TAG = "DataRepair";
+    private static final int ROWS = 100_000;
+
+    private AppDatabase db;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        List<Todo> todos = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            Todo todo = new Todo(UUID.randomUUID().toString(), "任务 " + i, System.currentTimeMillis(), "", "工作", false, "user");
+            todo.pomodoroMinutes = i % 7 == 0 ? -5 : 25;
+            todo.pomodoroCompletedCount = i % 11 == 0 ? -1 : 1;
+            todos.add(todo);
+        }
+        db.taskDao().upsertTodos(todos);
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void repairsRunOnceAsSetBasedUpdates() {
+        SupportSQLiteDatabase sqlite = db.getOpenHelper().getWritableDatabase();
+
+        long start = System.nanoTime();
+        AppDatabase.runDataRepairs(sqlite);
+        Log.i(TAG, ROWS + " rows repaired in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+
+        assertEquals(0, count(sqlite, "SELECT COUNT(*) FROM todos WHERE pomodoroMinutes < 0 OR pomodoroCompletedCount < 0"));
+        assertEquals(AppDatabase.DATA_REPAIRS.length, count(sqlite, "SELECT COUNT(*) FROM data_repairs"));
+
+        // 已记录的步骤不会再次执行
+        sqlite.execSQL("UPDATE todos SET pomodoroMinutes = -1 WHERE rowid = 1");
+        AppDatabase.runDataRepairs(sqlite);
+        assertEquals(1, count(sqlite, "SELECT COUNT(*) FROM todos WHERE pomodoroMinutes < 0"));
+        assertEquals(AppDatabase.DATA_REPAIRS.length, count(sqlite, "SELECT COUNT(*) FROM data_repairs"));
+    }
+
+    private int count(SupportSQLiteDatabase sqlite, String sql) {
+        try (Cursor cursor = sqlite.query(sql)) {
+            cursor.moveToFirst();
+            return cursor.getInt(0);
+        }
+    }
+}
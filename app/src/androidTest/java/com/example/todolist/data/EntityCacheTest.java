@@ -0,0 +1,117 @@
+package com.example.todolist.data;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertNotSame;
+
+/**
+ * 实体缓存测试：写穿透、软删除、失效、返回副本（修改返回的对象不影响缓存），
+ * 以及重复查询时缓存与直接查库的耗时对比（TAG: EntityCache）。
+ */
+@RunWith(AndroidJUnit4.class)
+public class EntityCacheTest {
+    private static final String TAG = "EntityCache";
+
+    private AppDatabase db;
+    private EntityCache cache;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        cache = new EntityCache(db);
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void writeThroughAndDelete() {
+        Todo todo = new Todo(UUID.randomUUID().toString(), "任务", System.currentTimeMillis(), "", "工作", false, "user");
+        cache.insertTodo(todo);
+        assertEquals(todo.title, cache.getTodo(todo.uuid).title);
+
+        // 保存前修改返回的对象（或保存失败）不影响缓存
+        Todo editing = cache.getTodo(todo.uuid);
+        assertNotSame(editing, cache.getTodo(todo.uuid));
+        editing.title = "未保存的修改";
+        todo.title = "未保存的修改";
+        assertEquals("任务", cache.getTodo(todo.uuid).title);
+
+        todo.completed = true;
+        cache.updateTodo(todo);
+        assertEquals(true, cache.getTodo(todo.uuid).completed);
+
+        cache.logicalDeleteTodo(todo.uuid);
+        assertNull(cache.getTodo(todo.uuid));
+    }
+
+    @Test
+    public void invalidateAfterBypassingWrite() {
+        TaskGroup group = new TaskGroup(UUID.randomUUID().toString(), "代办集", "工作", 3, "user");
+        cache.insertTaskGroup(group);
+        TaskGroup editing = cache.getTaskGroup(group.uuid);
+        assertNotSame(group, editing);
+        editing.addSubTask("未保存的子任务");
+        assertEquals(0, cache.getTaskGroup(group.uuid).subTaskIds.size());
+
+        // 模拟同步直接写库
+        TaskGroup fromCloud = new TaskGroup(group.uuid, "云端标题", "工作", 3, "user");
+        db.taskGroupDao().upsertTaskGroups(Collections.singletonList(fromCloud));
+        cache.invalidateTaskGroups(Collections.singletonList(group.uuid));
+
+        assertEquals("云端标题", cache.getTaskGroup(group.uuid).title);
+    }
+
+    @Test
+    public void compareRepeatedLookups() {
+        List<String> uuids = new ArrayList<>();
+        List<Todo> todos = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Todo todo = new Todo(UUID.randomUUID().toString(), "任务 " + i, System.currentTimeMillis(), "", "工作", false, "user");
+            todos.add(todo);
+            uuids.add(todo.uuid);
+        }
+        db.taskDao().upsertTodos(todos);
+
+        long start = System.nanoTime();
+        for (int round = 0; round < 10; round++) {
+            for (String uuid : uuids) {
+                db.taskDao().getTodoByIdForUser(uuid);
+            }
+        }
+        long daoMicros = (System.nanoTime() - start) / 1000;
+
+        start = System.nanoTime();
+        for (int round = 0; round < 10; round++) {
+            for (String uuid : uuids) {
+                cache.getTodo(uuid);
+            }
+        }
+        long cacheMicros = (System.nanoTime() - start) / 1000;
+
+        Log.i(TAG, String.format("2000 lookups: dao %d us, cache %d us; %s", daoMicros, cacheMicros, cache.stats()));
+        // 第一轮全部未命中，之后全部命中
+        assertEquals(200, cache.todoMissCount());
+        assertEquals(200 * 9, cache.todoHitCount());
+    }
+}
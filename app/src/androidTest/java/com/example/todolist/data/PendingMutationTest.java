@@ -0,0 +1,115 @@
+package com.example.todolist.data;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 待推送队列测试：云端拉取的数据不入队，本地改动一个任务只入队一个，推送期间再次改动的条目不会被清除，
+ * 批量写入不会清除其他来源的待推送条目。
+ */
+@RunWith(AndroidJUnit4.class)
+public class PendingMutationTest {
+    private AppDatabase db;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .addCallback(AppDatabase.OPEN_CALLBACK)
+                .build();
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void onlyLocalChangesAreQueued() {
+        List<Todo> todos = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            todos.add(new Todo(UUID.randomUUID().toString(), "任务 " + i, System.currentTimeMillis(), "", "工作", false, "user"));
+        }
+        applyFromCloud(todos);
+        PendingMutationDao outbox = db.pendingMutationDao();
+        assertEquals(0, outbox.countPending(PendingMutation.TYPE_TODO));
+
+        // 勾选一个任务只需要推送这一个
+        String uuid = todos.get(10).uuid;
+        db.taskDao().setTodoCompleted(uuid, true, System.currentTimeMillis());
+        List<PendingMutation> pending = outbox.getPending(PendingMutation.TYPE_TODO, 100);
+        assertEquals(1, pending.size());
+        assertEquals(uuid, pending.get(0).uuid);
+
+        // 推送期间又改动了一次，确认旧的条目时不能清除
+        db.taskDao().setTodoCompleted(uuid, false, System.currentTimeMillis());
+        outbox.clearAcknowledged(pending);
+        assertEquals(1, outbox.countPending(PendingMutation.TYPE_TODO));
+
+        outbox.clearAcknowledged(outbox.getPending(PendingMutation.TYPE_TODO, 100));
+        assertEquals(0, outbox.countPending(PendingMutation.TYPE_TODO));
+    }
+
+    @Test
+    public void upsertKeepsQueuedLocalChanges() {
+        Todo edited = new Todo(UUID.randomUUID().toString(), "本地改动", System.currentTimeMillis(), "", "工作", false, "user");
+        Todo other = new Todo(UUID.randomUUID().toString(), "其他任务", System.currentTimeMillis(), "", "工作", false, "user");
+        applyFromCloud(new ArrayList<>(Arrays.asList(edited, other)));
+        PendingMutationDao outbox = db.pendingMutationDao();
+        db.taskDao().setTodoCompleted(edited.uuid, true, System.currentTimeMillis());
+        assertEquals(1, outbox.countPending(PendingMutation.TYPE_TODO));
+
+        // 在本地改动之后读取的 seq 只覆盖之后的写入，本地改动的条目保留
+        applyFromCloud(new ArrayList<>(Arrays.asList(other)));
+        db.taskDao().upsertTodos(new ArrayList<>(Arrays.asList(other)));
+        List<PendingMutation> pending = outbox.getPending(PendingMutation.TYPE_TODO, 100);
+        assertEquals(2, pending.size());
+        assertEquals(edited.uuid, pending.get(0).uuid);
+    }
+
+    @Test
+    public void memberChangesQueueTheirGroup() {
+        TaskGroup group = new TaskGroup(UUID.randomUUID().toString(), "代办集", "学习", 3, "user");
+        group.subTaskIds = new ArrayList<>(Arrays.asList("a", "b"));
+        db.runInTransaction(() -> {
+            long seq = db.pendingMutationDao().getMaxSeq();
+            db.taskGroupDao().upsertTaskGroups(new ArrayList<>(Arrays.asList(group)));
+            db.pendingMutationDao().clearEchoes(PendingMutation.TYPE_TASK_GROUP, Arrays.asList(group.uuid), seq);
+        });
+        PendingMutationDao outbox = db.pendingMutationDao();
+        assertEquals(0, outbox.countPending(PendingMutation.TYPE_TASK_GROUP));
+
+        db.taskGroupDao().replaceMembers(group.uuid, Arrays.asList("b", "a", "c"));
+        List<PendingMutation> pending = outbox.getPending(PendingMutation.TYPE_TASK_GROUP, 100);
+        assertEquals(1, pending.size());
+        assertEquals(group.uuid, pending.get(0).uuid);
+    }
+
+    // 与同步引擎拉取时相同：写入前读取 seq，写入后清除触发器生成的条目
+    private void applyFromCloud(List<Todo> todos) {
+        db.runInTransaction(() -> {
+            long seq = db.pendingMutationDao().getMaxSeq();
+            db.taskDao().upsertTodos(todos);
+            List<String> uuids = new ArrayList<>();
+            for (Todo todo : todos) {
+                uuids.add(todo.uuid);
+            }
+            db.pendingMutationDao().clearEchoes(PendingMutation.TYPE_TODO, uuids, seq);
+        });
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.todolist.data;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 代办集进度基准测试：500 个代办集 × 每个 10 个子任务，
+ * 对比逐个子任务查询（N+1）与一次 GROUP BY 聚合查询的耗时。
+ */
+@RunWith(AndroidJUnit4.class)
+public class TaskGroupProgressBenchmarkTest {
+    private static final String TAG = "TaskGroupProgressBench";
+    private static final int GROUPS = 500;
+    private static final int SUBTASKS_PER_GROUP = 10;
+    private static final int REPEAT = 5;
+
+    private AppDatabase db;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        db.runInTransaction(() -> {
+            long now = System.currentTimeMillis();
+            for (int g = 0; g < GROUPS; g++) {
+                TaskGroup group = new TaskGroup(UUID.randomUUID().toString(), "代办集 " + g, "工作", 3, "user");
+                group.createdAt = now + g;
+                for (int s = 0; s < SUBTASKS_PER_GROUP; s++) {
+                    Todo todo = new Todo(UUID.randomUUID().toString(), "子任务 " + s, now, "", "工作",
+                            (g + s) % 2 == 0, "user");
+                    todo.belongsToTaskGroup = true;
+                    db.taskDao().insertTodo(todo);
+                    group.subTaskIds.add(todo.uuid);
+                }
+                db.taskGroupDao().insertTaskGroup(group);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void compareLoopWithAggregatedQuery() {
+        Map<String, Integer> loopCompleted = null;
+        long loopBest = Long.MAX_VALUE;
+        for (int i = 0; i < REPEAT; i++) {
+            long start = System.nanoTime();
+            loopCompleted = loadWithPerSubTaskLookups();
+            loopBest = Math.min(loopBest, System.nanoTime() - start);
+        }
+
+        List<TaskGroup> aggregated = null;
+        long aggregatedBest = Long.MAX_VALUE;
+        for (int i = 0; i < REPEAT; i++) {
+            long start = System.nanoTime();
+            aggregated = db.taskGroupDao().getAllTaskGroupsWithProgress();
+            aggregatedBest = Math.min(aggregatedBest, System.nanoTime() - start);
+        }
+
+        Log.i(TAG, String.format("%d groups x %d subtasks: loop %d ms, aggregated %d ms",
+                GROUPS, SUBTASKS_PER_GROUP, loopBest / 1_000_000, aggregatedBest / 1_000_000));
+
+        assertEquals(GROUPS, aggregated.size());
+        for (TaskGroup group : aggregated) {
+            assertEquals(SUBTASKS_PER_GROUP, group.totalCount);
+            assertEquals((int) loopCompleted.get(group.uuid), group.completedCount);
+        }
+    }
+
+    // 旧实现：读出每个代办集的子任务ID后逐个查询子任务
+    private Map<String, Integer> loadWithPerSubTaskLookups() {
+        Map<String, Integer> completed = new HashMap<>();
+        for (TaskGroup group : db.taskGroupDao().getAllTaskGroupsForUser()) {
+            int count = 0;
+            for (String taskId : db.taskGroupDao().getSubTaskIds(group.uuid)) {
+                Todo todo = db.taskDao().getTodoByIdForUser(taskId);
+                if (todo != null && todo.completed && !todo.deleted) {
+                    count++;
+                }
+            }
+            completed.put(group.uuid, count);
+        }
+        return completed;
+    }
+}
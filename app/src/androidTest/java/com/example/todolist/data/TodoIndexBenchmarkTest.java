@@ -0,0 +1,139 @@
+package com.example.todolist.data;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 索引基准测试：分别在 1万/10万 行数据上对比有索引和无索引时的查询计划与耗时。
+ * 结果输出到 logcat（TAG: TodoIndexBenchmark）。
+ */
+@RunWith(AndroidJUnit4.class)
+public class TodoIndexBenchmarkTest {
+    private static final String TAG = "TodoIndexBenchmark";
+    private static final String[] CATEGORIES = {"工作", "个人", "学习", "其他"};
+    private static final int REPEAT = 5;
+
+    private static final String[][] QUERIES = {
+            {"visible", "SELECT * FROM todos WHERE deleted = 0 AND belongsToTaskGroup = 0 ORDER BY time"},
+            {"visibleForUser", "SELECT * FROM todos WHERE userId = 'user-1' AND deleted = 0 AND belongsToTaskGroup = 0 ORDER BY time"},
+            {"byObjectId", "SELECT * FROM todos WHERE objectId = 'obj-4242'"},
+            {"byCategory", "SELECT * FROM todos WHERE category = '学习'"},
+            {"taskGroups", "SELECT * FROM taskgroups WHERE deleted = 0 ORDER BY createdAt DESC"}
+    };
+
+    private static final String[] INDEXES = {
+            "index_todos_userId_deleted_belongsToTaskGroup_time",
+            "index_todos_deleted_belongsToTaskGroup_time",
+            "index_todos_objectId",
+            "index_todos_category",
+            "index_taskgroups_deleted_createdAt",
+            "index_taskgroups_objectId"
+    };
+
+    @Test
+    public void benchmark10k() {
+        runBenchmark(10_000);
+    }
+
+    @Test
+    public void benchmark100k() {
+        runBenchmark(100_000);
+    }
+
+    private void runBenchmark(int rows) {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        AppDatabase db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        try {
+            populate(db, rows);
+            SupportSQLiteDatabase sqlite = db.getOpenHelper().getWritableDatabase();
+
+            long[] indexed = new long[QUERIES.length];
+            for (int i = 0; i < QUERIES.length; i++) {
+                Log.i(TAG, rows + " rows, indexed, " + QUERIES[i][0] + " plan: " + queryPlan(sqlite, QUERIES[i][1]));
+                indexed[i] = medianMicros(sqlite, QUERIES[i][1]);
+            }
+
+            for (String index : INDEXES) {
+                sqlite.execSQL("DROP INDEX IF EXISTS `" + index + "`");
+            }
+
+            for (int i = 0; i < QUERIES.length; i++) {
+                Log.i(TAG, rows + " rows, no index, " + QUERIES[i][0] + " plan: " + queryPlan(sqlite, QUERIES[i][1]));
+                long scan = medianMicros(sqlite, QUERIES[i][1]);
+                Log.i(TAG, String.format("%d rows, %s: indexed %d us, full scan %d us",
+                        rows, QUERIES[i][0], indexed[i], scan));
+            }
+
+            // 有索引时按 objectId 查找应当明显快于全表扫描
+            assertTrue(indexed[2] < medianMicros(sqlite, QUERIES[2][1]));
+        } finally {
+            db.close();
+        }
+    }
+
+    private void populate(AppDatabase db, int rows) {
+        db.runInTransaction(() -> {
+            TaskDao taskDao = db.taskDao();
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < rows; i++) {
+                Todo todo = new Todo(UUID.randomUUID().toString(), "任务 " + i, now + i * 60_000L,
+                        "地点 " + (i % 50), CATEGORIES[i % CATEGORIES.length], i % 3 == 0, "user-" + (i % 5));
+                todo.objectId = "obj-" + i;
+                todo.deleted = i % 10 == 0;
+                todo.belongsToTaskGroup = i % 5 == 0;
+                taskDao.insertTodo(todo);
+            }
+            TaskGroupDao groupDao = db.taskGroupDao();
+            for (int i = 0; i < rows / 20; i++) {
+                TaskGroup group = new TaskGroup(UUID.randomUUID().toString(), "代办集 " + i,
+                        CATEGORIES[i % CATEGORIES.length], 3, "user-" + (i % 5));
+                group.deleted = i % 10 == 0;
+                group.objectId = "group-obj-" + i;
+                groupDao.insertTaskGroup(group);
+            }
+        });
+    }
+
+    private String queryPlan(SupportSQLiteDatabase sqlite, String sql) {
+        StringBuilder plan = new StringBuilder();
+        try (Cursor cursor = sqlite.query("EXPLAIN QUERY PLAN " + sql)) {
+            int detail = cursor.getColumnIndex("detail");
+            while (cursor.moveToNext()) {
+                if (plan.length() > 0) {
+                    plan.append(" | ");
+                }
+                plan.append(cursor.getString(detail));
+            }
+        }
+        return plan.toString();
+    }
+
+    private long medianMicros(SupportSQLiteDatabase sqlite, String sql) {
+        long[] samples = new long[REPEAT];
+        for (int i = 0; i < REPEAT; i++) {
+            long start = System.nanoTime();
+            try (Cursor cursor = sqlite.query(sql)) {
+                while (cursor.moveToNext()) {
+                    // 读完整个结果集，包含游标填充的开销
+                }
+            }
+            samples[i] = (System.nanoTime() - start) / 1000;
+        }
+        Arrays.sort(samples);
+        return samples[REPEAT / 2];
+    }
+}
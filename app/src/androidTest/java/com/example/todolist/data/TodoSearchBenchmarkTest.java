@@ -0,0 +1,126 @@
+package com.example.todolist.data;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 全文搜索基准测试：10 万条任务上的英文、中文前缀搜索耗时，以及索引随更新、替换、删除同步；
+ * ICU 分词后中文关键词能匹配标题中间的词。
+ */
+@RunWith(AndroidJUnit4.class)
+public class TodoSearchBenchmarkTest {
+    private static final String TAG = "TodoSearchBenchmark";
+    private static final int ROWS = 100_000;
+    private static final int REPEAT = 5;
+    private static final String[] WORDS = {"提交周报", "部门会议", "晚上健身", "复习英语", "采购清单", "report", "meeting", "review"};
+
+    private AppDatabase db;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .addCallback(AppDatabase.OPEN_CALLBACK)
+                .build();
+        db.runInTransaction(() -> {
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < ROWS; i++) {
+                Todo todo = new Todo(UUID.randomUUID().toString(), WORDS[i % WORDS.length] + " " + i,
+                        now + i * 60_000L, "地点 " + (i % 50), "工作", false, "user");
+                db.taskDao().insertTodo(todo);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void prefixSearchOn100k() {
+        long[] samples = new long[REPEAT];
+        List<TodoListItem> results = null;
+        for (int i = 0; i < REPEAT; i++) {
+            long start = System.nanoTime();
+            results = db.taskDao().searchVisibleTasks("rep", 200);
+            samples[i] = (System.nanoTime() - start) / 1000;
+        }
+        Arrays.sort(samples);
+        Log.i(TAG, String.format("%d rows: prefix search median %d us, %d results",
+                ROWS, samples[REPEAT / 2], results.size()));
+
+        assertEquals(200, results.size());
+        assertTrue(results.get(0).title.startsWith("report"));
+        // 一帧约 16ms
+        assertTrue(samples[REPEAT / 2] < 16_000);
+    }
+
+    @Test
+    public void chineseSearchOn100k() {
+        long[] samples = new long[REPEAT];
+        List<TodoListItem> results = null;
+        for (int i = 0; i < REPEAT; i++) {
+            long start = System.nanoTime();
+            // "会议" 在标题中间（"部门会议 n"），需要分词后才能命中
+            results = db.taskDao().searchVisibleTasks("会议", 200);
+            samples[i] = (System.nanoTime() - start) / 1000;
+        }
+        Arrays.sort(samples);
+        Log.i(TAG, String.format("%d rows: chinese search median %d us, %d results",
+                ROWS, samples[REPEAT / 2], results.size()));
+
+        assertEquals(200, results.size());
+        assertTrue(results.get(0).title.startsWith("部门会议"));
+        // 一帧约 16ms
+        assertTrue(samples[REPEAT / 2] < 16_000);
+    }
+
+    @Test
+    public void chineseTermMatchesMidTitle() {
+        Todo todo = new Todo(UUID.randomUUID().toString(), "提交年度报告", System.currentTimeMillis(), "三楼会议室", "工作", false, "user");
+        db.taskDao().insertTodo(todo);
+
+        List<TodoListItem> results = db.taskDao().searchVisibleTasks("报告", 200);
+        assertEquals(1, results.size());
+        assertEquals(todo.uuid, results.get(0).uuid);
+        // 多个词都要出现（标题或地点）
+        assertEquals(1, db.taskDao().searchVisibleTasks("年度报告 会议室", 10).size());
+        assertTrue(db.taskDao().searchVisibleTasks("报告 健身", 10).isEmpty());
+        assertFalse(db.taskDao().searchVisibleTasks("meet", 10).isEmpty());
+    }
+
+    @Test
+    public void indexFollowsReplaceAndDelete() {
+        Todo todo = new Todo(UUID.randomUUID().toString(), "独一无二", System.currentTimeMillis(), "", "工作", false, "user");
+        db.taskDao().insertTodo(todo);
+        assertEquals(1, db.taskDao().searchVisibleTasks("独一无二", 10).size());
+
+        // insertTodo 是 REPLACE，旧内容不应留在索引中
+        todo.title = "修改以后的标题";
+        db.taskDao().insertTodo(todo);
+        assertTrue(db.taskDao().searchVisibleTasks("独一无二", 10).isEmpty());
+        assertFalse(db.taskDao().searchVisibleTasks("标题", 10).isEmpty());
+
+        todo.deleted = true;
+        db.taskDao().insertTodo(todo);
+        assertTrue(db.taskDao().searchVisibleTasks("标题", 10).isEmpty());
+    }
+}
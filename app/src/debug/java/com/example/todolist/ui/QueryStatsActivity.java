@@ -0,0 +1,78 @@
+package com.example.todolist.ui;
+
+import android.os.Bundle;
+import android.util.Log;
+import android.widget.Button;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.appcompat.widget.Toolbar;
+
+import com.example.todolist.R;
+import com.example.todolist.data.QueryStats;
+import com.example.todolist.utils.AppExecutors;
+
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * 调试页面：查看各数据库语句的耗时分布、调用界面，并导出到文件
+ * 从“我的”页面长按“关于”进入（仅调试版本）
+ */
+public class QueryStatsActivity extends BaseActivity {
+    private static final String TAG = "QueryStatsActivity";
+
+    private TextView textQueryStats;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_query_stats);
+
+        Toolbar toolbar = findViewById(R.id.queryStatsToolbar);
+        setSupportActionBar(toolbar);
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+            toolbar.setNavigationOnClickListener(v -> finish());
+        }
+
+        textQueryStats = findViewById(R.id.textQueryStats);
+        Button buttonRefresh = findViewById(R.id.buttonRefreshStats);
+        Button buttonClear = findViewById(R.id.buttonClearStats);
+        Button buttonExport = findViewById(R.id.buttonExportStats);
+
+        buttonRefresh.setOnClickListener(v -> showReport());
+        buttonClear.setOnClickListener(v -> {
+            QueryStats.getInstance().clear();
+            showReport();
+        });
+        buttonExport.setOnClickListener(v -> exportReport());
+
+        showReport();
+    }
+
+    private void showReport() {
+        textQueryStats.setText(QueryStats.getInstance().report());
+    }
+
+    // 导出到应用专属目录，无需存储权限，可通过 adb pull 取出
+    private void exportReport() {
+        AppExecutors.getInstance().diskIO().execute(() -> {
+            try {
+                File dir = getExternalFilesDir("reports");
+                if (dir == null) {
+                    dir = getFilesDir();
+                }
+                String name = "query_stats_" + new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.US).format(new Date()) + ".txt";
+                File file = new File(dir, name);
+                QueryStats.getInstance().exportTo(file);
+                runOnUiThread(() -> Toast.makeText(this, "已导出到 " + file.getAbsolutePath(), Toast.LENGTH_LONG).show());
+            } catch (Exception e) {
+                Log.e(TAG, "导出统计报告失败", e);
+                runOnUiThread(() -> Toast.makeText(this, "导出失败: " + e.getMessage(), Toast.LENGTH_SHORT).show());
+            }
+        });
+    }
+}
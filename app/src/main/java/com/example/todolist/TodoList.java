@@ -1,8 +1,10 @@
 package com.example.todolist;
 
 import android.app.Application;
+import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
 import android.text.TextUtils;
@@ -14,6 +16,10 @@ import com.parse.ParseInstallation;
 import com.parse.ParseUser;
 import com.example.todolist.auth.SessionManager;
 import com.example.todolist.utils.NetworkStateMonitor;
+import com.example.todolist.utils.AppExecutors;
+import com.example.todolist.data.AppDatabase;
+import com.example.todolist.data.EntityCache;
+import com.example.todolist.sync.TombstoneCompactionWorker;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
@@ -37,9 +43,21 @@ public class TodoList extends Application {
         
         // 设置全局异常处理器
         setupUncaughtExceptionHandler();
+
+        // 安排每日墓碑压缩（已安排时保留原计划）
+        TombstoneCompactionWorker.schedule(this);
+
+        // 系统时区变化后按新时区重建统计汇总
+        registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                AppExecutors.getInstance().diskIO().execute(() ->
+                        AppDatabase.getInstance(context.getApplicationContext()).onTimeZoneChanged());
+            }
+        }, new IntentFilter(Intent.ACTION_TIMEZONE_CHANGED));
         
-        // 初始化Parse SDK，使用线程和多层异常捕获
-        Thread initThread = new Thread(() -> {
+        // 初始化Parse SDK，使用网络线程池和多层异常捕获
+        Runnable initTask = () -> {
             try {
                 if (isNetworkAvailable()) {
                     // 初始化Parse
@@ -72,16 +90,30 @@ public class TodoList extends Application {
             } catch (Exception e) {
                 Log.e(TAG, "Parse初始化线程异常", e);
             }
-        });
+        };
         
         try {
             // 在后台线程初始化，不阻塞UI
-            initThread.start();
+            AppExecutors.getInstance().networkIO().execute(initTask);
         } catch (Exception e) {
             Log.e(TAG, "启动Parse初始化线程失败", e);
         }
     }
     
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        // 应用进入后台时输出一次线程池统计，便于排查排队和慢任务
+        if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            AppExecutors.getInstance().logStats();
+            EntityCache.getInstance(this).logStats();
+        }
+        // 内存紧张或进入后台 LRU 列表时清空实体缓存
+        if (level == TRIM_MEMORY_RUNNING_CRITICAL || level >= TRIM_MEMORY_BACKGROUND) {
+            EntityCache.getInstance(this).evictAll();
+        }
+    }
+
     @Override
     public void onTerminate() {
         super.onTerminate();
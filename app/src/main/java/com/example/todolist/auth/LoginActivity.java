@@ -13,7 +13,7 @@ import android.widget.TextView;
 import android.widget.Toast;
 import androidx.appcompat.app.AlertDialog;
 
-import com.example.todolist.sync.SyncWorker;
+import com.example.todolist.sync.SyncCoordinator;
 import com.example.todolist.ui.BaseActivity;
 import com.example.todolist.ui.MainActivity;
 import com.google.android.material.button.MaterialButton;
@@ -212,11 +212,10 @@ public class LoginActivity extends BaseActivity {
                                 
                                 Toast.makeText(LoginActivity.this, "登录成功", Toast.LENGTH_SHORT).show();
                                 // 登录成功后先同步云端数据到本地（无回调）
-                                SyncWorker.pullCloudToLocal(LoginActivity.this);
-                                // 直接进入主界面，并传递刷新参数
+                                SyncCoordinator.getInstance().pullNow(LoginActivity.this);
+                                // 直接进入主界面，拉取到的数据由列表观察数据库自动显示
                                 Intent intent = new Intent(LoginActivity.this, MainActivity.class);
                                 intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP);
-                                intent.putExtra("extra_refresh_tasks", true);
                                 startActivity(intent);
                                 finish();
                             } else {
@@ -1,6 +1,7 @@
 package com.example.todolist.data;
 
 import android.content.Context;
+import android.database.Cursor;
 import android.util.Log;
 import androidx.annotation.NonNull;
 import androidx.room.Database;
@@ -10,13 +11,39 @@ import androidx.room.TypeConverters;
 import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 
-@Database(entities = {Todo.class, TaskGroup.class}, version = 10, exportSchema = false)
+import com.example.todolist.BuildConfig;
+import com.example.todolist.utils.AppExecutors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+
+@Database(entities = {Todo.class, TaskGroup.class, TaskGroupMember.class, TodoFts.class, DailyStats.class, SyncState.class, PendingMutation.class, SyncBase.class}, version = 21, exportSchema = false)
 @TypeConverters(Converters.class)
 public abstract class AppDatabase extends RoomDatabase {
     private static volatile AppDatabase instance;
     private static final String TAG = "AppDatabase";
     public abstract TaskDao taskDao();
     public abstract TaskGroupDao taskGroupDao();
+    public abstract DailyStatsDao dailyStatsDao();
+    public abstract SyncStateDao syncStateDao();
+    public abstract PendingMutationDao pendingMutationDao();
+    public abstract SyncBaseDao syncBaseDao();
+
+    // 单条 SQL 可绑定的参数上限（旧版本 SQLite 为 999，留出余量给其他参数）
+    public static final int MAX_BIND_VARIABLES = 900;
+
+    // 把列表按固定大小切块，用于 IN (...) 查询避免超过参数上限
+    public static <T> List<List<T>> chunked(List<T> items, int size) {
+        List<List<T>> chunks = new ArrayList<>();
+        if (items == null) {
+            return chunks;
+        }
+        for (int start = 0; start < items.size(); start += size) {
+            chunks.add(items.subList(start, Math.min(items.size(), start + size)));
+        }
+        return chunks;
+    }
 
     // 从版本2到版本3的迁移
     static final Migration MIGRATION_2_3 = new Migration(2, 3) {
@@ -153,6 +180,327 @@ public abstract class AppDatabase extends RoomDatabase {
         }
     };
 
+    // 从版本10到版本11的迁移：为常用查询建立索引，索引名需与Room按注解生成的名称一致
+    static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            Log.d(TAG, "Migrating database from version 10 to 11: creating indexes");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_todos_userId_deleted_belongsToTaskGroup_time` ON `todos` (`userId`, `deleted`, `belongsToTaskGroup`, `time`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_todos_deleted_belongsToTaskGroup_time` ON `todos` (`deleted`, `belongsToTaskGroup`, `time`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_todos_objectId` ON `todos` (`objectId`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_todos_category` ON `todos` (`category`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_taskgroups_deleted_createdAt` ON `taskgroups` (`deleted`, `createdAt`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_taskgroups_objectId` ON `taskgroups` (`objectId`)");
+        }
+    };
+
+    // 从版本11到版本12的迁移：子任务列表从 JSON 字段拆分到 task_group_members 表
+    static final Migration MIGRATION_11_12 = new Migration(11, 12) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            Log.d(TAG, "Migrating database from version 11 to 12: moving subTaskIds into task_group_members");
+            // 先读出旧的 JSON 子任务列表
+            List<String> groupUuids = new ArrayList<>();
+            List<List<String>> groupSubTaskIds = new ArrayList<>();
+            try (Cursor cursor = database.query("SELECT uuid, subTaskIds FROM taskgroups")) {
+                while (cursor.moveToNext()) {
+                    groupUuids.add(cursor.getString(0));
+                    groupSubTaskIds.add(Converters.fromString(cursor.getString(1)));
+                }
+            }
+
+            // 重建 taskgroups 表，去掉 subTaskIds（以及早期遗留的 ownerId）列
+            database.execSQL("CREATE TABLE IF NOT EXISTS `taskgroups_new` (`uuid` TEXT NOT NULL, `title` TEXT, `category` TEXT, `estimatedDays` INTEGER NOT NULL, `createdAt` INTEGER NOT NULL, `updatedAt` INTEGER NOT NULL, `deleted` INTEGER NOT NULL, `objectId` TEXT, `userId` TEXT NOT NULL, PRIMARY KEY(`uuid`))");
+            database.execSQL("INSERT INTO `taskgroups_new` (uuid, title, category, estimatedDays, createdAt, updatedAt, deleted, objectId, userId) " +
+                    "SELECT uuid, title, category, estimatedDays, createdAt, updatedAt, deleted, objectId, userId FROM taskgroups");
+            database.execSQL("DROP TABLE taskgroups");
+            database.execSQL("ALTER TABLE `taskgroups_new` RENAME TO `taskgroups`");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_taskgroups_deleted_createdAt` ON `taskgroups` (`deleted`, `createdAt`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_taskgroups_objectId` ON `taskgroups` (`objectId`)");
+
+            // 新建成员表并写入迁移数据
+            database.execSQL("CREATE TABLE IF NOT EXISTS `task_group_members` (`groupUuid` TEXT NOT NULL, `todoUuid` TEXT NOT NULL, `position` INTEGER NOT NULL, PRIMARY KEY(`groupUuid`, `todoUuid`), FOREIGN KEY(`groupUuid`) REFERENCES `taskgroups`(`uuid`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_task_group_members_groupUuid_position` ON `task_group_members` (`groupUuid`, `position`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_task_group_members_todoUuid` ON `task_group_members` (`todoUuid`)");
+            int migrated = 0;
+            for (int i = 0; i < groupUuids.size(); i++) {
+                List<String> subTaskIds = groupSubTaskIds.get(i);
+                if (subTaskIds == null) {
+                    continue;
+                }
+                for (int position = 0; position < subTaskIds.size(); position++) {
+                    String todoUuid = subTaskIds.get(position);
+                    if (todoUuid == null) {
+                        continue;
+                    }
+                    // 旧数据中可能有重复ID，保留第一次出现的位置
+                    database.execSQL("INSERT OR IGNORE INTO `task_group_members` (groupUuid, todoUuid, position) VALUES (?, ?, ?)",
+                            new Object[]{groupUuids.get(i), todoUuid, position});
+                    migrated++;
+                }
+            }
+            Log.d(TAG, "Migrated " + migrated + " task group members from " + groupUuids.size() + " groups");
+        }
+    };
+
+    // 与 Room 为 TodoFts（contentEntity = Todo）生成的同步触发器一致
+    private static final String[] TODOS_FTS_TRIGGERS = {
+            "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_todos_fts_BEFORE_UPDATE BEFORE UPDATE ON `todos` BEGIN DELETE FROM `todos_fts` WHERE `docid`=OLD.`rowid`; END",
+            "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_todos_fts_BEFORE_DELETE BEFORE DELETE ON `todos` BEGIN DELETE FROM `todos_fts` WHERE `docid`=OLD.`rowid`; END",
+            "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_todos_fts_AFTER_UPDATE AFTER UPDATE ON `todos` BEGIN INSERT INTO `todos_fts`(`docid`, `title`, `place`) VALUES (NEW.`rowid`, NEW.`title`, NEW.`place`); END",
+            "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_todos_fts_AFTER_INSERT AFTER INSERT ON `todos` BEGIN INSERT INTO `todos_fts`(`docid`, `title`, `place`) VALUES (NEW.`rowid`, NEW.`title`, NEW.`place`); END",
+    };
+
+    // 从版本12到版本13的迁移：为任务标题和地点建立 FTS4 全文索引
+    static final Migration MIGRATION_12_13 = new Migration(12, 13) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            Log.d(TAG, "Migrating database from version 12 to 13: creating todos_fts");
+            database.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `todos_fts` USING FTS4(`title` TEXT, `place` TEXT, content=`todos`)");
+            for (String sql : TODOS_FTS_TRIGGERS) {
+                database.execSQL(sql);
+            }
+            // 为已有任务建立索引
+            database.execSQL("INSERT INTO `todos_fts`(`todos_fts`) VALUES('rebuild')");
+        }
+    };
+
+    // 从版本13到版本14的迁移：新增每日统计汇总表，由 todos 上的触发器增量维护
+    static final Migration MIGRATION_13_14 = new Migration(13, 14) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            Log.d(TAG, "Migrating database from version 13 to 14: creating daily_stats");
+            database.execSQL("CREATE TABLE IF NOT EXISTS `daily_stats` (`userId` TEXT NOT NULL, `day` TEXT NOT NULL, `category` TEXT NOT NULL, `grouped` INTEGER NOT NULL, `total` INTEGER NOT NULL, `completed` INTEGER NOT NULL, `focusMinutes` INTEGER NOT NULL, `points` INTEGER NOT NULL, PRIMARY KEY(`userId`, `day`, `category`, `grouped`))");
+            for (String sql : DailyStats.createTriggerStatements()) {
+                database.execSQL(sql);
+            }
+            // 用已有任务生成初始汇总
+            database.execSQL("DELETE FROM `daily_stats`");
+            database.execSQL(DailyStats.REBUILD_SQL);
+        }
+    };
+
+    // 从版本14到版本15的迁移：priority 从 高/中/低 文字改为整数编码并建立索引
+    // SQLite 不能修改列类型，需要重建 todos 表；保留 rowid，全文索引无需重建
+    static final Migration MIGRATION_14_15 = new Migration(14, 15) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            Log.d(TAG, "Migrating database from version 14 to 15: converting todos.priority to INTEGER");
+            database.execSQL("CREATE TABLE IF NOT EXISTS `todos_new` (`uuid` TEXT NOT NULL, `title` TEXT, `time` INTEGER NOT NULL, `place` TEXT, `category` TEXT, `completed` INTEGER NOT NULL, `priority` INTEGER NOT NULL, `pomodoroEnabled` INTEGER, `pomodoroMinutes` INTEGER NOT NULL, `pomodoroCompletedCount` INTEGER NOT NULL, `updatedAt` INTEGER NOT NULL, `deleted` INTEGER NOT NULL, `belongsToTaskGroup` INTEGER NOT NULL, `points` INTEGER NOT NULL, `userId` TEXT NOT NULL, `objectId` TEXT, PRIMARY KEY(`uuid`))");
+            database.execSQL("INSERT INTO `todos_new` (rowid, uuid, title, time, place, category, completed, priority, pomodoroEnabled, pomodoroMinutes, pomodoroCompletedCount, updatedAt, deleted, belongsToTaskGroup, points, userId, objectId) " +
+                    "SELECT rowid, uuid, title, time, place, category, completed, " + Priority.fromLabelSql("priority") + ", pomodoroEnabled, pomodoroMinutes, pomodoroCompletedCount, updatedAt, deleted, belongsToTaskGroup, points, userId, objectId FROM todos");
+            // 旧表上的全文索引和统计触发器随表一起删除
+            database.execSQL("DROP TABLE todos");
+            database.execSQL("ALTER TABLE `todos_new` RENAME TO `todos`");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_todos_userId_deleted_belongsToTaskGroup_time` ON `todos` (`userId`, `deleted`, `belongsToTaskGroup`, `time`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_todos_deleted_belongsToTaskGroup_time` ON `todos` (`deleted`, `belongsToTaskGroup`, `time`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_todos_deleted_belongsToTaskGroup_priority_time` ON `todos` (`deleted`, `belongsToTaskGroup`, `priority`, `time`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_todos_objectId` ON `todos` (`objectId`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_todos_category` ON `todos` (`category`)");
+            for (String sql : TODOS_FTS_TRIGGERS) {
+                database.execSQL(sql);
+            }
+            // 统计触发器改用整数优先级；积分规则不变，已有汇总无需重算
+            for (String sql : DailyStats.createTriggerStatements()) {
+                database.execSQL(sql);
+            }
+        }
+    };
+
+    // 从版本15到版本16的迁移：新增云端拉取进度表，之后只拉取变化的对象
+    static final Migration MIGRATION_15_16 = new Migration(15, 16) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            Log.d(TAG, "Migrating database from version 15 to 16: creating sync_state");
+            database.execSQL("CREATE TABLE IF NOT EXISTS `sync_state` (`userId` TEXT NOT NULL, `className` TEXT NOT NULL, `updatedAt` INTEGER NOT NULL, PRIMARY KEY(`userId`, `className`))");
+        }
+    };
+
+    // 从版本16到版本17的迁移：新增待推送队列及维护它的触发器
+    // 升级前不知道哪些改动还没推送，把现有任务和任务组全部入队，第一次推送与升级前一样全量上传
+    static final Migration MIGRATION_16_17 = new Migration(16, 17) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            Log.d(TAG, "Migrating database from version 16 to 17: creating pending_mutations");
+            database.execSQL("CREATE TABLE IF NOT EXISTS `pending_mutations` (`entityType` TEXT NOT NULL, `uuid` TEXT NOT NULL, `seq` INTEGER NOT NULL, PRIMARY KEY(`entityType`, `uuid`))");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_pending_mutations_seq` ON `pending_mutations` (`seq`)");
+            database.execSQL("INSERT OR REPLACE INTO pending_mutations (entityType, uuid, seq) SELECT '" + PendingMutation.TYPE_TODO + "', uuid, 0 FROM todos");
+            database.execSQL("INSERT OR REPLACE INTO pending_mutations (entityType, uuid, seq) SELECT '" + PendingMutation.TYPE_TASK_GROUP + "', uuid, 0 FROM taskgroups");
+            for (String sql : PendingMutation.createTriggerStatements()) {
+                database.execSQL(sql);
+            }
+        }
+    };
+
+    // 从版本17到版本18的迁移：拉取进度增加 objectId，按 (updatedAt, objectId) 分页拉取
+    static final Migration MIGRATION_17_18 = new Migration(17, 18) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            Log.d(TAG, "Migrating database from version 17 to 18: adding sync_state.objectId");
+            database.execSQL("ALTER TABLE `sync_state` ADD COLUMN `objectId` TEXT");
+        }
+    };
+
+    // 从版本18到版本19的迁移：新增三方合并的基准版本表
+    // 升级前的对象没有基准，第一次冲突时按整行较新的一方合并，之后随拉取、推送逐步补齐
+    static final Migration MIGRATION_18_19 = new Migration(18, 19) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            Log.d(TAG, "Migrating database from version 18 to 19: creating sync_base");
+            database.execSQL("CREATE TABLE IF NOT EXISTS `sync_base` (`entityType` TEXT NOT NULL, `uuid` TEXT NOT NULL, `snapshot` TEXT, PRIMARY KEY(`entityType`, `uuid`))");
+        }
+    };
+
+    // 从版本19到版本20的迁移：待推送队列增加 rejected，被云端拒绝的对象不再阻塞推送
+    static final Migration MIGRATION_19_20 = new Migration(19, 20) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            Log.d(TAG, "Migrating database from version 19 to 20: adding pending_mutations.rejected");
+            database.execSQL("ALTER TABLE `pending_mutations` ADD COLUMN `rejected` INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    // 从版本20到版本21的迁移：todos_fts 改用 ICU 分词器，中文标题按词建立索引
+    static final Migration MIGRATION_20_21 = new Migration(20, 21) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            Log.d(TAG, "Migrating database from version 20 to 21: recreating todos_fts with the icu tokenizer");
+            // 分词器只能在建表时指定，需要重建索引表；todos 上的同步触发器按表名引用，不受影响
+            database.execSQL("DROP TABLE IF EXISTS `todos_fts`");
+            database.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `todos_fts` USING FTS4(`title` TEXT, `place` TEXT, tokenize=icu, content=`todos`)");
+            for (String sql : TODOS_FTS_TRIGGERS) {
+                database.execSQL(sql);
+            }
+            database.execSQL("INSERT INTO `todos_fts`(`todos_fts`) VALUES('rebuild')");
+        }
+    };
+
+    /**
+     * 迁移后的数据修复步骤，按编号顺序执行，每一步只执行一次
+     * 每一步都是针对整表的 UPDATE 语句；新增修复时追加新的编号，不要修改已发布的步骤
+     */
+    static final DataRepair[] DATA_REPAIRS = {
+            // 早期版本新增番茄钟字段后可能出现负数
+            new DataRepair(1,
+                    "UPDATE todos SET pomodoroMinutes = 0 WHERE pomodoroMinutes < 0",
+                    "UPDATE todos SET pomodoroCompletedCount = 0 WHERE pomodoroCompletedCount < 0"),
+    };
+
+    static class DataRepair {
+        final int id;
+        final String[] statements;
+
+        DataRepair(int id, String... statements) {
+            this.id = id;
+            this.statements = statements;
+        }
+    }
+
+    // 执行尚未应用的数据修复，所有待执行步骤在一个事务中完成，并记录到 data_repairs 表
+    static void runDataRepairs(SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS `data_repairs` (`id` INTEGER NOT NULL, `appliedAt` INTEGER NOT NULL, PRIMARY KEY(`id`))");
+        int lastApplied = 0;
+        try (Cursor cursor = db.query("SELECT COALESCE(MAX(id), 0) FROM data_repairs")) {
+            if (cursor.moveToFirst()) {
+                lastApplied = cursor.getInt(0);
+            }
+        }
+        int latest = DATA_REPAIRS[DATA_REPAIRS.length - 1].id;
+        if (lastApplied >= latest) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        db.beginTransaction();
+        try {
+            for (DataRepair repair : DATA_REPAIRS) {
+                if (repair.id <= lastApplied) {
+                    continue;
+                }
+                for (String sql : repair.statements) {
+                    db.execSQL(sql);
+                }
+                db.execSQL("INSERT INTO data_repairs (id, appliedAt) VALUES (?, ?)",
+                        new Object[]{repair.id, System.currentTimeMillis()});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        Log.d(TAG, "数据修复 " + lastApplied + " -> " + latest + " 完成，耗时 "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    /**
+     * 统计汇总按任务时间所在的本地日期分组，日期由触发器执行时设备的时区决定
+     * 时区变化后已有汇总行的日期与触发器新算出的不一致，修改、删除任务会扣到从未累加过的日期上，
+     * 所以记录建立汇总时的时区，不同时按当前时区全量重建（夏令时切换不影响：每个时间点按各自的规则换算）
+     */
+    static void rebuildDailyStatsIfTimeZoneChanged(SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS `daily_stats_time_zone` (`id` INTEGER NOT NULL, `timeZone` TEXT NOT NULL, PRIMARY KEY(`id`))");
+        String current = TimeZone.getDefault().getID();
+        String stored = null;
+        try (Cursor cursor = db.query("SELECT timeZone FROM daily_stats_time_zone WHERE id = 0")) {
+            if (cursor.moveToFirst()) {
+                stored = cursor.getString(0);
+            }
+        }
+        if (current.equals(stored)) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        db.beginTransaction();
+        try {
+            db.execSQL("DELETE FROM daily_stats");
+            db.execSQL(DailyStats.REBUILD_SQL);
+            db.execSQL("INSERT OR REPLACE INTO daily_stats_time_zone (id, timeZone) VALUES (0, ?)", new Object[]{current});
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        Log.d(TAG, "时区 " + stored + " -> " + current + "，重建统计汇总，耗时 "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    // 运行中系统时区变化时调用（不能在主线程调用）
+    // 通过 runInTransaction 执行，结束时 InvalidationTracker 会通知观察 daily_stats 的 LiveData 刷新
+    public void onTimeZoneChanged() {
+        try {
+            runInTransaction(() -> rebuildDailyStatsIfTimeZoneChanged(getOpenHelper().getWritableDatabase()));
+        } catch (Exception e) {
+            Log.e(TAG, "重建统计汇总失败", e);
+        }
+    }
+
+    // 打开数据库时的连接设置，测试中构建内存数据库时也要加上
+    public static final Callback OPEN_CALLBACK = new Callback() {
+        @Override
+        public void onOpen(@NonNull SupportSQLiteDatabase db) {
+            // insertTodo 使用 REPLACE，开启递归触发器后被替换的旧行也会触发删除触发器，
+            // 全文索引和统计汇总中不会残留旧内容
+            db.execSQL("PRAGMA recursive_triggers = ON");
+            // Room 新建数据库时不会创建自定义触发器，这里补上（已存在时跳过）
+            for (String sql : DailyStats.createTriggerStatements()) {
+                db.execSQL(sql);
+            }
+            for (String sql : PendingMutation.createTriggerStatements()) {
+                db.execSQL(sql);
+            }
+            // 迁移后的数据修复，已执行过的步骤会跳过
+            try {
+                runDataRepairs(db);
+            } catch (Exception e) {
+                Log.e(TAG, "数据修复失败", e);
+            }
+            try {
+                rebuildDailyStatsIfTimeZoneChanged(db);
+            } catch (Exception e) {
+                Log.e(TAG, "重建统计汇总失败", e);
+            }
+        }
+    };
+
     // 获取单例数据库实例
     public static AppDatabase getInstance(Context context) {
         if (instance == null) {
@@ -161,11 +509,23 @@ public abstract class AppDatabase extends RoomDatabase {
                     try {
                         Log.d(TAG, "创建数据库实例");
                         // 建立本地数据库 "todo_db"
-                        instance = Room.databaseBuilder(context.getApplicationContext(),
+                        RoomDatabase.Builder<AppDatabase> builder = Room.databaseBuilder(context.getApplicationContext(),
                                         AppDatabase.class, "todo_db")
-                                .addMigrations(MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8, MIGRATION_8_9, MIGRATION_9_10) // 添加所有迁移策略
+                                .addMigrations(MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8, MIGRATION_8_9, MIGRATION_9_10, MIGRATION_10_11, MIGRATION_11_12, MIGRATION_12_13, MIGRATION_13_14, MIGRATION_14_15, MIGRATION_15_16, MIGRATION_16_17, MIGRATION_17_18, MIGRATION_18_19, MIGRATION_19_20, MIGRATION_20_21) // 添加所有迁移策略
                                 .fallbackToDestructiveMigration() // 当迁移失败时允许重建数据库
-                                .build();
+                                .addCallback(OPEN_CALLBACK)
+                                // WAL 模式：读写可以并发，写入不必每次重写整个回滚日志
+                                .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING)
+                                // LiveData 等异步查询使用统一的线程池
+                                .setQueryExecutor(AppExecutors.getInstance().diskIO())
+                                .setTransactionExecutor(AppExecutors.getInstance().transactionIO());
+                        // 仅调试版本统计语句耗时：回调在执行语句的线程上同步执行，正式版本不承担这部分开销
+                        if (BuildConfig.DEBUG) {
+                            builder.setQueryCallback((sql, bindArgs) -> QueryStats.getInstance().onQuery(sql), Runnable::run);
+                            // 线程池任务结束时结束本线程最后一条语句的计时
+                            AppExecutors.getInstance().setTaskFinishedListener(QueryStats.getInstance()::onTaskFinished);
+                        }
+                        instance = builder.build();
                         Log.d(TAG, "数据库创建成功");
                     } catch (Exception e) {
                         Log.e(TAG, "数据库创建失败", e);
@@ -177,6 +537,9 @@ public abstract class AppDatabase extends RoomDatabase {
                                     context.getApplicationContext(),
                                     AppDatabase.class
                             ).fallbackToDestructiveMigration()
+                             .addCallback(OPEN_CALLBACK)
+                             .setQueryExecutor(AppExecutors.getInstance().diskIO())
+                             .setTransactionExecutor(AppExecutors.getInstance().transactionIO())
                              .build();
                             Log.d(TAG, "内存数据库创建成功");
                         } catch (Exception e2) {
@@ -9,9 +9,12 @@ import java.util.List;
 
 /**
  * Room数据库类型转换器
+ * 字符串列表以 JSON 数组存储；实体已不再有使用它的列（子任务关系在 task_group_members 表中），
+ * 目前只有 MIGRATION_11_12 读取旧的 subTaskIds 列时用到
  */
 public class Converters {
     private static final Gson gson = new Gson();
+    private static final Type STRING_LIST_TYPE = new TypeToken<List<String>>() {}.getType();
     
     @TypeConverter
     public static List<String> fromString(String value) {
@@ -19,8 +22,9 @@ public class Converters {
             return new ArrayList<>();
         }
         
-        Type listType = new TypeToken<List<String>>() {}.getType();
-        return gson.fromJson(value, listType);
+        // Type 只创建一次，不必每次调用都新建 TypeToken
+        List<String> list = gson.fromJson(value, STRING_LIST_TYPE);
+        return list != null ? list : new ArrayList<>();
     }
     
     @TypeConverter
@@ -0,0 +1,89 @@
+package com.example.todolist.data;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+
+/**
+ * 每日统计汇总表：按 用户/日期/分类/是否代办集子任务 汇总未删除的任务
+ * 由 todos 上的触发器增量维护，统计页面只需读取 O(天数) 行
+ */
+@Entity(tableName = "daily_stats",
+        primaryKeys = {"userId", "day", "category", "grouped"})
+public class DailyStats {
+    @NonNull
+    public String userId = "";
+    @NonNull
+    public String day = "";        // 任务时间所在的本地日期，yyyy-MM-dd
+    @NonNull
+    public String category = "";   // 空分类归为"其他"
+    public boolean grouped;        // 是否为代办集子任务（统计页只统计可见任务）
+    public int total;              // 任务数
+    public int completed;          // 已完成任务数
+    public int focusMinutes;       // 番茄钟专注分钟数
+    public int points;             // 已完成任务按优先级累计的积分
+
+    // 与触发器中分组键一致的表达式
+    private static String keyColumns(String row) {
+        return "COALESCE(" + row + ".userId, ''), "
+                + "date(" + row + ".time / 1000, 'unixepoch', 'localtime'), "
+                + "CASE WHEN " + row + ".category IS NULL OR " + row + ".category = '' THEN '其他' ELSE " + row + ".category END, "
+                + row + ".belongsToTaskGroup";
+    }
+
+    private static String keyMatches(String row) {
+        return "userId = COALESCE(" + row + ".userId, '') "
+                + "AND day = date(" + row + ".time / 1000, 'unixepoch', 'localtime') "
+                + "AND category = CASE WHEN " + row + ".category IS NULL OR " + row + ".category = '' THEN '其他' ELSE " + row + ".category END "
+                + "AND grouped = " + row + ".belongsToTaskGroup";
+    }
+
+    // 积分规则：已完成任务 高=3、中=2、低=1，其他按中计
+    private static String pointsOf(String row) {
+        return "CASE WHEN " + row + ".completed = 1 THEN "
+                + "(CASE " + row + ".priority WHEN " + Priority.HIGH + " THEN 3 WHEN " + Priority.LOW + " THEN 1 ELSE 2 END) ELSE 0 END";
+    }
+
+    // 把一行任务加入汇总：最低支持的 SQLite 没有 UPSERT，先插入空行再累加
+    // 不能用 INSERT OR IGNORE，触发器内的冲突策略会被外层语句覆盖（REPLACE 会把已有汇总清零）
+    private static String addRow(String row) {
+        return "INSERT INTO daily_stats (userId, day, category, grouped, total, completed, focusMinutes, points) "
+                + "SELECT " + keyColumns(row) + ", 0, 0, 0, 0 "
+                + "WHERE NOT EXISTS (SELECT 1 FROM daily_stats WHERE " + keyMatches(row) + "); "
+                + "UPDATE daily_stats SET total = total + 1, completed = completed + " + row + ".completed, "
+                + "focusMinutes = focusMinutes + " + row + ".pomodoroMinutes, points = points + " + pointsOf(row)
+                + " WHERE " + keyMatches(row) + "; ";
+    }
+
+    // 把一行任务从汇总中扣除，任务数归零的行直接删除
+    private static String removeRow(String row) {
+        return "UPDATE daily_stats SET total = total - 1, completed = completed - " + row + ".completed, "
+                + "focusMinutes = focusMinutes - " + row + ".pomodoroMinutes, points = points - " + pointsOf(row)
+                + " WHERE " + keyMatches(row) + "; "
+                + "DELETE FROM daily_stats WHERE " + keyMatches(row) + " AND total <= 0; ";
+    }
+
+    // 只在影响统计的列变化时才需要更新汇总
+    private static final String STAT_COLUMNS = "userId, time, category, belongsToTaskGroup, deleted, completed, pomodoroMinutes, priority";
+
+    /**
+     * 维护汇总表的触发器，迁移和每次打开数据库时执行（IF NOT EXISTS，可重复执行）
+     * 依赖 recursive_triggers：REPLACE 删除旧行时也会触发删除触发器
+     */
+    static String[] createTriggerStatements() {
+        return new String[]{
+                "CREATE TRIGGER IF NOT EXISTS daily_stats_todos_AFTER_INSERT AFTER INSERT ON `todos` "
+                        + "WHEN NEW.deleted = 0 BEGIN " + addRow("NEW") + "END",
+                "CREATE TRIGGER IF NOT EXISTS daily_stats_todos_AFTER_DELETE AFTER DELETE ON `todos` "
+                        + "WHEN OLD.deleted = 0 BEGIN " + removeRow("OLD") + "END",
+                "CREATE TRIGGER IF NOT EXISTS daily_stats_todos_AFTER_UPDATE_OLD AFTER UPDATE OF " + STAT_COLUMNS + " ON `todos` "
+                        + "WHEN OLD.deleted = 0 BEGIN " + removeRow("OLD") + "END",
+                "CREATE TRIGGER IF NOT EXISTS daily_stats_todos_AFTER_UPDATE_NEW AFTER UPDATE OF " + STAT_COLUMNS + " ON `todos` "
+                        + "WHEN NEW.deleted = 0 BEGIN " + addRow("NEW") + "END"
+        };
+    }
+
+    // 根据 todos 表全量重建汇总
+    static final String REBUILD_SQL = "INSERT INTO daily_stats (userId, day, category, grouped, total, completed, focusMinutes, points) "
+            + "SELECT " + keyColumns("todos") + ", COUNT(*), SUM(todos.completed), SUM(todos.pomodoroMinutes), SUM(" + pointsOf("todos") + ") "
+            + "FROM todos WHERE todos.deleted = 0 GROUP BY 1, 2, 3, 4";
+}
@@ -0,0 +1,36 @@
+package com.example.todolist.data;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Query;
+
+import java.util.List;
+
+/**
+ * 读取每日统计汇总表，数据由 todos 上的触发器维护，这里只读不写
+ * "可见任务"与任务列表一致：未删除且不属于代办集
+ */
+@Dao
+public interface DailyStatsDao {
+    String SUMS = "COALESCE(SUM(total), 0) AS total, COALESCE(SUM(completed), 0) AS completed, "
+            + "COALESCE(SUM(focusMinutes), 0) AS focusMinutes, COALESCE(SUM(points), 0) AS points";
+
+    // 可见任务总计
+    @Query("SELECT NULL AS label, " + SUMS + " FROM daily_stats WHERE grouped = 0")
+    LiveData<StatsSummary> observeVisibleTotals();
+
+    // 可见任务按分类汇总
+    @Query("SELECT category AS label, " + SUMS + " FROM daily_stats WHERE grouped = 0 GROUP BY category")
+    LiveData<List<StatsSummary>> observeVisibleByCategory();
+
+    // 可见任务按日期汇总，日期格式 yyyy-MM-dd，包含首尾两天
+    @Query("SELECT day AS label, " + SUMS + " FROM daily_stats WHERE grouped = 0 AND day BETWEEN :fromDay AND :toDay GROUP BY day ORDER BY day")
+    LiveData<List<StatsSummary>> observeVisibleByDay(String fromDay, String toDay);
+
+    // 某个用户的全部任务（包括代办集子任务）总计
+    @Query("SELECT userId AS label, " + SUMS + " FROM daily_stats WHERE userId = :userId")
+    LiveData<StatsSummary> observeTotalsForUser(String userId);
+
+    @Query("SELECT * FROM daily_stats ORDER BY userId, day, category, grouped")
+    List<DailyStats> getAll();
+}
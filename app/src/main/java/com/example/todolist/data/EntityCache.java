@@ -0,0 +1,214 @@
+package com.example.todolist.data;
+
+import android.content.Context;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 任务/代办集单条查询的 LRU 缓存，按 uuid 缓存未删除的实体
+ * 通过本类写入时同步更新缓存（write-through）；绕过本类的批量写入（同步、清空数据）需调用 invalidate/evictAll
+ * 缓存中保存的是副本，读取时也返回副本：调用方可以直接修改返回的对象，保存前（或保存失败时）不会影响其他读取者
+ */
+public class EntityCache {
+    private static final String TAG = "EntityCache";
+    private static final int TODO_CACHE_SIZE = 512;
+    private static final int TASK_GROUP_CACHE_SIZE = 128;
+
+    private static volatile EntityCache instance;
+
+    private final TaskDao taskDao;
+    private final TaskGroupDao taskGroupDao;
+    private final LruCache<String, Todo> todos = new LruCache<>(TODO_CACHE_SIZE);
+    private final LruCache<String, TaskGroup> taskGroups = new LruCache<>(TASK_GROUP_CACHE_SIZE);
+    // 每次写入或失效都会递增；查询期间发生过写入时，查询结果可能已过期，不放入缓存
+    private long generation;
+
+    EntityCache(AppDatabase db) {
+        taskDao = db.taskDao();
+        taskGroupDao = db.taskGroupDao();
+    }
+
+    public static EntityCache getInstance(Context context) {
+        if (instance == null) {
+            synchronized (EntityCache.class) {
+                if (instance == null) {
+                    instance = new EntityCache(AppDatabase.getInstance(context));
+                }
+            }
+        }
+        return instance;
+    }
+
+    // ---------- 任务 ----------
+
+    // 根据uuid查询单个未删除任务
+    public Todo getTodo(String uuid) {
+        if (uuid == null) {
+            return null;
+        }
+        Todo cached = todos.get(uuid);
+        if (cached != null) {
+            return cached.copy();
+        }
+        long seen = currentGeneration();
+        Todo todo = taskDao.getTodoByIdForUser(uuid);
+        if (todo != null) {
+            synchronized (this) {
+                if (generation == seen) {
+                    todos.put(uuid, todo.copy());
+                }
+            }
+        }
+        return todo;
+    }
+
+    public void insertTodo(Todo todo) {
+        taskDao.insertTodo(todo);
+        cacheTodo(todo);
+    }
+
+    public void updateTodo(Todo todo) {
+        taskDao.updateTodo(todo);
+        cacheTodo(todo);
+    }
+
+    // 只修改完成状态，缓存中的旧副本直接失效
+    public void setTodoCompleted(String uuid, boolean completed) {
+        taskDao.setTodoCompleted(uuid, completed, System.currentTimeMillis());
+        invalidateTodos(Collections.singletonList(uuid));
+    }
+
+    // 软删除任务
+    public void logicalDeleteTodo(String uuid) {
+        taskDao.logicalDeleteTodoForUser(uuid);
+        invalidateTodos(Collections.singletonList(uuid));
+    }
+
+    private synchronized void cacheTodo(Todo todo) {
+        generation++;
+        if (todo.deleted) {
+            todos.remove(todo.uuid);
+        } else {
+            todos.put(todo.uuid, todo.copy());
+        }
+    }
+
+    // ---------- 代办集 ----------
+
+    // 根据uuid查询单个未删除代办集（带子任务ID列表）
+    public TaskGroup getTaskGroup(String uuid) {
+        if (uuid == null) {
+            return null;
+        }
+        TaskGroup cached = taskGroups.get(uuid);
+        if (cached != null) {
+            return cached.copy();
+        }
+        long seen = currentGeneration();
+        TaskGroup taskGroup = taskGroupDao.getTaskGroupByIdForUser(uuid);
+        if (taskGroup != null) {
+            synchronized (this) {
+                if (generation == seen) {
+                    taskGroups.put(uuid, taskGroup.copy());
+                }
+            }
+        }
+        return taskGroup;
+    }
+
+    public void insertTaskGroup(TaskGroup taskGroup) {
+        taskGroupDao.insertTaskGroup(taskGroup);
+        cacheTaskGroup(taskGroup);
+    }
+
+    // 在同一事务中保存代办集及其子任务
+    public void insertTaskGroupWithSubTasks(TaskGroup taskGroup, List<Todo> subTasks) {
+        taskGroupDao.insertTaskGroupWithSubTasks(taskGroup, subTasks);
+        if (subTasks != null) {
+            for (Todo subTask : subTasks) {
+                cacheTodo(subTask);
+            }
+        }
+        cacheTaskGroup(taskGroup);
+    }
+
+    private synchronized void cacheTaskGroup(TaskGroup taskGroup) {
+        generation++;
+        if (taskGroup.deleted) {
+            taskGroups.remove(taskGroup.uuid);
+        } else {
+            taskGroups.put(taskGroup.uuid, taskGroup.copy());
+        }
+    }
+
+    // ---------- 失效 ----------
+
+    // 绕过缓存写入了这些任务后调用
+    public synchronized void invalidateTodos(Collection<String> uuids) {
+        generation++;
+        for (String uuid : uuids) {
+            todos.remove(uuid);
+        }
+    }
+
+    // 绕过缓存写入了这些代办集（或其成员关系）后调用
+    public synchronized void invalidateTaskGroups(Collection<String> uuids) {
+        generation++;
+        for (String uuid : uuids) {
+            taskGroups.remove(uuid);
+        }
+    }
+
+    // 清空全部缓存，用于清空数据库或内存紧张时
+    public synchronized void evictAll() {
+        generation++;
+        todos.evictAll();
+        taskGroups.evictAll();
+    }
+
+    private synchronized long currentGeneration() {
+        return generation;
+    }
+
+    // ---------- 统计 ----------
+
+    public int todoHitCount() {
+        return todos.hitCount();
+    }
+
+    public int todoMissCount() {
+        return todos.missCount();
+    }
+
+    public int todoEvictionCount() {
+        return todos.evictionCount();
+    }
+
+    public int taskGroupHitCount() {
+        return taskGroups.hitCount();
+    }
+
+    public int taskGroupMissCount() {
+        return taskGroups.missCount();
+    }
+
+    public int taskGroupEvictionCount() {
+        return taskGroups.evictionCount();
+    }
+
+    public String stats() {
+        return String.format(Locale.US,
+                "任务缓存 %d/%d 命中 %d 未命中 %d 淘汰 %d；代办集缓存 %d/%d 命中 %d 未命中 %d 淘汰 %d",
+                todos.size(), todos.maxSize(), todos.hitCount(), todos.missCount(), todos.evictionCount(),
+                taskGroups.size(), taskGroups.maxSize(), taskGroups.hitCount(), taskGroups.missCount(), taskGroups.evictionCount());
+    }
+
+    public void logStats() {
+        Log.i(TAG, stats());
+    }
+}
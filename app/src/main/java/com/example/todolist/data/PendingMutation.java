@@ -0,0 +1,54 @@
+package com.example.todolist.data;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+
+/**
+ * 待推送队列（outbox）：记录本地改动过、尚未被云端确认的任务和任务组
+ * 由 todos、taskgroups、task_group_members 上的触发器写入，同一对象只保留一行；
+ * 推送时读取对象的当前内容上传，云端确认后再删除
+ * seq 每次改动递增，删除时比较 seq，推送过程中再次改动的对象会保留到下次推送
+ * 被云端拒绝的对象标记 rejected，不再推送；之后本地再次改动时触发器重写这一行，rejected 恢复为 0
+ */
+@Entity(tableName = "pending_mutations",
+        primaryKeys = {"entityType", "uuid"},
+        indices = {@Index(value = {"seq"})})
+public class PendingMutation {
+    public static final String TYPE_TODO = "todo";
+    public static final String TYPE_TASK_GROUP = "task_group";
+
+    @NonNull
+    public String entityType = "";   // TYPE_TODO 或 TYPE_TASK_GROUP
+    @NonNull
+    public String uuid = "";         // 改动对象的uuid
+    public long seq;                 // 改动序号，越大越新
+    // 被云端拒绝，重试也不会成功；触发器写入时不指定，需要默认值
+    @ColumnInfo(defaultValue = "0")
+    public boolean rejected;
+
+    // 触发器中写入一行，seq 取当前最大值加一（seq 上有索引）
+    private static String enqueue(String entityType, String uuidExpr) {
+        return "INSERT OR REPLACE INTO pending_mutations (entityType, uuid, seq) VALUES ('" + entityType + "', " + uuidExpr
+                + ", (SELECT COALESCE(MAX(seq), 0) + 1 FROM pending_mutations)); ";
+    }
+
+    static String[] createTriggerStatements() {
+        return new String[]{
+                "CREATE TRIGGER IF NOT EXISTS pending_todos_AFTER_INSERT AFTER INSERT ON `todos` BEGIN "
+                        + enqueue(TYPE_TODO, "NEW.uuid") + "END",
+                "CREATE TRIGGER IF NOT EXISTS pending_todos_AFTER_UPDATE AFTER UPDATE ON `todos` BEGIN "
+                        + enqueue(TYPE_TODO, "NEW.uuid") + "END",
+                "CREATE TRIGGER IF NOT EXISTS pending_taskgroups_AFTER_INSERT AFTER INSERT ON `taskgroups` BEGIN "
+                        + enqueue(TYPE_TASK_GROUP, "NEW.uuid") + "END",
+                "CREATE TRIGGER IF NOT EXISTS pending_taskgroups_AFTER_UPDATE AFTER UPDATE ON `taskgroups` BEGIN "
+                        + enqueue(TYPE_TASK_GROUP, "NEW.uuid") + "END",
+                // 子任务列表随任务组一起上传，成员变化也要推送所属任务组
+                "CREATE TRIGGER IF NOT EXISTS pending_task_group_members_AFTER_INSERT AFTER INSERT ON `task_group_members` BEGIN "
+                        + enqueue(TYPE_TASK_GROUP, "NEW.groupUuid") + "END",
+                "CREATE TRIGGER IF NOT EXISTS pending_task_group_members_AFTER_DELETE AFTER DELETE ON `task_group_members` BEGIN "
+                        + enqueue(TYPE_TASK_GROUP, "OLD.groupUuid") + "END"
+        };
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.todolist.data;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 读取和清理待推送队列，写入由触发器完成
+ */
+@Dao
+public interface PendingMutationDao {
+    // 按改动顺序取出一批待推送的对象，被云端拒绝的除外
+    @Query("SELECT * FROM pending_mutations WHERE entityType = :entityType AND rejected = 0 ORDER BY seq LIMIT :limit")
+    List<PendingMutation> getPending(String entityType, int limit);
+
+    @Query("SELECT COUNT(*) FROM pending_mutations WHERE entityType = :entityType AND rejected = 0")
+    int countPending(String entityType);
+
+    @Query("SELECT COUNT(*) FROM pending_mutations WHERE entityType = :entityType AND rejected = 1")
+    int countRejected(String entityType);
+
+    @Query("SELECT uuid FROM pending_mutations WHERE entityType = :entityType AND uuid IN (:uuids)")
+    List<String> getPendingUuidsChunk(String entityType, List<String> uuids);
+
+    // 这些对象中仍有未推送改动的，分块查询以免超过 SQLite 参数上限
+    default List<String> getPendingUuids(String entityType, List<String> uuids) {
+        List<String> result = new ArrayList<>();
+        for (List<String> chunk : AppDatabase.chunked(uuids, AppDatabase.MAX_BIND_VARIABLES)) {
+            result.addAll(getPendingUuidsChunk(entityType, chunk));
+        }
+        return result;
+    }
+
+    // 手动入队，与触发器相同取下一个 seq
+    @Query("INSERT OR REPLACE INTO pending_mutations (entityType, uuid, seq) "
+            + "SELECT :entityType, :uuid, COALESCE(MAX(seq), 0) + 1 FROM pending_mutations")
+    void enqueue(String entityType, String uuid);
+
+    // 合并结果与云端不同的对象写入本地后需要再次推送
+    @Transaction
+    default void enqueueAll(String entityType, List<String> uuids) {
+        for (String uuid : uuids) {
+            enqueue(entityType, uuid);
+        }
+    }
+
+    // 当前最大的 seq，写入前记下，用来区分之后触发器生成的条目
+    @Query("SELECT COALESCE(MAX(seq), 0) FROM pending_mutations")
+    long getMaxSeq();
+
+    @Query("DELETE FROM pending_mutations WHERE entityType = :entityType AND uuid IN (:uuids) AND seq > :afterSeq")
+    void clearEchoesChunk(String entityType, List<String> uuids, long afterSeq);
+
+    // 写入云端内容时触发器为这些对象生成的条目（seq 大于 afterSeq）不需要推送回去，
+    // 调用方须在同一事务中先读取 afterSeq 再写入
+    default void clearEchoes(String entityType, List<String> uuids, long afterSeq) {
+        for (List<String> chunk : AppDatabase.chunked(uuids, AppDatabase.MAX_BIND_VARIABLES)) {
+            clearEchoesChunk(entityType, chunk, afterSeq);
+        }
+    }
+
+    // 只有取出后没有再改动过（seq 未变）的才删除
+    @Query("DELETE FROM pending_mutations WHERE entityType = :entityType AND uuid = :uuid AND seq <= :seq")
+    void deleteIfUnchanged(String entityType, String uuid, long seq);
+
+    // 云端确认后清除这些条目，推送期间又改动过的保留
+    @Transaction
+    default void clearAcknowledged(List<PendingMutation> acknowledged) {
+        for (PendingMutation mutation : acknowledged) {
+            deleteIfUnchanged(mutation.entityType, mutation.uuid, mutation.seq);
+        }
+    }
+
+    @Query("UPDATE pending_mutations SET rejected = 1 WHERE entityType = :entityType AND uuid = :uuid AND seq <= :seq")
+    void markRejectedIfUnchanged(String entityType, String uuid, long seq);
+
+    // 被云端拒绝的条目移到一边，不再阻塞后面的推送；推送期间又改动过的保留，下次照常推送
+    @Transaction
+    default void markRejected(List<PendingMutation> rejected) {
+        for (PendingMutation mutation : rejected) {
+            markRejectedIfUnchanged(mutation.entityType, mutation.uuid, mutation.seq);
+        }
+    }
+
+    // 登出清空本地数据时一并清空
+    @Query("DELETE FROM pending_mutations")
+    void deleteAll();
+}
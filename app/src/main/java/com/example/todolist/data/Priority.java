@@ -0,0 +1,43 @@
+package com.example.todolist.data;
+
+/**
+ * 任务优先级编码：数据库中存整数，界面和云端仍使用 高/中/低
+ * 数值越小优先级越高，按 priority 升序即可得到 高 -> 中 -> 低
+ */
+public final class Priority {
+    public static final int HIGH = 0;
+    public static final int MEDIUM = 1;
+    public static final int LOW = 2;
+
+    // 界面选项，下标与编码一致
+    public static final String[] LABELS = {"高", "中", "低"};
+
+    private Priority() {
+    }
+
+    // 编码转显示文字，未知值按中处理
+    public static String toLabel(int priority) {
+        return LABELS[normalize(priority)];
+    }
+
+    // 显示文字转编码，空值或未知文字按中处理
+    public static int fromLabel(String label) {
+        if (label != null) {
+            for (int i = 0; i < LABELS.length; i++) {
+                if (LABELS[i].equals(label.trim())) {
+                    return i;
+                }
+            }
+        }
+        return MEDIUM;
+    }
+
+    public static int normalize(int priority) {
+        return priority >= HIGH && priority <= LOW ? priority : MEDIUM;
+    }
+
+    // 迁移时把旧的文字列转换为编码的 SQL 表达式
+    static String fromLabelSql(String column) {
+        return "CASE " + column + " WHEN '高' THEN " + HIGH + " WHEN '低' THEN " + LOW + " ELSE " + MEDIUM + " END";
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.todolist.data;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 数据库语句耗时统计，数据来自 Room 的查询回调（在执行语句的线程上同步回调）
+ * 回调只在语句开始时触发，耗时按“到同一线程下一条语句、事务边界或线程池任务结束为止”估算，
+ * 包含把结果映射成对象的时间，是语句耗时的上限
+ * 只保留最近使用的 MAX_STATEMENTS 种语句，内存占用有上限
+ */
+public class QueryStats {
+    private static final String TAG = "QueryStats";
+    private static final int MAX_STATEMENTS = 200;
+    private static final int MAX_SCREENS_PER_STATEMENT = 8;
+    // 超过这个耗时的语句输出警告日志
+    private static final long SLOW_QUERY_MS = 100;
+    // 超过这个间隔才等到下一条语句，说明中间线程在做别的事，不计入统计
+    private static final long UNPAIRED_LIMIT_MS = 5000;
+    // 直方图分桶上界（毫秒），最后一个桶为 >= 256
+    private static final long[] BUCKET_BOUNDS_MS = {1, 4, 16, 64, 256};
+    private static final String BACKGROUND = "后台";
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)IN \\(\\?(\\s*,\\s*\\?)*\\)");
+
+    private static volatile QueryStats instance;
+
+    // 按访问顺序淘汰最久未执行的语句
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_STATEMENTS;
+        }
+    };
+    private final ThreadLocal<Pending> pending = new ThreadLocal<>();
+    private volatile String currentScreen = BACKGROUND;
+    private long startedAt = System.currentTimeMillis();
+    private long unpairedCount;
+
+    public static QueryStats getInstance() {
+        if (instance == null) {
+            synchronized (QueryStats.class) {
+                if (instance == null) {
+                    instance = new QueryStats();
+                }
+            }
+        }
+        return instance;
+    }
+
+    // 记录当前前台界面，之后执行的语句都归到这个界面
+    public void setCurrentScreen(String screen) {
+        currentScreen = screen != null ? screen : BACKGROUND;
+    }
+
+    // 界面离开前台时调用，只有仍是当前界面时才清除
+    public void leaveScreen(String screen) {
+        if (screen != null && screen.equals(currentScreen)) {
+            currentScreen = BACKGROUND;
+        }
+    }
+
+    // Room 查询回调：结束本线程上一条语句的计时，并开始新语句的计时
+    public void onQuery(String sql) {
+        long now = System.nanoTime();
+        finishPending(now);
+        if (sql == null || isTransactionBoundary(sql)) {
+            return;
+        }
+        pending.set(new Pending(normalize(sql), currentScreen, now));
+    }
+
+    // 线程池任务结束时调用，结束本线程最后一条语句的计时
+    public void onTaskFinished() {
+        if (pending.get() != null) {
+            finishPending(System.nanoTime());
+        }
+    }
+
+    private void finishPending(long now) {
+        Pending last = pending.get();
+        if (last == null) {
+            return;
+        }
+        pending.remove();
+        long nanos = now - last.startNanos;
+        if (nanos > UNPAIRED_LIMIT_MS * 1_000_000) {
+            synchronized (this) {
+                unpairedCount++;
+            }
+            return;
+        }
+        record(last.sql, last.screen, nanos);
+        long ms = nanos / 1_000_000;
+        if (ms >= SLOW_QUERY_MS) {
+            Log.w(TAG, "慢语句 " + ms + " ms [" + last.screen + "] " + last.sql);
+        }
+    }
+
+    private synchronized void record(String sql, String screen, long nanos) {
+        Entry entry = entries.get(sql);
+        if (entry == null) {
+            entry = new Entry(sql);
+            entries.put(sql, entry);
+        }
+        entry.add(screen, nanos);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        unpairedCount = 0;
+        startedAt = System.currentTimeMillis();
+    }
+
+    // 按总耗时从高到低输出统计报告
+    public synchronized String report() {
+        List<Entry> sorted = new ArrayList<>(entries.values());
+        Collections.sort(sorted, (a, b) -> Long.compare(b.totalNanos, a.totalNanos));
+
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
+        StringBuilder sb = new StringBuilder();
+        sb.append("统计开始：").append(sdf.format(new Date(startedAt)))
+                .append("，语句 ").append(sorted.size()).append(" 种，未计时 ").append(unpairedCount).append(" 次\n");
+        sb.append("直方图分桶(ms)：");
+        for (int i = 0; i <= BUCKET_BOUNDS_MS.length; i++) {
+            sb.append(i == 0 ? "" : " | ").append(bucketLabel(i));
+        }
+        sb.append("\n\n");
+        for (Entry entry : sorted) {
+            sb.append(String.format(Locale.US, "总计 %.1f ms，%d 次，平均 %.2f ms，最长 %.1f ms\n",
+                    entry.totalNanos / 1e6, entry.count, entry.totalNanos / 1e6 / entry.count, entry.maxNanos / 1e6));
+            sb.append("分布：");
+            for (int i = 0; i < entry.buckets.length; i++) {
+                sb.append(i == 0 ? "" : " | ").append(entry.buckets[i]);
+            }
+            sb.append("\n界面：");
+            boolean first = true;
+            for (Map.Entry<String, Integer> screen : entry.screens.entrySet()) {
+                sb.append(first ? "" : "，").append(screen.getKey()).append(" ").append(screen.getValue());
+                first = false;
+            }
+            sb.append("\n").append(entry.sql).append("\n\n");
+        }
+        return sb.toString();
+    }
+
+    // 把报告写入文件
+    public void exportTo(File file) throws IOException {
+        String report = report();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(report);
+        }
+        Log.d(TAG, "统计报告已导出到 " + file.getAbsolutePath());
+    }
+
+    /**
+     * 归一化语句，使只有参数个数不同的 IN (?, ?, ...) 归为同一种
+     */
+    static String normalize(String sql) {
+        String normalized = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        return IN_LIST.matcher(normalized).replaceAll("IN (?...)");
+    }
+
+    private static boolean isTransactionBoundary(String sql) {
+        String upper = sql.trim().toUpperCase(Locale.US);
+        return upper.startsWith("BEGIN") || upper.startsWith("END TRANSACTION")
+                || upper.startsWith("TRANSACTION SUCCESSFUL") || upper.startsWith("COMMIT")
+                || upper.startsWith("ROLLBACK");
+    }
+
+    private static String bucketLabel(int index) {
+        if (index == 0) {
+            return "<" + BUCKET_BOUNDS_MS[0];
+        }
+        if (index == BUCKET_BOUNDS_MS.length) {
+            return ">=" + BUCKET_BOUNDS_MS[index - 1];
+        }
+        return BUCKET_BOUNDS_MS[index - 1] + "-" + BUCKET_BOUNDS_MS[index];
+    }
+
+    private static int bucketOf(long nanos) {
+        long ms = nanos / 1_000_000;
+        for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+            if (ms < BUCKET_BOUNDS_MS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_BOUNDS_MS.length;
+    }
+
+    private static class Pending {
+        final String sql;
+        final String screen;
+        final long startNanos;
+
+        Pending(String sql, String screen, long startNanos) {
+            this.sql = sql;
+            this.screen = screen;
+            this.startNanos = startNanos;
+        }
+    }
+
+    private static class Entry {
+        final String sql;
+        long count;
+        long totalNanos;
+        long maxNanos;
+        final long[] buckets = new long[BUCKET_BOUNDS_MS.length + 1];
+        // 各调用界面的执行次数，最多记录 MAX_SCREENS_PER_STATEMENT 个
+        final Map<String, Integer> screens = new LinkedHashMap<>();
+
+        Entry(String sql) {
+            this.sql = sql;
+        }
+
+        void add(String screen, long nanos) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            buckets[bucketOf(nanos)]++;
+            Integer screenCount = screens.get(screen);
+            if (screenCount != null) {
+                screens.put(screen, screenCount + 1);
+            } else if (screens.size() < MAX_SCREENS_PER_STATEMENT) {
+                screens.put(screen, 1);
+            }
+        }
+    }
+}
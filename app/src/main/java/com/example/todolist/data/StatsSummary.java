@@ -0,0 +1,12 @@
+package com.example.todolist.data;
+
+/**
+ * daily_stats 的汇总结果，label 为分组键（日期、分类等），不分组时为空
+ */
+public class StatsSummary {
+    public String label;
+    public int total;          // 任务数
+    public int completed;      // 已完成任务数
+    public int focusMinutes;   // 专注分钟数
+    public int points;         // 积分
+}
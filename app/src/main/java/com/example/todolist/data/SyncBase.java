@@ -0,0 +1,43 @@
+package com.example.todolist.data;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+
+import com.google.gson.Gson;
+
+/**
+ * 三方合并的基准版本：每个任务、任务组最近一次与云端一致时的内容
+ * 拉取写入本地、推送被云端确认时更新；本地有未推送的改动又拉取到云端新版本时，
+ * 以它为基准区分哪些字段是本地改的、哪些是云端改的
+ * 内容以 JSON 快照保存，任务组的快照包含子任务列表
+ */
+@Entity(tableName = "sync_base", primaryKeys = {"entityType", "uuid"})
+public class SyncBase {
+    private static final Gson gson = new Gson();
+
+    @NonNull
+    public String entityType = "";   // PendingMutation.TYPE_TODO 或 TYPE_TASK_GROUP
+    @NonNull
+    public String uuid = "";
+    public String snapshot;          // 对象的 JSON 快照
+
+    public SyncBase() {
+    }
+
+    public static SyncBase of(@NonNull String entityType, @NonNull String uuid, Object entity) {
+        SyncBase base = new SyncBase();
+        base.entityType = entityType;
+        base.uuid = uuid;
+        base.snapshot = gson.toJson(entity);
+        return base;
+    }
+
+    // 快照损坏时返回 null，按没有基准处理
+    public <T> T read(Class<T> type) {
+        try {
+            return gson.fromJson(snapshot, type);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
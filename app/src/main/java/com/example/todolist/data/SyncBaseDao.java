@@ -0,0 +1,34 @@
+package com.example.todolist.data;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 读写三方合并的基准版本
+ */
+@Dao
+public interface SyncBaseDao {
+    @Query("SELECT * FROM sync_base WHERE entityType = :entityType AND uuid IN (:uuids)")
+    List<SyncBase> getBasesChunk(String entityType, List<String> uuids);
+
+    // 分块查询以免超过 SQLite 参数上限
+    default List<SyncBase> getBases(String entityType, List<String> uuids) {
+        List<SyncBase> result = new ArrayList<>();
+        for (List<String> chunk : AppDatabase.chunked(uuids, AppDatabase.MAX_BIND_VARIABLES)) {
+            result.addAll(getBasesChunk(entityType, chunk));
+        }
+        return result;
+    }
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsertAll(List<SyncBase> bases);
+
+    // 登出清空本地数据时一并清空
+    @Query("DELETE FROM sync_base")
+    void deleteAll();
+}
@@ -0,0 +1,41 @@
+package com.example.todolist.data;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+
+/**
+ * 云端拉取进度：每个用户、每个云端类一行
+ * (updatedAt, objectId) 为已应用到本地的最后一个云端对象（按 updatedAt、objectId 升序），
+ * 下次从它之后继续拉取
+ * 与任务数据放在同一个数据库中，数据库被重建时进度一起清空，会重新全量拉取
+ */
+@Entity(tableName = "sync_state", primaryKeys = {"userId", "className"})
+public class SyncState {
+    public static final String CLASS_TODO = "Todo";
+    public static final String CLASS_TASK_GROUP = "TaskGroup";
+
+    @NonNull
+    public String userId;      // Parse 用户 objectId
+    @NonNull
+    public String className;   // 云端类名，如 Todo、TaskGroup
+    public long updatedAt;     // 已拉取到的云端 updatedAt
+    public String objectId;    // 同一 updatedAt 中已拉取到的最后一个 objectId，旧版本升级上来时为空
+
+    public SyncState(@NonNull String userId, @NonNull String className, long updatedAt, String objectId) {
+        this.userId = userId;
+        this.className = className;
+        this.updatedAt = updatedAt;
+        this.objectId = objectId;
+    }
+
+    // 是否在另一个位置之后（只前进不后退时比较用）
+    boolean isAfter(long otherUpdatedAt, String otherObjectId) {
+        if (updatedAt != otherUpdatedAt) {
+            return updatedAt > otherUpdatedAt;
+        }
+        if (objectId == null || otherObjectId == null) {
+            return objectId != null && otherObjectId == null;
+        }
+        return objectId.compareTo(otherObjectId) > 0;
+    }
+}
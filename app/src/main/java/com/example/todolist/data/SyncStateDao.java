@@ -0,0 +1,34 @@
+package com.example.todolist.data;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+/**
+ * 读写云端拉取进度
+ */
+@Dao
+public interface SyncStateDao {
+    // 没有记录时返回 null，即从头拉取
+    @Query("SELECT * FROM sync_state WHERE userId = :userId AND className = :className")
+    SyncState getPullCursor(String userId, String className);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsert(SyncState state);
+
+    // 只前进不后退，避免并发的两次拉取互相覆盖
+    @Transaction
+    default void advancePullCursor(String userId, String className, long updatedAt, String objectId) {
+        SyncState current = getPullCursor(userId, className);
+        SyncState next = new SyncState(userId, className, updatedAt, objectId);
+        if (current == null || next.isAfter(current.updatedAt, current.objectId)) {
+            upsert(next);
+        }
+    }
+
+    // 登出清空本地数据时一并清空，下次登录重新全量拉取
+    @Query("DELETE FROM sync_state")
+    void deleteAll();
+}
@@ -0,0 +1,87 @@
+package com.example.todolist.data;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.room.InvalidationTracker;
+
+import java.util.Set;
+
+/**
+ * 监听数据表变化的观察者，基于 Room 的 InvalidationTracker
+ * 表被修改后在主线程回调；页面不可见时只记录变化，回到前台时再回调一次
+ * 用于分页列表这类不适合直接返回 LiveData 的查询
+ */
+public class TableObserver implements LifecycleEventObserver {
+    private static final String TAG = "TableObserver";
+
+    private final InvalidationTracker tracker;
+    private final Runnable onChanged;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final InvalidationTracker.Observer trackerObserver;
+    private LifecycleOwner owner;
+    // 有未处理的变化
+    private boolean dirty = false;
+    // 已经向主线程投递了回调，合并连续的多次修改
+    private boolean dispatchPosted = false;
+
+    private TableObserver(AppDatabase db, String[] tables, Runnable onChanged) {
+        this.tracker = db.getInvalidationTracker();
+        this.onChanged = onChanged;
+        this.trackerObserver = new InvalidationTracker.Observer(tables) {
+            @Override
+            public void onInvalidated(@NonNull Set<String> changedTables) {
+                mainHandler.post(TableObserver.this::markDirty);
+            }
+        };
+    }
+
+    /**
+     * 在 owner 的生命周期内监听指定表，owner 销毁时自动取消监听
+     */
+    public static TableObserver observe(AppDatabase db, LifecycleOwner owner, Runnable onChanged, String... tables) {
+        TableObserver observer = new TableObserver(db, tables, onChanged);
+        observer.owner = owner;
+        owner.getLifecycle().addObserver(observer);
+        observer.tracker.addObserver(observer.trackerObserver);
+        return observer;
+    }
+
+    private void markDirty() {
+        dirty = true;
+        if (!dispatchPosted) {
+            dispatchPosted = true;
+            mainHandler.post(this::dispatchIfActive);
+        }
+    }
+
+    private void dispatchIfActive() {
+        dispatchPosted = false;
+        if (dirty && owner != null && owner.getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.STARTED)) {
+            dirty = false;
+            try {
+                onChanged.run();
+            } catch (Exception e) {
+                Log.e(TAG, "处理数据变化失败", e);
+            }
+        }
+    }
+
+    @Override
+    public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+        if (event == Lifecycle.Event.ON_START) {
+            // 不可见期间发生过变化，回到前台时刷新一次
+            dispatchIfActive();
+        } else if (event == Lifecycle.Event.ON_DESTROY) {
+            tracker.removeObserver(trackerObserver);
+            source.getLifecycle().removeObserver(this);
+            mainHandler.removeCallbacksAndMessages(null);
+            owner = null;
+        }
+    }
+}
@@ -3,9 +3,14 @@ package com.example.todolist.data;
 import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.Query;
+import androidx.room.RawQuery;
+import androidx.room.Transaction;
 import androidx.room.Update;
 import androidx.room.Delete;
 import androidx.room.OnConflictStrategy;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import java.util.ArrayList;
 import java.util.List;
 
 @Dao
@@ -22,6 +27,56 @@ public interface TaskDao {
     @Query("SELECT * FROM todos WHERE deleted = 0 AND belongsToTaskGroup = 0")
     List<Todo> getVisibleTasksForUser();
 
+    // 按筛选条件分页查询可见任务的列表项，SQL 由 TaskFilter 生成
+    @RawQuery
+    List<TodoListItem> getTasksByFilter(SupportSQLiteQuery query);
+
+    // 批量写入（REPLACE），由 upsertTodos 在事务中调用
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertTodos(List<Todo> todos);
+
+    // 在一个事务中批量保存任务，整批只提交一次
+    // 触发器照常写入待推送队列；拉取时由同步引擎在同一事务中清除云端内容产生的条目
+    @Transaction
+    default void upsertTodos(List<Todo> todos) {
+        if (todos == null || todos.isEmpty()) {
+            return;
+        }
+        insertTodos(todos);
+    }
+
+    @Query("SELECT * FROM todos WHERE uuid IN (:uuids)")
+    List<Todo> getTodosByUuidsChunk(List<String> uuids);
+
+    // 按uuid批量查询任务（包括已删除的），分块查询以免超过 SQLite 参数上限
+    default List<Todo> getTodosByUuids(List<String> uuids) {
+        List<Todo> result = new ArrayList<>();
+        for (List<String> chunk : AppDatabase.chunked(uuids, AppDatabase.MAX_BIND_VARIABLES)) {
+            result.addAll(getTodosByUuidsChunk(chunk));
+        }
+        return result;
+    }
+
+    // 全文搜索可见任务：标题以关键词开头的排最前，其次是标题包含关键词的，再按时间排序
+    @Query("SELECT todos.uuid, todos.title, todos.time, todos.place, todos.category, todos.completed, todos.priority " +
+            "FROM todos JOIN todos_fts ON todos.rowid = todos_fts.rowid " +
+            "WHERE todos_fts MATCH :matchQuery AND todos.deleted = 0 AND todos.belongsToTaskGroup = 0 " +
+            "ORDER BY CASE WHEN todos.title LIKE :titlePrefix THEN 0 " +
+            "WHEN todos.title LIKE :titleContains THEN 1 ELSE 2 END, todos.time " +
+            "LIMIT :limit")
+    List<TodoListItem> searchVisibleTasks(String matchQuery, String titlePrefix, String titleContains, int limit);
+
+    // 按关键词前缀搜索可见任务（标题或地点）
+    default List<TodoListItem> searchVisibleTasks(String keyword, int limit) {
+        String matchQuery = TodoFts.toPrefixMatchQuery(keyword);
+        if (matchQuery == null) {
+            return new ArrayList<>();
+        }
+        // 排序只用到整个关键词，去掉 LIKE 通配符
+        String term = keyword.trim().replace("%", "").replace("_", "");
+        return searchVisibleTasks(matchQuery, term + "%", "%" + term + "%", limit);
+    }
+
     // 根据uuid和用户ID查询单个任务
     @Query("SELECT * FROM todos WHERE uuid = :taskId AND deleted = 0")
     Todo getTodoByIdForUser(String taskId);
@@ -43,6 +98,10 @@ public interface TaskDao {
     @Query("DELETE FROM todos WHERE deleted = 0")
     int deleteAll();
 
+    // 列表中勾选完成状态，不需要先读出完整任务
+    @Query("UPDATE todos SET completed = :completed, updatedAt = :timestamp WHERE uuid = :taskId AND deleted = 0")
+    void setTodoCompleted(String taskId, boolean completed, long timestamp);
+
     // 软删除特定用户的任务
     @Query("UPDATE todos SET deleted = 1, updatedAt = :timestamp WHERE uuid = :taskId AND deleted = 0")
     void logicalDeleteTodoForUser(String taskId, long timestamp);
@@ -52,6 +111,23 @@ public interface TaskDao {
         logicalDeleteTodoForUser(taskId,  System.currentTimeMillis());
     }
 
+    // 早于指定时间软删除的任务（墓碑），用于压缩清理
+    @Query("SELECT * FROM todos WHERE deleted = 1 AND updatedAt < :before")
+    List<Todo> getTombstonesBefore(long before);
+
+    @Query("DELETE FROM todos WHERE deleted = 1 AND uuid IN (:uuids)")
+    int hardDeleteTombstonesChunk(List<String> uuids);
+
+    // 物理删除已确认同步的墓碑，只会删除 deleted = 1 的行
+    @Transaction
+    default int hardDeleteTombstones(List<String> uuids) {
+        int deleted = 0;
+        for (List<String> chunk : AppDatabase.chunked(uuids, AppDatabase.MAX_BIND_VARIABLES)) {
+            deleted += hardDeleteTombstonesChunk(chunk);
+        }
+        return deleted;
+    }
+
     @Query("SELECT * FROM todos")
     List<Todo> getAllUnfiltered(); // 用于同步等内部操作，不直接展示给UI
 
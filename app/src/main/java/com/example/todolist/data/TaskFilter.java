@@ -0,0 +1,138 @@
+package com.example.todolist.data;
+
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * 任务列表筛选条件
+ * 把时间范围、类别、完成状态和排序方式编译成一条 SQL，由数据库直接返回匹配的一页列表项
+ */
+public class TaskFilter {
+    // 时间范围
+    public enum TimeWindow { ALL, TODAY, THIS_WEEK, OVERDUE }
+
+    // 完成状态
+    public enum Status { ALL, PENDING, COMPLETED }
+
+    // 排序方式；PRIORITY 为 高 -> 低，同一优先级内按时间
+    public enum Sort { TIME_ASC, TIME_DESC, PRIORITY }
+
+    public TimeWindow timeWindow = TimeWindow.ALL;
+    public String category;      // null 表示全部类别
+    public Status status = Status.ALL;
+    public Integer priority;     // null 表示全部优先级，否则为 Priority 编码
+    public Sort sort = Sort.TIME_ASC;
+
+    public TaskFilter copy() {
+        TaskFilter copy = new TaskFilter();
+        copy.timeWindow = timeWindow;
+        copy.category = category;
+        copy.status = status;
+        copy.priority = priority;
+        copy.sort = sort;
+        return copy;
+    }
+
+    /**
+     * 生成分页查询
+     * @param afterPriority 上一页最后一条的优先级，仅按优先级排序时使用
+     * @param afterTime 上一页最后一条的时间，afterUuid 为 null 时忽略
+     * @param afterUuid 上一页最后一条的uuid，null 表示第一页
+     * @param limit 每页条数
+     * @param now 当前时间，用于计算时间范围
+     */
+    public SupportSQLiteQuery toQuery(int afterPriority, long afterTime, String afterUuid, int limit, long now) {
+        StringBuilder sql = new StringBuilder("SELECT " + TodoListItem.COLUMNS
+                + " FROM todos WHERE deleted = 0 AND belongsToTaskGroup = 0");
+        List<Object> args = new ArrayList<>();
+
+        switch (timeWindow) {
+            case TODAY: {
+                long startOfToday = startOfDay(now);
+                Calendar tomorrow = Calendar.getInstance();
+                tomorrow.setTimeInMillis(startOfToday);
+                tomorrow.add(Calendar.DAY_OF_YEAR, 1);
+                sql.append(" AND time >= ? AND time < ?");
+                args.add(startOfToday);
+                args.add(tomorrow.getTimeInMillis());
+                break;
+            }
+            case THIS_WEEK: {
+                Calendar endOfWeek = Calendar.getInstance();
+                endOfWeek.setTimeInMillis(now);
+                endOfWeek.add(Calendar.DAY_OF_YEAR, 7);
+                sql.append(" AND time >= ? AND time <= ?");
+                args.add(now);
+                args.add(endOfWeek.getTimeInMillis());
+                break;
+            }
+            case OVERDUE:
+                sql.append(" AND time < ?");
+                args.add(now);
+                break;
+            default:
+                break;
+        }
+
+        if (category != null) {
+            sql.append(" AND category = ?");
+            args.add(category);
+        }
+
+        if (priority != null) {
+            sql.append(" AND priority = ?");
+            args.add(priority);
+        }
+
+        if (status == Status.PENDING) {
+            sql.append(" AND completed = 0");
+        } else if (status == Status.COMPLETED) {
+            sql.append(" AND completed = 1");
+        }
+
+        // 键集分页：从上一页最后一条之后继续
+        boolean descending = sort == Sort.TIME_DESC;
+        boolean byPriority = sort == Sort.PRIORITY;
+        if (afterUuid != null && byPriority) {
+            // 最低支持的 SQLite 没有行值比较，展开成 (priority, time, uuid) 的字典序
+            sql.append(" AND priority >= ? AND (priority > ? OR (time >= ? AND (time > ? OR uuid > ?)))");
+            args.add(afterPriority);
+            args.add(afterPriority);
+            args.add(afterTime);
+            args.add(afterTime);
+            args.add(afterUuid);
+        } else if (afterUuid != null) {
+            if (descending) {
+                sql.append(" AND time <= ? AND (time < ? OR uuid < ?)");
+            } else {
+                sql.append(" AND time >= ? AND (time > ? OR uuid > ?)");
+            }
+            args.add(afterTime);
+            args.add(afterTime);
+            args.add(afterUuid);
+        }
+
+        if (byPriority) {
+            sql.append(" ORDER BY priority, time, uuid");
+        } else {
+            sql.append(descending ? " ORDER BY time DESC, uuid DESC" : " ORDER BY time, uuid");
+        }
+        sql.append(" LIMIT ?");
+        args.add(limit);
+        return new SimpleSQLiteQuery(sql.toString(), args.toArray());
+    }
+
+    private static long startOfDay(long millis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(millis);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+}
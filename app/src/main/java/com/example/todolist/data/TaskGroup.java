@@ -3,8 +3,8 @@ package com.example.todolist.data;
 import androidx.annotation.NonNull;
 import androidx.room.Entity;
 import androidx.room.Ignore;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
-import androidx.room.TypeConverters;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -14,8 +14,11 @@ import java.util.List;
  * 待办集数据模型
  * 表示一个大任务，包含多个子任务
  */
-@Entity(tableName = "taskgroups")
-@TypeConverters(Converters.class)
+@Entity(tableName = "taskgroups",
+        indices = {
+                @Index(value = {"deleted", "createdAt"}),
+                @Index(value = {"objectId"})
+        })
 public class TaskGroup implements Serializable {
     @PrimaryKey
     @NonNull
@@ -25,7 +28,9 @@ public class TaskGroup implements Serializable {
     public int estimatedDays;    // 预计完成天数
     public long createdAt;       // 创建时间
     public long updatedAt;       // 更新时间
-    public List<String> subTaskIds; // 子任务ID列表
+    // 子任务ID列表 - 存储在 task_group_members 表中，由 TaskGroupDao 负责读写
+    @Ignore
+    public List<String> subTaskIds;
     public boolean deleted;      // 是否已删除
     public String objectId = null; // 新增：Parse云端objectId
 //    public String ownerId;       // 创建者objectId
@@ -70,6 +75,24 @@ public class TaskGroup implements Serializable {
         this.updatedAt = System.currentTimeMillis();
     }
 
+    // 复制全部字段（子任务列表复制一份），缓存中保存和返回的都是副本
+    public TaskGroup copy() {
+        TaskGroup copy = new TaskGroup();
+        copy.uuid = uuid;
+        copy.title = title;
+        copy.category = category;
+        copy.estimatedDays = estimatedDays;
+        copy.createdAt = createdAt;
+        copy.updatedAt = updatedAt;
+        copy.subTaskIds = subTaskIds != null ? new ArrayList<>(subTaskIds) : null;
+        copy.deleted = deleted;
+        copy.objectId = objectId;
+        copy.userId = userId;
+        copy.completedCount = completedCount;
+        copy.totalCount = totalCount;
+        return copy;
+    }
+
     public void addSubTask(String taskId) {
         if (subTaskIds == null) {
             subTaskIds = new ArrayList<>();
@@ -1,29 +1,196 @@
 package com.example.todolist.data;
 
+import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
+
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Dao
 public interface TaskGroupDao {
+    // 只写入 taskgroups 表本身，成员关系请使用 insertTaskGroup
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertTaskGroupRow(TaskGroup taskGroup);
+
+    // 保存任务组及其子任务列表（REPLACE 会级联删除旧成员，因此在同一事务中重写成员表）
+    @Transaction
+    default void insertTaskGroup(TaskGroup taskGroup) { // TaskGroup object should now contain userId
+        insertTaskGroupRow(taskGroup);
+        replaceMembers(taskGroup.uuid, taskGroup.subTaskIds);
+    }
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertTaskGroupRows(List<TaskGroup> taskGroups);
+
+    // 在一个事务中批量保存任务组及其成员关系，整批只提交一次
+    // 触发器照常写入待推送队列；拉取时由同步引擎在同一事务中清除云端内容产生的条目
+    @Transaction
+    default void upsertTaskGroups(List<TaskGroup> taskGroups) {
+        if (taskGroups == null || taskGroups.isEmpty()) {
+            return;
+        }
+        insertTaskGroupRows(taskGroups);
+        List<String> groupUuids = new ArrayList<>(taskGroups.size());
+        List<TaskGroupMember> members = new ArrayList<>();
+        for (TaskGroup taskGroup : taskGroups) {
+            groupUuids.add(taskGroup.uuid);
+            if (taskGroup.subTaskIds == null) {
+                continue;
+            }
+            for (int i = 0; i < taskGroup.subTaskIds.size(); i++) {
+                String todoUuid = taskGroup.subTaskIds.get(i);
+                if (todoUuid != null) {
+                    members.add(new TaskGroupMember(taskGroup.uuid, todoUuid, i));
+                }
+            }
+        }
+        for (List<String> chunk : AppDatabase.chunked(groupUuids, AppDatabase.MAX_BIND_VARIABLES)) {
+            deleteMembersOfGroups(chunk);
+        }
+        if (!members.isEmpty()) {
+            insertMembers(members);
+        }
+    }
+
+    // 子任务和代办集在同一事务中保存（新建代办集时使用）
     @Insert(onConflict = OnConflictStrategy.REPLACE)
-    void insertTaskGroup(TaskGroup taskGroup); // TaskGroup object should now contain userId
+    void insertSubTasks(List<Todo> subTasks);
+
+    @Transaction
+    default void insertTaskGroupWithSubTasks(TaskGroup taskGroup, List<Todo> subTasks) {
+        if (subTasks != null && !subTasks.isEmpty()) {
+            insertSubTasks(subTasks);
+        }
+        insertTaskGroup(taskGroup);
+    }
+
+    @Query("SELECT * FROM taskgroups WHERE uuid IN (:uuids)")
+    List<TaskGroup> getTaskGroupsByUuidsChunk(List<String> uuids);
+
+    // 按uuid批量查询任务组（包括已删除的，不含子任务列表），分块查询以免超过参数上限
+    default List<TaskGroup> getTaskGroupsByUuids(List<String> uuids) {
+        List<TaskGroup> result = new ArrayList<>();
+        for (List<String> chunk : AppDatabase.chunked(uuids, AppDatabase.MAX_BIND_VARIABLES)) {
+            result.addAll(getTaskGroupsByUuidsChunk(chunk));
+        }
+        return result;
+    }
 
     // 获取特定用户的所有未删除任务组
     @Query("SELECT * FROM taskgroups WHERE deleted = 0 ORDER BY createdAt DESC")
     List<TaskGroup> getAllTaskGroupsForUser();
 
-    // 根据uuid和用户ID查询单个未删除任务组
+    // 根据uuid查询单个未删除任务组（不含子任务列表）
     @Query("SELECT * FROM taskgroups WHERE uuid = :groupId AND deleted = 0")
-    TaskGroup getTaskGroupByIdForUser(String groupId);
+    TaskGroup getTaskGroupRowById(String groupId);
+
+    // 根据uuid和用户ID查询单个未删除任务组，并带上子任务ID列表
+    @Transaction
+    default TaskGroup getTaskGroupByIdForUser(String groupId) {
+        TaskGroup taskGroup = getTaskGroupRowById(groupId);
+        if (taskGroup != null) {
+            taskGroup.subTaskIds = new ArrayList<>(getSubTaskIds(groupId));
+        }
+        return taskGroup;
+    }
 
     // 根据子任务uuid列表和用户ID获取子任务
     @Query("SELECT * FROM todos WHERE uuid IN (:taskIds) AND deleted = 0 ORDER BY time ASC")
     List<Todo> getSubTasksByIdsForUser(List<String> taskIds);
 
+    // ---------- 成员关系 ----------
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertMembers(List<TaskGroupMember> members);
+
+    @Query("DELETE FROM task_group_members WHERE groupUuid = :groupUuid")
+    void deleteMembersOfGroup(String groupUuid);
+
+    @Query("DELETE FROM task_group_members WHERE groupUuid IN (:groupUuids)")
+    void deleteMembersOfGroups(List<String> groupUuids);
+
+    // 按顺序获取代办集的子任务ID
+    @Query("SELECT todoUuid FROM task_group_members WHERE groupUuid = :groupUuid ORDER BY position")
+    List<String> getSubTaskIds(String groupUuid);
+
+    // 获取全部成员关系（同步时一次性为所有任务组填充子任务列表）
+    @Query("SELECT * FROM task_group_members ORDER BY groupUuid, position")
+    List<TaskGroupMember> getAllMembers();
+
+    // 通过成员表一次性关联出代办集的未删除子任务，按代办集内顺序排列
+    @Query("SELECT t.* FROM task_group_members m INNER JOIN todos t ON t.uuid = m.todoUuid " +
+            "WHERE m.groupUuid = :groupUuid AND t.deleted = 0 ORDER BY m.position")
+    List<Todo> getSubTasksForGroup(String groupUuid);
+
+    // 一次查询返回所有未删除代办集及其子任务完成进度
+    String PROGRESS_QUERY = "SELECT g.*, COUNT(m.todoUuid) AS totalCount, " +
+            "COALESCE(SUM(CASE WHEN t.completed = 1 AND t.deleted = 0 THEN 1 ELSE 0 END), 0) AS completedCount " +
+            "FROM taskgroups g " +
+            "LEFT JOIN task_group_members m ON m.groupUuid = g.uuid " +
+            "LEFT JOIN todos t ON t.uuid = m.todoUuid " +
+            "WHERE g.deleted = 0 GROUP BY g.uuid ORDER BY g.createdAt DESC";
+
+    @Query(PROGRESS_QUERY)
+    List<TaskGroupProgress> getTaskGroupProgress();
+
+    // 可观察版本：taskgroups、task_group_members 或 todos 变化时自动重新查询
+    @Query(PROGRESS_QUERY)
+    LiveData<List<TaskGroupProgress>> observeTaskGroupProgress();
+
+    // 获取所有未删除任务组，并填充 completedCount/totalCount
+    default List<TaskGroup> getAllTaskGroupsWithProgress() {
+        List<TaskGroupProgress> rows = getTaskGroupProgress();
+        List<TaskGroup> taskGroups = new ArrayList<>(rows.size());
+        for (TaskGroupProgress row : rows) {
+            taskGroups.add(row.toTaskGroup());
+        }
+        return taskGroups;
+    }
+
+    // 用给定的子任务ID列表覆盖代办集的成员关系
+    @Transaction
+    default void replaceMembers(String groupUuid, List<String> subTaskIds) {
+        deleteMembersOfGroup(groupUuid);
+        if (subTaskIds == null || subTaskIds.isEmpty()) {
+            return;
+        }
+        List<TaskGroupMember> members = new ArrayList<>(subTaskIds.size());
+        for (int i = 0; i < subTaskIds.size(); i++) {
+            String todoUuid = subTaskIds.get(i);
+            if (todoUuid != null) {
+                members.add(new TaskGroupMember(groupUuid, todoUuid, i));
+            }
+        }
+        insertMembers(members);
+    }
+
+    // 为一批任务组填充子任务ID列表
+    default void attachSubTaskIds(List<TaskGroup> taskGroups) {
+        if (taskGroups == null || taskGroups.isEmpty()) {
+            return;
+        }
+        Map<String, List<String>> idsByGroup = new HashMap<>();
+        for (TaskGroupMember member : getAllMembers()) {
+            List<String> ids = idsByGroup.get(member.groupUuid);
+            if (ids == null) {
+                ids = new ArrayList<>();
+                idsByGroup.put(member.groupUuid, ids);
+            }
+            ids.add(member.todoUuid);
+        }
+        for (TaskGroup taskGroup : taskGroups) {
+            List<String> ids = idsByGroup.get(taskGroup.uuid);
+            taskGroup.subTaskIds = ids != null ? ids : new ArrayList<>();
+        }
+    }
+
     // 删除特定用户的所有任务组（用于登出时清理）
     @Query("DELETE FROM taskgroups")
     void deleteAllTaskGroupsForUser();
@@ -43,4 +210,21 @@ public interface TaskGroupDao {
     // 获取所有任务组（包括已软删除）
     @Query("SELECT * FROM taskgroups")
     List<TaskGroup> getAllTaskGroupsIncludingDeleted();
+
+    // 早于指定时间软删除的任务组（墓碑），用于压缩清理
+    @Query("SELECT * FROM taskgroups WHERE deleted = 1 AND updatedAt < :before")
+    List<TaskGroup> getTombstonesBefore(long before);
+
+    @Query("DELETE FROM taskgroups WHERE deleted = 1 AND uuid IN (:uuids)")
+    int hardDeleteTombstonesChunk(List<String> uuids);
+
+    // 物理删除已确认同步的墓碑，成员关系随外键级联删除
+    @Transaction
+    default int hardDeleteTombstones(List<String> uuids) {
+        int deleted = 0;
+        for (List<String> chunk : AppDatabase.chunked(uuids, AppDatabase.MAX_BIND_VARIABLES)) {
+            deleted += hardDeleteTombstonesChunk(chunk);
+        }
+        return deleted;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.example.todolist.data;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+
+/**
+ * 代办集成员关系
+ * 一行表示一个子任务属于某个代办集，position 为子任务在代办集中的顺序
+ */
+@Entity(tableName = "task_group_members",
+        primaryKeys = {"groupUuid", "todoUuid"},
+        foreignKeys = @ForeignKey(entity = TaskGroup.class,
+                parentColumns = "uuid",
+                childColumns = "groupUuid",
+                onDelete = ForeignKey.CASCADE),
+        indices = {
+                @Index(value = {"groupUuid", "position"}),
+                @Index(value = {"todoUuid"})
+        })
+public class TaskGroupMember {
+    @NonNull
+    public String groupUuid;   // 所属代办集uuid
+    @NonNull
+    public String todoUuid;    // 子任务uuid
+    public int position;       // 子任务顺序
+
+    public TaskGroupMember(@NonNull String groupUuid, @NonNull String todoUuid, int position) {
+        this.groupUuid = groupUuid;
+        this.todoUuid = todoUuid;
+        this.position = position;
+    }
+}
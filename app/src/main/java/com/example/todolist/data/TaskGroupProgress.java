@@ -0,0 +1,20 @@
+package com.example.todolist.data;
+
+import androidx.room.Embedded;
+
+/**
+ * 代办集及其子任务完成进度，由 TaskGroupDao 的聚合查询一次性返回
+ */
+public class TaskGroupProgress {
+    @Embedded
+    public TaskGroup taskGroup;
+    public int completedCount;   // 已完成且未删除的子任务数量
+    public int totalCount;       // 子任务总数
+
+    // 把统计结果写回 TaskGroup 的进度字段
+    public TaskGroup toTaskGroup() {
+        taskGroup.completedCount = completedCount;
+        taskGroup.totalCount = totalCount;
+        return taskGroup;
+    }
+}
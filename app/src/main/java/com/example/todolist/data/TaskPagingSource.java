@@ -0,0 +1,64 @@
+package com.example.todolist.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 任务列表分页数据源
+ * 按 (time, uuid) 做键集分页（按优先级排序时为 (priority, time, uuid)），每次只从数据库读取一页符合筛选条件的任务，需在后台线程调用
+ */
+public class TaskPagingSource {
+    public static final int DEFAULT_PAGE_SIZE = 30;
+
+    private final TaskDao taskDao;
+    private final TaskFilter filter;
+    private final int pageSize;
+    // 时间范围以数据源创建时刻为准，保证各页之间条件一致
+    private final long now = System.currentTimeMillis();
+
+    // 上一页最后一条记录的位置
+    private int lastPriority;
+    private long lastTime;
+    private String lastUuid;
+    private boolean hasMore = true;
+
+    public TaskPagingSource(TaskDao taskDao, TaskFilter filter) {
+        this(taskDao, filter, DEFAULT_PAGE_SIZE);
+    }
+
+    public TaskPagingSource(TaskDao taskDao, TaskFilter filter, int pageSize) {
+        this.taskDao = taskDao;
+        this.filter = filter != null ? filter : new TaskFilter();
+        this.pageSize = pageSize;
+    }
+
+    // 读取下一页，没有更多数据时返回空列表
+    public List<TodoListItem> loadNextPage() {
+        return loadNextPage(pageSize);
+    }
+
+    // 读取最多 limit 条，用于数据变化后一次性重新加载已显示的范围
+    public synchronized List<TodoListItem> loadNextPage(int limit) {
+        if (!hasMore) {
+            return new ArrayList<>();
+        }
+        List<TodoListItem> page = taskDao.getTasksByFilter(filter.toQuery(lastPriority, lastTime, lastUuid, limit, now));
+        if (page == null) {
+            page = new ArrayList<>();
+        }
+        if (page.size() < limit) {
+            hasMore = false;
+        }
+        if (!page.isEmpty()) {
+            TodoListItem last = page.get(page.size() - 1);
+            lastPriority = last.priority;
+            lastTime = last.time;
+            lastUuid = last.uuid;
+        }
+        return page;
+    }
+
+    public synchronized boolean hasMore() {
+        return hasMore;
+    }
+}
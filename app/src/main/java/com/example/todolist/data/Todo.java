@@ -1,12 +1,22 @@
 package com.example.todolist.data;
 
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 import androidx.room.Ignore;
 import androidx.annotation.NonNull;
 import java.io.Serializable;
 
-@Entity(tableName = "todos")
+// 索引按实际查询模式建立：列表查询按 deleted/belongsToTaskGroup 过滤并按 time 排序，
+// 按优先级排序/筛选的列表走 priority 索引，同步按 objectId 查找，分类筛选按 category 查找；uuid 为主键，本身已有索引
+@Entity(tableName = "todos",
+        indices = {
+                @Index(value = {"userId", "deleted", "belongsToTaskGroup", "time"}),
+                @Index(value = {"deleted", "belongsToTaskGroup", "time"}),
+                @Index(value = {"deleted", "belongsToTaskGroup", "priority", "time"}),
+                @Index(value = {"objectId"}),
+                @Index(value = {"category"})
+        })
 public class Todo implements Serializable {
     @PrimaryKey
     @NonNull
@@ -17,7 +27,7 @@ public class Todo implements Serializable {
     public String place;
     public String category;
     public boolean completed;
-    public String priority;    // 任务优先级：高、中、低
+    public int priority = Priority.MEDIUM; // 任务优先级编码，见 Priority（高=0、中=1、低=2）
     public Boolean pomodoroEnabled; // 是否启用番茄时钟
     public int pomodoroMinutes = 0; // 该任务的总专注分钟数
     public int pomodoroCompletedCount = 0; // 该任务已完成的番茄钟次数
@@ -47,7 +57,7 @@ public class Todo implements Serializable {
         this.updatedAt = System.currentTimeMillis();
         this.deleted = false;
         this.belongsToTaskGroup = false;
-        this.priority = "中";  // 默认优先级为中
+        this.priority = Priority.MEDIUM;  // 默认优先级为中
         this.pomodoroEnabled = false; // 默认不启用番茄时钟
         this.userId = userId; // 设置 userId
         this.points = calculatePoints(); // 根据优先级等计算积分
@@ -59,18 +69,16 @@ public class Todo implements Serializable {
         int basePoints = 10;
         
         // 根据优先级调整分值
-        if (priority != null) {
-            switch (priority) {
-                case "高":
-                    basePoints += 10;
-                    break;
-                case "中":
-                    basePoints += 5;
-                    break;
-                case "低":
-                    basePoints += 2;
-                    break;
-            }
+        switch (priority) {
+            case Priority.HIGH:
+                basePoints += 10;
+                break;
+            case Priority.MEDIUM:
+                basePoints += 5;
+                break;
+            case Priority.LOW:
+                basePoints += 2;
+                break;
         }
         
         // 使用番茄钟的额外奖励
@@ -80,4 +88,26 @@ public class Todo implements Serializable {
         
         return basePoints;
     }
+
+    // 复制全部字段，缓存中保存和返回的都是副本
+    public Todo copy() {
+        Todo copy = new Todo();
+        copy.uuid = uuid;
+        copy.title = title;
+        copy.time = time;
+        copy.place = place;
+        copy.category = category;
+        copy.completed = completed;
+        copy.priority = priority;
+        copy.pomodoroEnabled = pomodoroEnabled;
+        copy.pomodoroMinutes = pomodoroMinutes;
+        copy.pomodoroCompletedCount = pomodoroCompletedCount;
+        copy.updatedAt = updatedAt;
+        copy.deleted = deleted;
+        copy.belongsToTaskGroup = belongsToTaskGroup;
+        copy.points = points;
+        copy.userId = userId;
+        copy.objectId = objectId;
+        return copy;
+    }
 }
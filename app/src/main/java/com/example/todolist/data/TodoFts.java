@@ -0,0 +1,41 @@
+package com.example.todolist.data;
+
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+
+/**
+ * 任务全文索引（FTS4），内容来自 todos 表的 title/place 列
+ * Room 会在 todos 上建立触发器，保证索引与表内容同步
+ * 使用 ICU 分词器：simple/unicode61 只按空白和标点分词，连续的中文整段是一个词，
+ * ICU 按词典把中文切成词（"提交年度报告" -> 提交/年度/报告），标题中间的词也能前缀匹配
+ */
+@Fts4(contentEntity = Todo.class, tokenizer = FtsOptions.TOKENIZER_ICU)
+@Entity(tableName = "todos_fts")
+public class TodoFts {
+    public String title;
+    public String place;
+
+    /**
+     * 把用户输入转换成前缀匹配的 MATCH 表达式，例如 "周报 会议" -> "周报"* "会议"*
+     * 输入中没有可用的词时返回 null
+     */
+    public static String toPrefixMatchQuery(String keyword) {
+        if (keyword == null) {
+            return null;
+        }
+        StringBuilder query = new StringBuilder();
+        for (String token : keyword.trim().split("\\s+")) {
+            // 去掉会破坏 MATCH 语法的双引号
+            String cleaned = token.replace("\"", "");
+            if (cleaned.isEmpty()) {
+                continue;
+            }
+            if (query.length() > 0) {
+                query.append(' ');
+            }
+            query.append('"').append(cleaned).append("\"*");
+        }
+        return query.length() > 0 ? query.toString() : null;
+    }
+}
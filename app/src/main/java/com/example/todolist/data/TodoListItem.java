@@ -0,0 +1,45 @@
+package com.example.todolist.data;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 任务列表项投影：只包含列表渲染需要的列
+ * 列表查询返回它而不是完整的 Todo，打开编辑页时再按 uuid 读取完整任务
+ */
+public class TodoListItem {
+    // 列表查询统一选取的列，字段名需与下面一致
+    public static final String COLUMNS = "uuid, title, time, place, category, completed, priority";
+
+    @NonNull
+    public String uuid = "";
+    public String title;
+    public long time;
+    public String place;
+    public String category;
+    public boolean completed;
+    public int priority;
+
+    // 从内存中的完整任务生成列表项（如尚未保存的子任务）
+    public static TodoListItem from(Todo todo) {
+        TodoListItem item = new TodoListItem();
+        item.uuid = todo.uuid != null ? todo.uuid : "";
+        item.title = todo.title;
+        item.time = todo.time;
+        item.place = todo.place;
+        item.category = todo.category;
+        item.completed = todo.completed;
+        item.priority = todo.priority;
+        return item;
+    }
+
+    public static List<TodoListItem> fromTodos(List<Todo> todos) {
+        List<TodoListItem> items = new ArrayList<>(todos.size());
+        for (Todo todo : todos) {
+            items.add(from(todo));
+        }
+        return items;
+    }
+}
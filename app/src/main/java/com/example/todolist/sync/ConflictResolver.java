@@ -0,0 +1,175 @@
+package com.example.todolist.sync;
+
+import com.example.todolist.data.TaskGroup;
+import com.example.todolist.data.Todo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 同步冲突合并：本地有未推送的改动、云端又有新版本时，以 base（上次与云端一致的版本）按字段三方合并
+ * - 只有一方相对 base 改动的字段取改动方的值
+ * - 双方都改动的字段取 updatedAt 较新的一方，相同时取本地
+ * - 番茄钟完成次数、专注分钟数是累加计数，双方的增量相加
+ * - 任一方删除即为删除（应用中没有恢复已删除对象的操作）
+ * - 待办集的子任务列表按元素合并：保留本地顺序，去掉云端移除的，追加云端新增的
+ * - 积分由优先级和是否启用番茄钟决定，按合并后的这两个字段重新计算
+ * 没有 base 时（升级前同步的数据）整行取较新的一方，计数取较大值
+ * 合并结果与云端不同时 updatedAt 晚于云端，推送时会覆盖云端
+ * 不依赖 Android，可在 JVM 单元测试中运行
+ */
+public final class ConflictResolver {
+
+    private ConflictResolver() {
+    }
+
+    public static Todo mergeTodo(Todo base, Todo local, Todo cloud) {
+        boolean localWins = local.updatedAt >= cloud.updatedAt;
+        Todo merged = new Todo();
+        merged.uuid = local.uuid;
+        merged.userId = local.userId;
+        merged.objectId = cloud.objectId != null ? cloud.objectId : local.objectId;
+
+        if (base == null) {
+            Todo newer = localWins ? local : cloud;
+            merged.title = newer.title;
+            merged.time = newer.time;
+            merged.place = newer.place;
+            merged.category = newer.category;
+            merged.completed = newer.completed;
+            merged.priority = newer.priority;
+            merged.pomodoroEnabled = newer.pomodoroEnabled;
+            merged.belongsToTaskGroup = newer.belongsToTaskGroup;
+            merged.pomodoroMinutes = Math.max(local.pomodoroMinutes, cloud.pomodoroMinutes);
+            merged.pomodoroCompletedCount = Math.max(local.pomodoroCompletedCount, cloud.pomodoroCompletedCount);
+        } else {
+            merged.title = pick(base.title, local.title, cloud.title, localWins);
+            merged.time = pick(base.time, local.time, cloud.time, localWins);
+            merged.place = pick(base.place, local.place, cloud.place, localWins);
+            merged.category = pick(base.category, local.category, cloud.category, localWins);
+            merged.completed = pick(base.completed, local.completed, cloud.completed, localWins);
+            merged.priority = pick(base.priority, local.priority, cloud.priority, localWins);
+            merged.pomodoroEnabled = pick(base.pomodoroEnabled, local.pomodoroEnabled, cloud.pomodoroEnabled, localWins);
+            merged.belongsToTaskGroup = pick(base.belongsToTaskGroup, local.belongsToTaskGroup, cloud.belongsToTaskGroup, localWins);
+            merged.pomodoroMinutes = addCounts(base.pomodoroMinutes, local.pomodoroMinutes, cloud.pomodoroMinutes);
+            merged.pomodoroCompletedCount = addCounts(base.pomodoroCompletedCount, local.pomodoroCompletedCount, cloud.pomodoroCompletedCount);
+        }
+        merged.points = merged.calculatePoints();
+        merged.deleted = local.deleted || cloud.deleted;
+
+        if (sameTodo(merged, cloud)) {
+            merged.updatedAt = cloud.updatedAt;
+        } else {
+            merged.updatedAt = Math.max(local.updatedAt, cloud.updatedAt + 1);
+        }
+        return merged;
+    }
+
+    public static TaskGroup mergeTaskGroup(TaskGroup base, TaskGroup local, TaskGroup cloud) {
+        boolean localWins = local.updatedAt >= cloud.updatedAt;
+        TaskGroup merged = new TaskGroup();
+        merged.uuid = local.uuid;
+        merged.userId = local.userId;
+        merged.objectId = cloud.objectId != null ? cloud.objectId : local.objectId;
+
+        if (base == null) {
+            TaskGroup newer = localWins ? local : cloud;
+            merged.title = newer.title;
+            merged.category = newer.category;
+            merged.estimatedDays = newer.estimatedDays;
+            merged.createdAt = newer.createdAt;
+        } else {
+            merged.title = pick(base.title, local.title, cloud.title, localWins);
+            merged.category = pick(base.category, local.category, cloud.category, localWins);
+            merged.estimatedDays = pick(base.estimatedDays, local.estimatedDays, cloud.estimatedDays, localWins);
+            merged.createdAt = pick(base.createdAt, local.createdAt, cloud.createdAt, localWins);
+        }
+        merged.subTaskIds = mergeIds(base != null ? base.subTaskIds : null, local.subTaskIds, cloud.subTaskIds);
+        merged.deleted = local.deleted || cloud.deleted;
+
+        if (sameTaskGroup(merged, cloud)) {
+            merged.updatedAt = cloud.updatedAt;
+        } else {
+            merged.updatedAt = Math.max(local.updatedAt, cloud.updatedAt + 1);
+        }
+        return merged;
+    }
+
+    // 内容是否相同（不比较 updatedAt、objectId 等同步元数据）
+    public static boolean sameTodo(Todo a, Todo b) {
+        return Objects.equals(a.title, b.title)
+                && a.time == b.time
+                && Objects.equals(a.place, b.place)
+                && Objects.equals(a.category, b.category)
+                && a.completed == b.completed
+                && a.priority == b.priority
+                && Objects.equals(a.pomodoroEnabled, b.pomodoroEnabled)
+                && a.pomodoroMinutes == b.pomodoroMinutes
+                && a.pomodoroCompletedCount == b.pomodoroCompletedCount
+                && a.deleted == b.deleted
+                && a.belongsToTaskGroup == b.belongsToTaskGroup
+                && a.points == b.points;
+    }
+
+    public static boolean sameTaskGroup(TaskGroup a, TaskGroup b) {
+        return Objects.equals(a.title, b.title)
+                && Objects.equals(a.category, b.category)
+                && a.estimatedDays == b.estimatedDays
+                && a.createdAt == b.createdAt
+                && a.deleted == b.deleted
+                && nonNull(a.subTaskIds).equals(nonNull(b.subTaskIds));
+    }
+
+    // 只有一方改动时取改动方，双方都改动时按 localWins 取
+    private static <V> V pick(V base, V local, V cloud, boolean localWins) {
+        if (Objects.equals(local, base)) {
+            return cloud;
+        }
+        if (Objects.equals(cloud, base)) {
+            return local;
+        }
+        return localWins ? local : cloud;
+    }
+
+    // 计数：base 加上双方各自的增量
+    private static int addCounts(int base, int local, int cloud) {
+        return Math.max(0, local + cloud - base);
+    }
+
+    static List<String> mergeIds(List<String> base, List<String> local, List<String> cloud) {
+        List<String> localIds = nonNull(local);
+        List<String> cloudIds = nonNull(cloud);
+        Set<String> baseSet = new HashSet<>(nonNull(base));
+        Set<String> cloudSet = new HashSet<>(cloudIds);
+        Set<String> result = new HashSet<>();
+        List<String> merged = new ArrayList<>(Math.max(localIds.size(), cloudIds.size()));
+        for (String id : localIds) {
+            // 基准中有、云端已移除的不再保留
+            if (baseSet.contains(id) && !cloudSet.contains(id)) {
+                continue;
+            }
+            if (result.add(id)) {
+                merged.add(id);
+            }
+        }
+        Set<String> localSet = new HashSet<>(localIds);
+        for (String id : cloudIds) {
+            // 基准中有、本地已移除的不再加回
+            if (localSet.contains(id) || baseSet.contains(id)) {
+                continue;
+            }
+            if (result.add(id)) {
+                merged.add(id);
+            }
+        }
+        return merged;
+    }
+
+    private static List<String> nonNull(List<String> ids) {
+        return ids != null ? ids : Collections.emptyList();
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.todolist.sync;
+
+import android.util.Log;
+
+import com.parse.ParseACL;
+import com.parse.ParseException;
+import com.parse.ParseObject;
+import com.parse.ParseQuery;
+import com.parse.ParseUser;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 基于 Parse 的同步后端，对象之间按字段名一一对应，所属用户保存在 "user" 指针中
+ */
+public class ParseSyncBackend implements SyncBackend {
+    private static final String TAG = "ParseSyncBackend";
+    // Parse 单次查询返回条数的上限
+    static final int QUERY_LIMIT = 1000;
+
+    private final ParseUser user;
+
+    public ParseSyncBackend(ParseUser user) {
+        this.user = user;
+    }
+
+    @Override
+    public List<SyncRecord> querySince(String className, long afterUpdatedAt, String afterObjectId, int limit) throws SyncBackendException {
+        ParseQuery<ParseObject> query;
+        if (afterObjectId == null) {
+            query = ParseQuery.getQuery(className);
+            if (afterUpdatedAt > 0) {
+                query.whereGreaterThanOrEqualTo("updatedAt", new Date(afterUpdatedAt));
+            }
+        } else {
+            Date after = new Date(afterUpdatedAt);
+            ParseQuery<ParseObject> later = ParseQuery.getQuery(className);
+            later.whereGreaterThan("updatedAt", after);
+            ParseQuery<ParseObject> sameTime = ParseQuery.getQuery(className);
+            sameTime.whereEqualTo("updatedAt", after);
+            sameTime.whereGreaterThan("objectId", afterObjectId);
+            List<ParseQuery<ParseObject>> parts = new ArrayList<>(2);
+            parts.add(later);
+            parts.add(sameTime);
+            query = ParseQuery.or(parts);
+        }
+        query.orderByAscending("updatedAt");
+        query.addAscendingOrder("objectId");
+        query.setLimit(Math.min(limit, QUERY_LIMIT));
+        try {
+            return toRecords(query.find());
+        } catch (ParseException e) {
+            throw wrap(className + " 拉取失败", e, null);
+        }
+    }
+
+    @Override
+    public List<SyncRecord> findByUuids(String className, List<String> uuids) throws SyncBackendException {
+        ParseQuery<ParseObject> query = ParseQuery.getQuery(className);
+        query.whereContainedIn("uuid", uuids);
+        query.whereEqualTo("user", user);
+        // 云端可能有重复 uuid 的对象，不按 uuid 个数限制条数
+        query.setLimit(QUERY_LIMIT);
+        try {
+            return toRecords(query.find());
+        } catch (ParseException e) {
+            throw wrap(className + " 查询已有对象失败", e, null);
+        }
+    }
+
+    @Override
+    public void saveAll(List<SyncRecord> records) throws SyncBackendException {
+        List<ParseObject> objects = new ArrayList<>(records.size());
+        for (SyncRecord record : records) {
+            objects.add(toParse(record));
+        }
+        try {
+            ParseObject.saveAll(objects);
+        } catch (ParseException e) {
+            // 批量保存按对象分别完成，失败时已保存成功的对象不再有未保存的修改
+            Set<String> saved = new HashSet<>();
+            for (int i = 0; i < objects.size(); i++) {
+                if (!objects.get(i).isDirty()) {
+                    saved.add(records.get(i).getString("uuid"));
+                }
+            }
+            throw wrap("批量保存部分失败，成功 " + saved.size() + "，失败 " + (objects.size() - saved.size()), e, saved);
+        }
+    }
+
+    @Override
+    public void deleteAll(List<SyncRecord> records) throws SyncBackendException {
+        List<ParseObject> objects = new ArrayList<>(records.size());
+        for (SyncRecord record : records) {
+            objects.add(ParseObject.createWithoutData(record.className, record.objectId));
+        }
+        try {
+            ParseObject.deleteAll(objects);
+        } catch (ParseException e) {
+            throw wrap("批量删除失败", e, null);
+        }
+    }
+
+    private static List<SyncRecord> toRecords(List<ParseObject> objects) {
+        List<SyncRecord> records = new ArrayList<>(objects != null ? objects.size() : 0);
+        if (objects == null) {
+            return records;
+        }
+        for (ParseObject o : objects) {
+            SyncRecord record = new SyncRecord(o.getClassName());
+            record.objectId = o.getObjectId();
+            record.createdAt = o.getCreatedAt() != null ? o.getCreatedAt().getTime() : 0;
+            record.updatedAt = o.getUpdatedAt() != null ? o.getUpdatedAt().getTime() : record.createdAt;
+            record.ownerId = "";
+            if (o.has("user")) {
+                ParseUser owner = o.getParseUser("user");
+                record.ownerId = owner != null ? owner.getObjectId() : null;
+            }
+            for (String key : o.keySet()) {
+                Object value = o.get(key);
+                if (!(value instanceof ParseObject)) {
+                    record.put(key, value);
+                }
+            }
+            records.add(record);
+        }
+        return records;
+    }
+
+    // 新建的对象归属当前用户，并设置只有本人可读写的 ACL
+    private ParseObject toParse(SyncRecord record) {
+        ParseObject o;
+        if (record.objectId != null) {
+            o = ParseObject.createWithoutData(record.className, record.objectId);
+        } else {
+            o = new ParseObject(record.className);
+            if (user != null) {
+                o.put("user", user);
+                ParseACL acl = new ParseACL(user);
+                acl.setReadAccess(user, true);
+                acl.setWriteAccess(user, true);
+                o.setACL(acl);
+            } else {
+                Log.e(TAG, "无法设置ACL：当前用户为空");
+            }
+        }
+        for (Map.Entry<String, Object> field : record.getFields().entrySet()) {
+            o.put(field.getKey(), field.getValue());
+        }
+        return o;
+    }
+
+    // 网络、超时、服务端错误和限流可以稍后重试
+    // 保存时对象本身不合法（字段名或类型、对象过大、ACL、云函数校验等）由云端拒绝，重试也不会成功；
+    // 会话失效等与对象无关的错误不算拒绝，重新登录后仍可推送
+    private static SyncBackendException wrap(String message, ParseException e, Set<String> saved) {
+        int code = e.getCode();
+        boolean isTransient = code == ParseException.CONNECTION_FAILED
+                || code == ParseException.TIMEOUT
+                || code == ParseException.INTERNAL_SERVER_ERROR
+                || code == ParseException.REQUEST_LIMIT_EXCEEDED;
+        String detail = message + ": " + e.getMessage() + " (code " + code + ")";
+        if (saved == null) {
+            return new SyncBackendException(detail, isTransient, e);
+        }
+        boolean isRejected = code == ParseException.INVALID_KEY_NAME
+                || code == ParseException.INVALID_POINTER
+                || code == ParseException.INVALID_JSON
+                || code == ParseException.INCORRECT_TYPE
+                || code == ParseException.OBJECT_TOO_LARGE
+                || code == ParseException.INVALID_ACL
+                || code == ParseException.DUPLICATE_VALUE
+                || code == ParseException.SCRIPT_ERROR
+                || code == ParseException.VALIDATION_ERROR
+                || code == ParseException.OBJECT_NOT_FOUND;
+        return new SyncBackendException(detail, isTransient, isRejected, e, saved);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.todolist.sync;
+
+import java.util.List;
+
+/**
+ * 同步后端：SyncEngine 通过它读写云端，每个方法对应一次网络请求
+ * 线上使用 ParseSyncBackend；测试中可以换成进程内的实现，不需要 Parse 服务器
+ * 一个实例对应一个已登录用户
+ */
+public interface SyncBackend {
+    /**
+     * 拉取：按 (updatedAt, objectId) 升序返回位于游标之后的最多 limit 个对象
+     * afterObjectId 为空时（旧版本的游标）返回 updatedAt >= afterUpdatedAt 的对象
+     */
+    List<SyncRecord> querySince(String className, long afterUpdatedAt, String afterObjectId, int limit) throws SyncBackendException;
+
+    // 推送前查询当前用户在云端已有的这些 uuid 的对象，可能有重复 uuid
+    List<SyncRecord> findByUuids(String className, List<String> uuids) throws SyncBackendException;
+
+    /**
+     * 批量保存：objectId 为空的新建并归属当前用户，否则只更新 record 中的字段
+     * 部分失败时抛出的异常中带有已保存成功的 uuid
+     */
+    void saveAll(List<SyncRecord> records) throws SyncBackendException;
+
+    // 批量删除云端对象
+    void deleteAll(List<SyncRecord> records) throws SyncBackendException;
+}
@@ -0,0 +1,43 @@
+package com.example.todolist.sync;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * 同步后端请求失败
+ * isTransient 为 true 表示网络、超时、服务端繁忙等稍后重试可能成功的错误；
+ * 批量保存部分失败时，savedUuids 为其中已保存成功的对象
+ * isRejected 为 true 表示批量保存中未保存的对象被云端拒绝（字段类型、对象过大、云函数校验等），重试也不会成功
+ */
+public class SyncBackendException extends Exception {
+    private final boolean isTransient;
+    private final boolean isRejected;
+    private final Set<String> savedUuids;
+
+    public SyncBackendException(String message, boolean isTransient, Throwable cause) {
+        this(message, isTransient, cause, Collections.emptySet());
+    }
+
+    public SyncBackendException(String message, boolean isTransient, Throwable cause, Set<String> savedUuids) {
+        this(message, isTransient, false, cause, savedUuids);
+    }
+
+    public SyncBackendException(String message, boolean isTransient, boolean isRejected, Throwable cause, Set<String> savedUuids) {
+        super(message, cause);
+        this.isTransient = isTransient;
+        this.isRejected = isRejected;
+        this.savedUuids = savedUuids;
+    }
+
+    public boolean isTransient() {
+        return isTransient;
+    }
+
+    public boolean isRejected() {
+        return isRejected;
+    }
+
+    public Set<String> getSavedUuids() {
+        return savedUuids;
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.todolist.sync;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 同步调度：界面上的修改不再直接调用 SyncWorker，而是在这里登记同步请求
+ * - requestPush 在 DEBOUNCE_MS 内的多次请求合并为一次（如连续勾选多个任务）
+ * - 合并后的请求交给唯一的 WorkManager 任务执行，同一时间最多排队一个：
+ *   是否已有任务在排队以 WorkManager 中这个唯一任务的状态为准（ENQUEUED / BLOCKED），
+ *   有则新请求并入该任务，否则追加到正在执行的任务之后（APPEND_OR_REPLACE）；
+ *   任务被取消、失败或从未开始执行都不会让之后的请求失效
+ * - 拉取/推送本身都在单线程的 syncIO 上执行，同一时间只有一个同步操作
+ * 记录请求次数和实际执行次数，用于确认合并效果
+ */
+public class SyncCoordinator {
+    private static final String TAG = "SyncCoordinator";
+    static final String UNIQUE_WORK_NAME = "SyncNow";
+    // 输入数据：由调度器安排的任务，执行内容取自合并后的请求
+    static final String KEY_COORDINATED = "coordinated";
+
+    public static final int FLAG_PULL = 1;
+    public static final int FLAG_PUSH = 2;
+    public static final int FLAG_ALL = FLAG_PULL | FLAG_PUSH;
+
+    // 编辑触发的推送等待这么久再安排，期间的请求合并为一次
+    private static final long DEBOUNCE_MS = 3000;
+
+    private static volatile SyncCoordinator instance;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable flushRunnable = this::flush;
+    private final AtomicInteger requestedFlags = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicLong triggerCount = new AtomicLong();
+    private final AtomicLong enqueueCount = new AtomicLong();
+    private final AtomicLong runCount = new AtomicLong();
+    private volatile Context appContext;
+
+    public static SyncCoordinator getInstance() {
+        if (instance == null) {
+            synchronized (SyncCoordinator.class) {
+                if (instance == null) {
+                    instance = new SyncCoordinator();
+                }
+            }
+        }
+        return instance;
+    }
+
+    // 本地数据有修改，稍后推送
+    public void requestPush(Context context) {
+        request(context, FLAG_PUSH, DEBOUNCE_MS);
+    }
+
+    // 用户主动刷新，立即拉取
+    public void pullNow(Context context) {
+        request(context, FLAG_PULL, 0);
+    }
+
+    // 用户主动同步，立即拉取并推送
+    public void syncNow(Context context) {
+        request(context, FLAG_ALL, 0);
+    }
+
+    private void request(Context context, int flags, long delayMs) {
+        appContext = context.getApplicationContext();
+        triggerCount.incrementAndGet();
+        requestedFlags.accumulateAndGet(flags, (a, b) -> a | b);
+        if (delayMs <= 0) {
+            handler.removeCallbacks(flushRunnable);
+            flush();
+        } else if (flushScheduled.compareAndSet(false, true)) {
+            handler.postDelayed(flushRunnable, delayMs);
+        }
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        Context context = appContext;
+        if (context == null) {
+            return;
+        }
+        try {
+            ListenableFuture<List<WorkInfo>> infos = WorkManager.getInstance(context).getWorkInfosForUniqueWork(UNIQUE_WORK_NAME);
+            infos.addListener(() -> enqueueIfIdle(context, infos), handler::post);
+        } catch (Exception e) {
+            Log.e(TAG, "查询同步任务状态失败: " + e.getMessage(), e);
+            enqueue(context);
+        }
+    }
+
+    // 已有任务在排队（尚未开始或在重试退避中）时，请求由它在开始执行时取走
+    private void enqueueIfIdle(Context context, ListenableFuture<List<WorkInfo>> infos) {
+        try {
+            for (WorkInfo info : infos.get()) {
+                WorkInfo.State state = info.getState();
+                if (state == WorkInfo.State.ENQUEUED || state == WorkInfo.State.BLOCKED) {
+                    Log.d(TAG, "已有同步任务在排队，本次请求并入该任务");
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "查询同步任务状态失败: " + e.getMessage(), e);
+        }
+        enqueue(context);
+    }
+
+    private void enqueue(Context context) {
+        try {
+            Constraints constraints = new Constraints.Builder()
+                    .setRequiredNetworkType(NetworkType.CONNECTED)
+                    .build();
+            OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(SyncWorker.class)
+                    .setConstraints(constraints)
+                    .setInputData(new Data.Builder().putBoolean(KEY_COORDINATED, true).build())
+                    .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, SyncWorker.BACKOFF_DELAY_SECONDS, TimeUnit.SECONDS)
+                    .build();
+            WorkManager.getInstance(context)
+                    .enqueueUniqueWork(UNIQUE_WORK_NAME, ExistingWorkPolicy.APPEND_OR_REPLACE, request);
+            enqueueCount.incrementAndGet();
+            Log.d(TAG, "已安排同步任务，" + stats());
+        } catch (Exception e) {
+            Log.e(TAG, "安排同步任务失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 调度的同步任务开始执行时调用，返回要执行的内容（FLAG_PULL / FLAG_PUSH）
+     * 之后的新请求会安排下一次任务；进程重启后内存中的请求丢失，这时执行完整同步
+     */
+    int onRunStarted() {
+        runCount.incrementAndGet();
+        int flags = requestedFlags.getAndSet(0);
+        Log.d(TAG, "开始执行同步任务，" + stats());
+        return flags != 0 ? flags : FLAG_ALL;
+    }
+
+    // 收到的同步请求次数
+    public long getTriggerCount() {
+        return triggerCount.get();
+    }
+
+    // 实际安排到 WorkManager 的任务数
+    public long getEnqueueCount() {
+        return enqueueCount.get();
+    }
+
+    // 实际执行的同步次数
+    public long getRunCount() {
+        return runCount.get();
+    }
+
+    public String stats() {
+        return String.format(Locale.US, "请求 %d 次，安排 %d 次，执行 %d 次",
+                triggerCount.get(), enqueueCount.get(), runCount.get());
+    }
+}
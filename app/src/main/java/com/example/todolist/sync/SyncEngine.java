@@ -0,0 +1,815 @@
+package com.example.todolist.sync;
+
+import android.util.Log;
+
+import com.example.todolist.data.AppDatabase;
+import com.example.todolist.data.EntityCache;
+import com.example.todolist.data.PendingMutation;
+import com.example.todolist.data.PendingMutationDao;
+import com.example.todolist.data.Priority;
+import com.example.todolist.data.SyncBase;
+import com.example.todolist.data.SyncBaseDao;
+import com.example.todolist.data.SyncState;
+import com.example.todolist.data.TaskDao;
+import com.example.todolist.data.TaskGroup;
+import com.example.todolist.data.TaskGroupDao;
+import com.example.todolist.data.Todo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 拉取和推送的核心逻辑：本地读写 Room，云端读写 SyncBackend
+ * 调用方负责线程（在 syncIO 上顺序执行）、登录和网络检查；测试中可以用进程内后端驱动完整的同步
+ */
+public class SyncEngine {
+    private static final String TAG = "SyncEngine";
+    // 推送分块大小：每块一次云端查询 + 一次批量保存（Parse 批量请求每次最多 50 个对象）
+    static final int PUSH_CHUNK_SIZE = 50;
+    // 每次从待推送队列取出的条数
+    static final int OUTBOX_BATCH_SIZE = 500;
+    // 单页拉取条数的上限
+    static final int MAX_PULL_PAGE_SIZE = 1000;
+
+    private final AppDatabase db;
+    private final SyncBackend backend;
+    private final String userId;
+    private final EntityCache cache;
+
+    /**
+     * @param userId 当前登录用户的 objectId
+     * @param cache  批量写入后需要失效的实体缓存，为空时不维护（测试）
+     */
+    public SyncEngine(AppDatabase db, SyncBackend backend, String userId, EntityCache cache) {
+        this.db = db;
+        this.backend = backend;
+        this.userId = userId;
+        this.cache = cache;
+    }
+
+    // 分页拉取云端任务，返回写入本地的个数
+    public int pullTodos(int pageSize) throws SyncBackendException {
+        return pullPages(SyncState.CLASS_TODO, pageSize, todoPullMapper());
+    }
+
+    public int pullTaskGroups(int pageSize) throws SyncBackendException {
+        return pullPages(SyncState.CLASS_TASK_GROUP, pageSize, taskGroupPullMapper());
+    }
+
+    // 只上传待推送队列中的任务
+    public PushResult pushTodos() {
+        TaskDao taskDao = db.taskDao();
+        return drainOutbox(PendingMutation.TYPE_TODO, SyncState.CLASS_TODO, taskDao::getTodosByUuids, TODO_PUSH_MAPPER);
+    }
+
+    // 只上传待推送队列中的待办集，子任务列表存放在成员表中，上传前填充
+    public PushResult pushTaskGroups() {
+        TaskGroupDao taskGroupDao = db.taskGroupDao();
+        return drainOutbox(PendingMutation.TYPE_TASK_GROUP, SyncState.CLASS_TASK_GROUP, uuids -> {
+            List<TaskGroup> taskGroups = taskGroupDao.getTaskGroupsByUuids(uuids);
+            taskGroupDao.attachSubTaskIds(taskGroups);
+            return taskGroups;
+        }, TASK_GROUP_PUSH_MAPPER);
+    }
+
+    static Todo toTodo(SyncRecord o) {
+        try {
+            if (o == null) return null;
+
+            Todo todo = new Todo();
+            todo.uuid = o.getString("uuid");
+            todo.objectId = o.objectId;
+
+            // 确保UUID不为空
+            if (todo.uuid == null) {
+                Log.e(TAG, "Todo 解析失败: 缺少uuid字段");
+                return null;
+            }
+
+            todo.title = o.getString("title") != null ? o.getString("title") : "";
+            todo.time = o.getLong("time");
+            todo.place = o.getString("place") != null ? o.getString("place") : "";
+            todo.category = o.getString("category") != null ? o.getString("category") : "其他";
+            todo.completed = o.has("completed") ? o.getBoolean("completed") : false;
+            todo.updatedAt = o.has("clientUpdatedAt") ? o.getLong("clientUpdatedAt") : System.currentTimeMillis();
+            todo.deleted = o.has("deleted") ? o.getBoolean("deleted") : false;
+            todo.belongsToTaskGroup = o.has("belongsToTaskGroup") ? o.getBoolean("belongsToTaskGroup") : false;
+            todo.userId = o.ownerId;
+            if (todo.userId == null) {
+                Log.e(TAG, "错误：从云端拉取的任务 " + o.getString("uuid") + " 的所有者(ParseUser)的 objectId 为空！");
+                return null; // userId 必须有效才能正确关联本地数据
+            }
+
+            // 处理可选字段
+            if (o.has("priority")) {
+                todo.priority = Priority.fromLabel(o.getString("priority"));
+            }
+            if (o.has("pomodoroEnabled")) {
+                todo.pomodoroEnabled = o.getBoolean("pomodoroEnabled");
+            }
+            if (o.has("points")) {
+                todo.points = o.getInt("points");
+            }
+            if (o.has("pomodoroMinutes")) {
+                todo.pomodoroMinutes = o.getInt("pomodoroMinutes");
+            }
+            if (o.has("pomodoroCompletedCount")) {
+                todo.pomodoroCompletedCount = o.getInt("pomodoroCompletedCount");
+            }
+
+            return todo;
+        } catch (Exception e) {
+            Log.e(TAG, "解析Todo异常: " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    // 写入任务的可同步字段（不含用户和 ACL），新建和更新云端对象共用
+    static void putTodoFields(SyncRecord o, Todo t) {
+        o.put("uuid", t.uuid);
+        // 确保必要字段不为空
+        o.put("title", t.title != null ? t.title : "");
+        o.put("time", t.time);
+        o.put("place", t.place != null ? t.place : "");
+        o.put("category", t.category != null ? t.category : "其他");
+        o.put("completed", t.completed);
+        o.put("clientUpdatedAt", t.updatedAt);
+        o.put("deleted", t.deleted);
+        o.put("belongsToTaskGroup", t.belongsToTaskGroup);
+
+        // 可选字段
+        o.put("priority", Priority.toLabel(t.priority));
+        o.put("pomodoroEnabled", t.pomodoroEnabled != null ? t.pomodoroEnabled : false);
+        o.put("points", t.points);
+        o.put("pomodoroMinutes", t.pomodoroMinutes);
+        o.put("pomodoroCompletedCount", t.pomodoroCompletedCount);
+    }
+
+    static TaskGroup toTaskGroup(SyncRecord o) {
+        try {
+            if (o == null) return null;
+
+            TaskGroup taskGroup = new TaskGroup();
+            taskGroup.uuid = o.getString("uuid");
+            taskGroup.objectId = o.objectId;
+
+            // 确保必要字段不为null
+            if (taskGroup.uuid == null) {
+                Log.e(TAG, "TaskGroup 解析失败: 缺少uuid字段");
+                return null;
+            }
+
+            taskGroup.title = o.getString("title") != null ? o.getString("title") : "";
+            taskGroup.category = o.getString("category") != null ? o.getString("category") : "其他";
+
+            // 获取estimatedDays，默认为1
+            taskGroup.estimatedDays = o.has("estimatedDays") ? o.getInt("estimatedDays") : 1;
+            taskGroup.createdAt = o.createdAt;
+            // 如果没有更新时间，使用创建时间
+            taskGroup.updatedAt = Math.max(o.updatedAt, o.createdAt);
+
+            // 获取子任务ID列表
+            List<String> subTaskIds = o.getList("subTaskIds");
+            taskGroup.subTaskIds = subTaskIds != null ? new ArrayList<>(subTaskIds) : new ArrayList<>();
+
+            // 获取删除状态，默认为false
+            taskGroup.deleted = o.has("deleted") ? o.getBoolean("deleted") : false;
+
+            // 获取ownerId
+            if (o.has("ownerId")) {
+                taskGroup.userId = o.getString("ownerId");
+            } else if (o.ownerId != null && !o.ownerId.isEmpty()) {
+                taskGroup.userId = o.ownerId;
+            }
+
+            return taskGroup;
+        } catch (Exception e) {
+            Log.e(TAG, "解析TaskGroup异常: " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    // 写入任务组的可同步字段（不含用户和 ACL），新建和更新云端对象共用
+    static void putTaskGroupFields(SyncRecord o, TaskGroup taskGroup) {
+        o.put("uuid", taskGroup.uuid);
+        // 确保必要字段不为空
+        o.put("title", taskGroup.title != null ? taskGroup.title : "");
+        o.put("category", taskGroup.category != null ? taskGroup.category : "其他");
+        o.put("estimatedDays", taskGroup.estimatedDays);
+        o.put("subTaskIds", taskGroup.subTaskIds != null ? taskGroup.subTaskIds : new ArrayList<String>());
+        o.put("deleted", taskGroup.deleted);
+        o.put("clientUpdatedAt", taskGroup.updatedAt);
+
+        // 存储ownerId，保证相同用户ID
+        if (taskGroup.userId != null) {
+            o.put("ownerId", taskGroup.userId);
+        }
+    }
+
+    // 拉取时按类区分的解析、本地读写和冲突合并
+    private interface PullMapper<T> {
+        // 待推送队列和合并基准中的对象类型
+        String entityType();
+
+        Class<T> type();
+
+        // 解析失败返回 null
+        T fromRecord(SyncRecord o);
+
+        String uuid(T item);
+
+        long updatedAt(T item);
+
+        boolean deleted(T item);
+
+        List<T> loadLocal(List<String> uuids);
+
+        // 合并前补全本地对象（任务组的子任务列表）
+        void prepareForMerge(List<T> locals);
+
+        // 本地有未推送的改动时与云端版本合并，base 可能为 null
+        T merge(T base, T local, T cloud);
+
+        boolean sameContent(T a, T b);
+
+        // 在调用方的事务中执行
+        void upsert(List<T> items);
+
+        // 批量写入绕过了实体缓存，使这些对象的缓存失效
+        void invalidate(List<String> uuids);
+    }
+
+    private PullMapper<Todo> todoPullMapper() {
+        TaskDao taskDao = db.taskDao();
+        return new PullMapper<Todo>() {
+            @Override
+            public String entityType() {
+                return PendingMutation.TYPE_TODO;
+            }
+
+            @Override
+            public Class<Todo> type() {
+                return Todo.class;
+            }
+
+            @Override
+            public Todo fromRecord(SyncRecord o) {
+                return toTodo(o);
+            }
+
+            @Override
+            public String uuid(Todo item) {
+                return item.uuid;
+            }
+
+            @Override
+            public long updatedAt(Todo item) {
+                return item.updatedAt;
+            }
+
+            @Override
+            public boolean deleted(Todo item) {
+                return item.deleted;
+            }
+
+            @Override
+            public List<Todo> loadLocal(List<String> uuids) {
+                return taskDao.getTodosByUuids(uuids);
+            }
+
+            @Override
+            public void prepareForMerge(List<Todo> locals) {
+            }
+
+            @Override
+            public Todo merge(Todo base, Todo local, Todo cloud) {
+                return ConflictResolver.mergeTodo(base, local, cloud);
+            }
+
+            @Override
+            public boolean sameContent(Todo a, Todo b) {
+                return ConflictResolver.sameTodo(a, b);
+            }
+
+            @Override
+            public void upsert(List<Todo> items) {
+                taskDao.upsertTodos(items);
+            }
+
+            @Override
+            public void invalidate(List<String> uuids) {
+                if (cache != null) {
+                    cache.invalidateTodos(uuids);
+                }
+            }
+        };
+    }
+
+    private PullMapper<TaskGroup> taskGroupPullMapper() {
+        TaskGroupDao taskGroupDao = db.taskGroupDao();
+        return new PullMapper<TaskGroup>() {
+            @Override
+            public String entityType() {
+                return PendingMutation.TYPE_TASK_GROUP;
+            }
+
+            @Override
+            public Class<TaskGroup> type() {
+                return TaskGroup.class;
+            }
+
+            @Override
+            public TaskGroup fromRecord(SyncRecord o) {
+                return toTaskGroup(o);
+            }
+
+            @Override
+            public String uuid(TaskGroup item) {
+                return item.uuid;
+            }
+
+            @Override
+            public long updatedAt(TaskGroup item) {
+                return item.updatedAt;
+            }
+
+            @Override
+            public boolean deleted(TaskGroup item) {
+                return item.deleted;
+            }
+
+            @Override
+            public List<TaskGroup> loadLocal(List<String> uuids) {
+                return taskGroupDao.getTaskGroupsByUuids(uuids);
+            }
+
+            @Override
+            public void prepareForMerge(List<TaskGroup> locals) {
+                taskGroupDao.attachSubTaskIds(locals);
+            }
+
+            @Override
+            public TaskGroup merge(TaskGroup base, TaskGroup local, TaskGroup cloud) {
+                return ConflictResolver.mergeTaskGroup(base, local, cloud);
+            }
+
+            @Override
+            public boolean sameContent(TaskGroup a, TaskGroup b) {
+                return ConflictResolver.sameTaskGroup(a, b);
+            }
+
+            @Override
+            public void upsert(List<TaskGroup> items) {
+                // 任务组及成员关系一起写入
+                taskGroupDao.upsertTaskGroups(items);
+            }
+
+            @Override
+            public void invalidate(List<String> uuids) {
+                if (cache != null) {
+                    cache.invalidateTaskGroups(uuids);
+                }
+            }
+        };
+    }
+
+    /**
+     * 从上次进度开始，按 (updatedAt, objectId) 升序分页拉取变化的对象
+     * 每页在一个事务中写入本地并保存进度后再取下一页：内存中最多只有一页对象，
+     * 中途失败时已写入的页不会重复拉取，下次从保存的进度继续
+     */
+    private <T> int pullPages(String className, int pageSize, PullMapper<T> mapper) throws SyncBackendException {
+        int limit = Math.max(1, Math.min(pageSize, MAX_PULL_PAGE_SIZE));
+        SyncState cursor = db.syncStateDao().getPullCursor(userId, className);
+        long afterUpdatedAt = cursor != null ? cursor.updatedAt : 0;
+        String afterObjectId = cursor != null ? cursor.objectId : null;
+
+        int pages = 0;
+        int applied = 0;
+        while (true) {
+            List<SyncRecord> page = backend.querySince(className, afterUpdatedAt, afterObjectId, limit);
+            if (page == null || page.isEmpty()) {
+                break;
+            }
+            SyncRecord last = page.get(page.size() - 1);
+            afterUpdatedAt = last.updatedAt;
+            afterObjectId = last.objectId;
+            applied += applyPage(className, page, afterUpdatedAt, afterObjectId, mapper);
+            pages++;
+            if (page.size() < limit) {
+                break;
+            }
+        }
+        Log.d(TAG, className + " 拉取完成：" + pages + " 页，更新本地 " + applied + " 个，进度 " + afterUpdatedAt + "/" + afterObjectId);
+        return applied;
+    }
+
+    // 把一页云端对象合并到本地，并在同一事务中保存进度，返回写入本地的个数
+    private <T> int applyPage(String className, List<SyncRecord> page, long pageUpdatedAt, String pageObjectId, PullMapper<T> mapper) {
+        // 解析云端对象
+        List<T> cloudItems = new ArrayList<>(page.size());
+        List<String> cloudUuids = new ArrayList<>(page.size());
+        for (SyncRecord obj : page) {
+            T item = mapper.fromRecord(obj);
+            if (item == null || mapper.uuid(item) == null) {
+                Log.w(TAG, className + " 云端对象解析失败或ID为空，跳过");
+                continue;
+            }
+            cloudItems.add(item);
+            cloudUuids.add(mapper.uuid(item));
+        }
+
+        // 读取本地对象、待推送条目和合并基准，合并后写入，整个过程在一个事务中：
+        // 读取之后、写入之前提交的本地改动不会被云端内容覆盖，它的待推送条目也不会被清除
+        List<String> upsertedUuids = db.runInTransaction(() -> mergePage(className, page.size(), cloudItems, cloudUuids, pageUpdatedAt, pageObjectId, mapper));
+        mapper.invalidate(upsertedUuids);
+        return upsertedUuids.size();
+    }
+
+    // 只能在事务中调用，返回写入本地的对象的uuid
+    private <T> List<String> mergePage(String className, int pageSize, List<T> cloudItems, List<String> cloudUuids,
+                                       long pageUpdatedAt, String pageObjectId, PullMapper<T> mapper) {
+        PendingMutationDao outbox = db.pendingMutationDao();
+        // 只按这些uuid分块查询本地对应的对象
+        Map<String, T> localMap = new HashMap<>();
+        for (T local : mapper.loadLocal(cloudUuids)) {
+            if (local != null && mapper.uuid(local) != null) {
+                localMap.put(mapper.uuid(local), local);
+            }
+        }
+
+        // 本地有未推送改动的对象与云端版本合并，其余只在云端更新更晚时才覆盖本地
+        Set<String> pendingUuids = new HashSet<>(outbox.getPendingUuids(mapper.entityType(), new ArrayList<>(localMap.keySet())));
+        Map<String, T> baseMap = loadBases(db.syncBaseDao(), pendingUuids, mapper);
+        List<T> pendingLocals = new ArrayList<>(pendingUuids.size());
+        for (String uuid : pendingUuids) {
+            pendingLocals.add(localMap.get(uuid));
+        }
+        mapper.prepareForMerge(pendingLocals);
+
+        int skippedCount = 0;
+        int mergedCount = 0;
+        List<T> toUpsert = new ArrayList<>();
+        List<SyncBase> newBases = new ArrayList<>();
+        List<String> toRepush = new ArrayList<>();
+        List<String> echoUuids = new ArrayList<>();
+        for (T cloud : cloudItems) {
+            String uuid = mapper.uuid(cloud);
+            T local = localMap.get(uuid);
+            if (local == null && mapper.deleted(cloud)) {
+                // 云端已删除且本地没有（或墓碑已被清理），无需导入
+                skippedCount++;
+                continue;
+            }
+            if (local != null && pendingUuids.contains(uuid)) {
+                T merged = mapper.merge(baseMap.get(uuid), local, cloud);
+                toUpsert.add(merged);
+                if (!mapper.sameContent(merged, cloud)) {
+                    // 合并结果包含本地改动，写入后仍需推送
+                    toRepush.add(uuid);
+                } else {
+                    echoUuids.add(uuid);
+                }
+                mergedCount++;
+            } else if (local == null || mapper.updatedAt(cloud) > mapper.updatedAt(local)) {
+                toUpsert.add(cloud);
+                echoUuids.add(uuid);
+            } else {
+                skippedCount++;
+                continue;
+            }
+            newBases.add(SyncBase.of(mapper.entityType(), uuid, cloud));
+        }
+
+        // 本页写入、合并基准和进度一起提交
+        // 写入的内容与云端一致的对象，清除触发器为这次写入生成的条目（seq 大于写入前的最大值），不再推送回去
+        long seqBeforeWrite = outbox.getMaxSeq();
+        mapper.upsert(toUpsert);
+        outbox.clearEchoes(mapper.entityType(), echoUuids, seqBeforeWrite);
+        outbox.enqueueAll(mapper.entityType(), toRepush);
+        db.syncBaseDao().upsertAll(newBases);
+        db.syncStateDao().advancePullCursor(userId, className, pageUpdatedAt, pageObjectId);
+
+        List<String> upsertedUuids = new ArrayList<>(toUpsert.size());
+        for (T item : toUpsert) {
+            upsertedUuids.add(mapper.uuid(item));
+        }
+        Log.d(TAG, className + " 本页 " + pageSize + " 个：更新本地 " + toUpsert.size() + " 个（其中合并 " + mergedCount
+                + " 个，仍需推送 " + toRepush.size() + " 个），跳过 " + skippedCount + " 个");
+        return upsertedUuids;
+    }
+
+    private static <T> Map<String, T> loadBases(SyncBaseDao syncBaseDao, Set<String> uuids, PullMapper<T> mapper) {
+        Map<String, T> bases = new HashMap<>();
+        if (uuids.isEmpty()) {
+            return bases;
+        }
+        for (SyncBase base : syncBaseDao.getBases(mapper.entityType(), new ArrayList<>(uuids))) {
+            T item = base.read(mapper.type());
+            if (item != null) {
+                bases.put(base.uuid, item);
+            }
+        }
+        return bases;
+    }
+
+    // 推送时按类区分的字段读写
+    private interface PushMapper<T> {
+        String uuid(T item);
+
+        long updatedAt(T item);
+
+        boolean deleted(T item);
+
+        String objectId(T item);
+
+        // 写入新建或更新云端对象的字段
+        void putFields(SyncRecord cloud, T item);
+    }
+
+    private static final PushMapper<Todo> TODO_PUSH_MAPPER = new PushMapper<Todo>() {
+        @Override
+        public String uuid(Todo item) {
+            return item.uuid;
+        }
+
+        @Override
+        public long updatedAt(Todo item) {
+            return item.updatedAt;
+        }
+
+        @Override
+        public boolean deleted(Todo item) {
+            return item.deleted;
+        }
+
+        @Override
+        public String objectId(Todo item) {
+            return item.objectId;
+        }
+
+        @Override
+        public void putFields(SyncRecord cloud, Todo item) {
+            putTodoFields(cloud, item);
+        }
+    };
+
+    private static final PushMapper<TaskGroup> TASK_GROUP_PUSH_MAPPER = new PushMapper<TaskGroup>() {
+        @Override
+        public String uuid(TaskGroup item) {
+            return item.uuid;
+        }
+
+        @Override
+        public long updatedAt(TaskGroup item) {
+            return item.updatedAt;
+        }
+
+        @Override
+        public boolean deleted(TaskGroup item) {
+            return item.deleted;
+        }
+
+        @Override
+        public String objectId(TaskGroup item) {
+            return item.objectId;
+        }
+
+        @Override
+        public void putFields(SyncRecord cloud, TaskGroup item) {
+            putTaskGroupFields(cloud, item);
+        }
+    };
+
+    // 一次推送的结果：总数及每块的成功、失败数
+    public static class PushResult {
+        int successCount;
+        int failureCount;
+        final List<Integer> chunkSuccessCounts = new ArrayList<>();
+        final List<Integer> chunkFailureCounts = new ArrayList<>();
+        // 云端已确认的对象：保存成功，或云端已是同一版本无需上传
+        final Set<String> acknowledgedUuids = new HashSet<>();
+        // 其中实际保存到云端的对象，云端内容即本地内容，可作为合并基准
+        final Set<String> savedUuids = new HashSet<>();
+        // 被云端拒绝、重试也不会成功的对象，待推送条目标记为 rejected 移到一边
+        final Set<String> rejectedUuids = new HashSet<>();
+        String errorMessage;
+        // 因可重试的错误（网络、超时、限流等）中断，稍后重试可以从剩余的待推送条目继续
+        boolean transientFailure;
+
+        void addChunk(int success, int failure, String error) {
+            successCount += success;
+            failureCount += failure;
+            chunkSuccessCounts.add(success);
+            chunkFailureCounts.add(failure);
+            if (error != null) {
+                errorMessage = error;
+            }
+        }
+
+        public int getSuccessCount() {
+            return successCount;
+        }
+
+        public int getFailureCount() {
+            return failureCount;
+        }
+
+        public boolean hasTransientFailure() {
+            return transientFailure;
+        }
+
+        public int getRejectedCount() {
+            return rejectedUuids.size();
+        }
+    }
+
+    /**
+     * 推送待推送队列中的对象：每次取出一批，读取它们当前的内容分块上传
+     * 每块上传后立即在一个事务中写入合并基准并清除云端已确认的条目，作为推送的检查点：
+     * 同步中断（进程被杀、Worker 被停止、网络错误）后重新推送只会上传尚未确认的对象
+     * 本地已不存在的对象（墓碑已被物理删除）没有可推送的内容，直接清除
+     * 被云端拒绝的对象标记为 rejected 后继续；其他失败时停止，剩余条目留到下次推送
+     */
+    private <T> PushResult drainOutbox(String entityType, String className, Function<List<String>, List<T>> loader, PushMapper<T> mapper) {
+        PendingMutationDao outbox = db.pendingMutationDao();
+        PushResult result = new PushResult();
+        while (true) {
+            List<PendingMutation> pending = outbox.getPending(entityType, OUTBOX_BATCH_SIZE);
+            if (pending.isEmpty()) {
+                break;
+            }
+            Map<String, PendingMutation> pendingByUuid = new HashMap<>();
+            List<String> uuids = new ArrayList<>(pending.size());
+            for (PendingMutation mutation : pending) {
+                pendingByUuid.put(mutation.uuid, mutation);
+                uuids.add(mutation.uuid);
+            }
+            List<T> items = loader.apply(uuids);
+            Set<String> existing = new HashSet<>();
+            for (T item : items) {
+                existing.add(mapper.uuid(item));
+            }
+            Log.d(TAG, className + " 推送：待推送 " + pending.size() + " 个，本地存在 " + items.size() + " 个");
+
+            List<PendingMutation> missing = new ArrayList<>();
+            for (PendingMutation mutation : pending) {
+                if (!existing.contains(mutation.uuid)) {
+                    missing.add(mutation);
+                }
+            }
+            outbox.clearAcknowledged(missing);
+
+            if (!pushInChunks(entityType, className, items, mapper, pendingByUuid, result)) {
+                Log.w(TAG, className + " 推送：有对象未被云端确认，剩余条目下次重试");
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 分块推送：每块用一次 findByUuids 查询云端已有的对象，再用一次 saveAll 保存需要上传的对象
+     * 推送 N 个对象约需 2 * N / PUSH_CHUNK_SIZE 次请求，而不是每个对象一次查询加一次保存
+     * 本地删除的对象总是推送；否则只有本地比云端 clientUpdatedAt 新时才推送
+     * 返回是否所有块都成功；遇到失败的块即停止，后面的块不再上传
+     */
+    private <T> boolean pushInChunks(String entityType, String className, List<T> items, PushMapper<T> mapper,
+                                     Map<String, PendingMutation> pendingByUuid, PushResult result) {
+        List<T> valid = new ArrayList<>(items.size());
+        int invalidCount = 0;
+        for (T item : items) {
+            if (item == null || mapper.uuid(item) == null) {
+                invalidCount++;
+            } else {
+                valid.add(item);
+            }
+        }
+        if (invalidCount > 0) {
+            Log.w(TAG, className + " 推送：" + invalidCount + " 个本地对象为空或 uuid 为空，跳过");
+            result.failureCount += invalidCount;
+        }
+
+        boolean complete = invalidCount == 0;
+        for (int start = 0; start < valid.size(); start += PUSH_CHUNK_SIZE) {
+            List<T> chunk = valid.subList(start, Math.min(start + PUSH_CHUNK_SIZE, valid.size()));
+            boolean chunkOk = pushChunk(className, chunk, mapper, result);
+            checkpoint(entityType, chunk, mapper, pendingByUuid, result);
+            if (!chunkOk) {
+                complete = false;
+                break;
+            }
+        }
+        Log.d(TAG, className + " 推送完成：成功 " + result.successCount + "，失败 " + result.failureCount
+                + "，共 " + result.chunkSuccessCounts.size() + " 块");
+        return complete;
+    }
+
+    // 推送检查点：已保存的对象以上传的内容作为之后合并的基准，清除云端已确认的条目，
+    // 被云端拒绝的条目标记为 rejected，在同一事务中提交
+    private <T> void checkpoint(String entityType, List<T> chunk, PushMapper<T> mapper,
+                                Map<String, PendingMutation> pendingByUuid, PushResult result) {
+        List<SyncBase> savedBases = new ArrayList<>();
+        List<PendingMutation> acknowledged = new ArrayList<>(chunk.size());
+        List<PendingMutation> rejected = new ArrayList<>();
+        for (T item : chunk) {
+            String uuid = mapper.uuid(item);
+            if (result.savedUuids.contains(uuid)) {
+                savedBases.add(SyncBase.of(entityType, uuid, item));
+            }
+            PendingMutation mutation = pendingByUuid.get(uuid);
+            if (mutation == null) {
+                continue;
+            }
+            if (result.acknowledgedUuids.contains(uuid)) {
+                acknowledged.add(mutation);
+            } else if (result.rejectedUuids.contains(uuid)) {
+                rejected.add(mutation);
+            }
+        }
+        if (savedBases.isEmpty() && acknowledged.isEmpty() && rejected.isEmpty()) {
+            return;
+        }
+        db.runInTransaction(() -> {
+            db.syncBaseDao().upsertAll(savedBases);
+            db.pendingMutationDao().clearAcknowledged(acknowledged);
+            db.pendingMutationDao().markRejected(rejected);
+        });
+    }
+
+    // 返回这一块是否全部处理完（被云端确认或拒绝），可以继续推送下一块
+    private <T> boolean pushChunk(String className, List<T> chunk, PushMapper<T> mapper, PushResult result) {
+        List<String> uuids = new ArrayList<>(chunk.size());
+        for (T item : chunk) {
+            uuids.add(mapper.uuid(item));
+        }
+
+        // 一次查询这一块在云端已有的对象
+        Map<String, SyncRecord> cloudMap = new HashMap<>();
+        try {
+            for (SyncRecord cloud : backend.findByUuids(className, uuids)) {
+                cloudMap.put(cloud.getString("uuid"), cloud);
+            }
+        } catch (SyncBackendException e) {
+            Log.e(TAG, className + " 推送：查询云端对象失败，本块 " + chunk.size() + " 个对象未上传: " + e.getMessage(), e);
+            result.addChunk(0, chunk.size(), e.getMessage());
+            result.transientFailure = e.isTransient();
+            return false;
+        }
+
+        List<SyncRecord> toSave = new ArrayList<>();
+        List<String> toSaveUuids = new ArrayList<>();
+        for (T item : chunk) {
+            String uuid = mapper.uuid(item);
+            SyncRecord cloud = cloudMap.get(uuid);
+            if (cloud != null) {
+                long cloudClientUpdatedAt = cloud.has("clientUpdatedAt") ? cloud.getLong("clientUpdatedAt") : 0;
+                // 只要本地 deleted=true，强制推送到云端；否则云端不比本地旧时无需上传
+                if (!mapper.deleted(item) && mapper.updatedAt(item) <= cloudClientUpdatedAt) {
+                    result.acknowledgedUuids.add(uuid);
+                    continue;
+                }
+            }
+            // 云端已有的只更新字段，不存在的新建
+            SyncRecord record = new SyncRecord(className);
+            record.objectId = cloud != null ? cloud.objectId : mapper.objectId(item);
+            mapper.putFields(record, item);
+            toSave.add(record);
+            toSaveUuids.add(uuid);
+        }
+        if (toSave.isEmpty()) {
+            result.addChunk(0, 0, null);
+            return true;
+        }
+
+        try {
+            backend.saveAll(toSave);
+            result.acknowledgedUuids.addAll(toSaveUuids);
+            result.savedUuids.addAll(toSaveUuids);
+            result.addChunk(toSave.size(), 0, null);
+            return true;
+        } catch (SyncBackendException e) {
+            Set<String> saved = e.getSavedUuids();
+            result.acknowledgedUuids.addAll(saved);
+            result.savedUuids.addAll(saved);
+            Log.e(TAG, className + " 推送：批量保存失败，成功 " + saved.size() + "，失败 " + (toSave.size() - saved.size()) + ": " + e.getMessage(), e);
+            result.addChunk(saved.size(), toSave.size() - saved.size(), e.getMessage());
+            if (e.isRejected()) {
+                // 未保存的对象被云端拒绝，标记后继续推送后面的块
+                for (String uuid : toSaveUuids) {
+                    if (!saved.contains(uuid)) {
+                        result.rejectedUuids.add(uuid);
+                    }
+                }
+                return true;
+            }
+            result.transientFailure = e.isTransient();
+            return saved.size() == toSave.size();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.todolist.sync;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 与后端无关的云端对象：同步逻辑只读写这些字段，由 SyncBackend 与具体后端的对象互相转换
+ * 字段的读取方法与 ParseObject 一致，缺少字段或类型不符时返回默认值
+ */
+public class SyncRecord {
+    public final String className;
+    public String objectId;   // 云端 objectId，新建时为空
+    public String ownerId;    // 所属用户 objectId；没有所属用户时为 ""，无法解析时为 null
+    public long createdAt;    // 云端创建时间（毫秒）
+    public long updatedAt;    // 云端更新时间（毫秒），拉取进度按它推进
+    private final Map<String, Object> fields = new HashMap<>();
+
+    public SyncRecord(String className) {
+        this.className = className;
+    }
+
+    public SyncRecord(SyncRecord other) {
+        this(other.className);
+        objectId = other.objectId;
+        ownerId = other.ownerId;
+        createdAt = other.createdAt;
+        updatedAt = other.updatedAt;
+        for (Map.Entry<String, Object> entry : other.fields.entrySet()) {
+            Object value = entry.getValue();
+            fields.put(entry.getKey(), value instanceof List ? new ArrayList<>((List<?>) value) : value);
+        }
+    }
+
+    public void put(String key, Object value) {
+        fields.put(key, value);
+    }
+
+    public boolean has(String key) {
+        return fields.containsKey(key);
+    }
+
+    public Object get(String key) {
+        return fields.get(key);
+    }
+
+    public Map<String, Object> getFields() {
+        return fields;
+    }
+
+    public String getString(String key) {
+        Object value = fields.get(key);
+        return value instanceof String ? (String) value : null;
+    }
+
+    public long getLong(String key) {
+        Object value = fields.get(key);
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    public int getInt(String key) {
+        Object value = fields.get(key);
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+
+    public boolean getBoolean(String key) {
+        Object value = fields.get(key);
+        return value instanceof Boolean && (Boolean) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> List<T> getList(String key) {
+        Object value = fields.get(key);
+        return value instanceof List ? (List<T>) value : null;
+    }
+}
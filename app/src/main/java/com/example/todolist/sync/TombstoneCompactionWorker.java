@@ -0,0 +1,184 @@
+package com.example.todolist.sync;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.example.todolist.data.AppDatabase;
+import com.example.todolist.data.TaskDao;
+import com.example.todolist.data.TaskGroup;
+import com.example.todolist.data.TaskGroupDao;
+import com.example.todolist.data.SyncState;
+import com.example.todolist.data.Todo;
+import com.parse.ParseUser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 墓碑压缩：定期物理删除已软删除、且云端副本也已标记删除的任务和任务组
+ * 只清理超过保留期的墓碑；清理后执行 ANALYZE，空闲页足够多时再 VACUUM，并输出回收的字节数
+ */
+public class TombstoneCompactionWorker extends Worker {
+    private static final String TAG = "TombstoneCompaction";
+    private static final String WORK_NAME = "TombstoneCompaction";
+    public static final String KEY_DELETED_TODOS = "deletedTodos";
+    public static final String KEY_DELETED_TASK_GROUPS = "deletedTaskGroups";
+    public static final String KEY_RECLAIMED_BYTES = "reclaimedBytes";
+
+    // 墓碑保留时间，给其他设备留出同步删除的时间
+    static final long RETENTION_MS = TimeUnit.DAYS.toMillis(30);
+    // 每次向云端确认的 uuid 数量（Parse 单次查询默认最多返回 100 条）
+    private static final int CLOUD_BATCH_SIZE = 100;
+    // 空闲页超过这个大小才执行 VACUUM
+    private static final long VACUUM_THRESHOLD_BYTES = 1024 * 1024;
+
+    public TombstoneCompactionWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    // 安排每天一次的压缩任务（已安排时保留原计划）
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .setRequiresBatteryNotLow(true)
+                .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(TombstoneCompactionWorker.class, 1, TimeUnit.DAYS)
+                .setConstraints(constraints)
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+        Log.d(TAG, "已安排每日墓碑压缩任务");
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        ParseUser user = ParseUser.getCurrentUser();
+        if (user == null) {
+            Log.d(TAG, "用户未登录，跳过墓碑压缩");
+            return Result.success();
+        }
+
+        AppDatabase db = AppDatabase.getInstance(getApplicationContext());
+        SyncBackend backend = new ParseSyncBackend(user);
+        long cutoff = System.currentTimeMillis() - RETENTION_MS;
+        try {
+            int deletedTodos = compactTodos(db.taskDao(), backend, cutoff);
+            int deletedTaskGroups = compactTaskGroups(db.taskGroupDao(), backend, cutoff);
+            long reclaimedBytes = 0;
+            if (deletedTodos + deletedTaskGroups > 0) {
+                reclaimedBytes = optimize(db.getOpenHelper().getWritableDatabase());
+            }
+            Log.d(TAG, "墓碑压缩完成：删除任务 " + deletedTodos + " 个，任务组 " + deletedTaskGroups
+                    + " 个，回收 " + reclaimedBytes + " 字节");
+            return Result.success(new Data.Builder()
+                    .putInt(KEY_DELETED_TODOS, deletedTodos)
+                    .putInt(KEY_DELETED_TASK_GROUPS, deletedTaskGroups)
+                    .putLong(KEY_RECLAIMED_BYTES, reclaimedBytes)
+                    .build());
+        } catch (SyncBackendException e) {
+            Log.e(TAG, "向云端确认墓碑失败（" + (e.isTransient() ? "可重试" : "不可重试") + "）: " + e.getMessage(), e);
+            return e.isTransient() ? Result.retry() : Result.failure();
+        } catch (Exception e) {
+            Log.e(TAG, "墓碑压缩失败: " + e.getMessage(), e);
+            return Result.failure();
+        }
+    }
+
+    static int compactTodos(TaskDao taskDao, SyncBackend backend, long cutoff) throws SyncBackendException {
+        Map<String, Long> tombstones = new HashMap<>();
+        for (Todo todo : taskDao.getTombstonesBefore(cutoff)) {
+            tombstones.put(todo.uuid, todo.updatedAt);
+        }
+        if (tombstones.isEmpty()) {
+            return 0;
+        }
+        List<String> confirmed = confirmDeletedInCloud(backend, SyncState.CLASS_TODO, tombstones);
+        Log.d(TAG, "任务墓碑 " + tombstones.size() + " 个，云端已确认 " + confirmed.size() + " 个");
+        return confirmed.isEmpty() ? 0 : taskDao.hardDeleteTombstones(confirmed);
+    }
+
+    static int compactTaskGroups(TaskGroupDao taskGroupDao, SyncBackend backend, long cutoff) throws SyncBackendException {
+        Map<String, Long> tombstones = new HashMap<>();
+        for (TaskGroup taskGroup : taskGroupDao.getTombstonesBefore(cutoff)) {
+            tombstones.put(taskGroup.uuid, taskGroup.updatedAt);
+        }
+        if (tombstones.isEmpty()) {
+            return 0;
+        }
+        List<String> confirmed = confirmDeletedInCloud(backend, SyncState.CLASS_TASK_GROUP, tombstones);
+        Log.d(TAG, "任务组墓碑 " + tombstones.size() + " 个，云端已确认 " + confirmed.size() + " 个");
+        return confirmed.isEmpty() ? 0 : taskGroupDao.hardDeleteTombstones(confirmed);
+    }
+
+    /**
+     * 返回云端存在、已标记删除、且删除版本不早于本地墓碑的 uuid
+     * 云端查不到的墓碑可能还没推送成功，保留到下次；云端有重复 uuid 时每个副本都要满足条件
+     */
+    static List<String> confirmDeletedInCloud(SyncBackend backend, String className, Map<String, Long> tombstones) throws SyncBackendException {
+        Set<String> confirmed = new HashSet<>();
+        Set<String> unconfirmed = new HashSet<>();
+        List<String> uuids = new ArrayList<>(tombstones.keySet());
+        for (List<String> batch : AppDatabase.chunked(uuids, CLOUD_BATCH_SIZE)) {
+            for (SyncRecord cloud : backend.findByUuids(className, batch)) {
+                String uuid = cloud.getString("uuid");
+                Long localUpdatedAt = tombstones.get(uuid);
+                if (localUpdatedAt == null || cloud.objectId == null) {
+                    continue;
+                }
+                if (cloud.getBoolean("deleted") && cloud.getLong("clientUpdatedAt") >= localUpdatedAt) {
+                    confirmed.add(uuid);
+                } else {
+                    unconfirmed.add(uuid);
+                }
+            }
+        }
+        confirmed.removeAll(unconfirmed);
+        return new ArrayList<>(confirmed);
+    }
+
+    // 更新统计信息，空闲页足够多时整理数据库文件，返回回收的字节数
+    static long optimize(SupportSQLiteDatabase db) {
+        db.execSQL("ANALYZE");
+        long pageSize = queryLong(db, "PRAGMA page_size");
+        long pagesBefore = queryLong(db, "PRAGMA page_count");
+        long freeBytes = queryLong(db, "PRAGMA freelist_count") * pageSize;
+        if (freeBytes < VACUUM_THRESHOLD_BYTES) {
+            Log.d(TAG, "空闲空间 " + freeBytes + " 字节，跳过 VACUUM");
+            return 0;
+        }
+        long start = System.nanoTime();
+        db.execSQL("VACUUM");
+        // WAL 模式下把整理结果写回主文件并截断 WAL
+        try (Cursor cursor = db.query("PRAGMA wal_checkpoint(TRUNCATE)")) {
+            cursor.moveToFirst();
+        }
+        long pagesAfter = queryLong(db, "PRAGMA page_count");
+        Log.d(TAG, "VACUUM 耗时 " + (System.nanoTime() - start) / 1_000_000 + " ms，页数 "
+                + pagesBefore + " -> " + pagesAfter);
+        return Math.max(0, pagesBefore - pagesAfter) * pageSize;
+    }
+
+    private static long queryLong(SupportSQLiteDatabase db, String sql) {
+        try (Cursor cursor = db.query(sql)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        }
+    }
+}
@@ -23,9 +23,8 @@ import com.google.android.material.card.MaterialCardView;
 import com.google.android.material.switchmaterial.SwitchMaterial;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.android.material.textfield.MaterialAutoCompleteTextView;
-import com.example.todolist.data.AppDatabase;
-import com.example.todolist.data.TaskDao;
-import com.example.todolist.data.TaskGroupDao;
+import com.example.todolist.data.EntityCache;
+import com.example.todolist.data.Priority;
 import com.example.todolist.data.TaskGroup;
 import com.example.todolist.data.Todo;
 import com.example.todolist.R;
@@ -38,7 +37,8 @@ import java.util.Calendar;
 import java.util.List;
 import java.util.UUID;
 import java.util.ArrayList;
-import com.example.todolist.sync.SyncWorker;
+import com.example.todolist.sync.SyncCoordinator;
+import com.example.todolist.utils.AppExecutors;
 
 public class AddEditTaskActivity extends BaseActivity {
     private static final String TAG = "AddEditTaskActivity";
@@ -57,8 +57,7 @@ public class AddEditTaskActivity extends BaseActivity {
     private TextView textPomodoroStatus;
     private TextView textPomodoroStatsTask;
     private ImageView imagePomodoroIcon;
-    private TaskDao taskDao;
-    private TaskGroupDao taskGroupDao;
+    private EntityCache entityCache;   // 任务和代办集的读写都经过缓存
     private Todo currentTodo;         // 编辑模式下传入的任务对象
     private Calendar selectedCalendar; // 选定的日期时间
     private boolean isTaskGroupMode = false; // 是否为代办集模式
@@ -67,21 +66,7 @@ public class AddEditTaskActivity extends BaseActivity {
     private BroadcastReceiver syncReceiver = new BroadcastReceiver() {
         @Override
         public void onReceive(Context context, Intent intent) {
-            if ("com.example.todolist.ACTION_DATA_UPDATED".equals(intent.getAction())) {
-                int successCount = intent.getIntExtra("sync_success", 0);
-                int failureCount = intent.getIntExtra("sync_failure", 0);
-                runOnUiThread(() -> {
-                    if (failureCount > 0) {
-                        Toast.makeText(AddEditTaskActivity.this, 
-                            "同步完成，但" + failureCount + "个任务同步失败", 
-                            Toast.LENGTH_SHORT).show();
-                    } else {
-                        Toast.makeText(AddEditTaskActivity.this, 
-                            "同步成功", 
-                            Toast.LENGTH_SHORT).show();
-                    }
-                });
-            } else if ("com.example.todolist.ACTION_SYNC_FAILED".equals(intent.getAction())) {
+            if ("com.example.todolist.ACTION_SYNC_FAILED".equals(intent.getAction())) {
                 String reason = intent.getStringExtra("reason");
                 runOnUiThread(() -> {
                     if ("network_unavailable".equals(reason)) {
@@ -119,9 +104,8 @@ public class AddEditTaskActivity extends BaseActivity {
             finish(); // 返回上一个界面
         });
         
-        // 初始化 DAO
-        taskDao = AppDatabase.getInstance(getApplicationContext()).taskDao();
-        taskGroupDao = AppDatabase.getInstance(getApplicationContext()).taskGroupDao();
+        // 初始化数据访问
+        entityCache = EntityCache.getInstance(getApplicationContext());
         
         // 获取界面控件引用
         editTitle = findViewById(R.id.editTitle);
@@ -150,10 +134,10 @@ public class AddEditTaskActivity extends BaseActivity {
         spinnerCategory.setText(categories[0], false); // 默认为第一个类别
 
         // 设置优先级下拉框选项
-        String[] priorities = {"高", "中", "低"};
+        String[] priorities = Priority.LABELS;
         ArrayAdapter<String> priorityAdapter = new ArrayAdapter<>(this, R.layout.item_dropdown, priorities);
         spinnerPriorityInput.setAdapter(priorityAdapter);
-        spinnerPriorityInput.setText(priorities[1], false); // 默认优先级为中
+        spinnerPriorityInput.setText(priorities[Priority.MEDIUM], false); // 默认优先级为中
 
         // 确保下拉菜单可点击弹出
         spinnerCategory.setOnClickListener(v -> spinnerCategory.showDropDown());
@@ -167,8 +151,7 @@ public class AddEditTaskActivity extends BaseActivity {
             checkCompleted.setChecked(currentTodo.completed);
             
             // 设置优先级
-            String priority = currentTodo.priority != null ? currentTodo.priority : "中";
-            spinnerPriorityInput.setText(priority, false);
+            spinnerPriorityInput.setText(Priority.toLabel(currentTodo.priority), false);
             
             // 设置番茄时钟开关状态
             switchPomodoro.setChecked(currentTodo.pomodoroEnabled != null ? currentTodo.pomodoroEnabled : false);
@@ -300,7 +283,7 @@ public class AddEditTaskActivity extends BaseActivity {
             String title = editTitle.getText().toString().trim();
             String place = editPlace.getText().toString().trim();
             String category = spinnerCategory.getText().toString();
-            String priority = spinnerPriorityInput.getText().toString();
+            int priority = Priority.fromLabel(spinnerPriorityInput.getText().toString());
             boolean completed = checkCompleted.isChecked();
             boolean pomodoroEnabled = switchPomodoro.isChecked();
             
@@ -310,7 +293,7 @@ public class AddEditTaskActivity extends BaseActivity {
             }
             
             // 保存到本地数据库
-            new Thread(() -> {
+            AppExecutors.getInstance().diskIO().execute(() -> {
                 try {
                     String currentUserId = CurrentUserUtil.getCurrentUserId();
                     if (currentUserId == null) {
@@ -333,14 +316,8 @@ public class AddEditTaskActivity extends BaseActivity {
                         currentTodo.points = currentTodo.calculatePoints();
                         
                         // 保存到本地数据库
-                        taskDao.updateTodo(currentTodo);
-                        // Broadcast data update
-                        Intent dataUpdatedIntent = new Intent("com.example.todolist.ACTION_DATA_UPDATED");
-                        if (currentTodo.completed && currentTodo.points > 0) {
-                            dataUpdatedIntent.putExtra("task_completed", true);
-                            dataUpdatedIntent.putExtra("task_points", currentTodo.points);
-                        }
-                        sendBroadcast(dataUpdatedIntent);
+                        // 列表和统计页面通过观察数据库自动刷新，无需再发送广播
+                        entityCache.updateTodo(currentTodo);
 
                         runOnUiThread(() -> {
                             Toast.makeText(AddEditTaskActivity.this, "任务已更新", Toast.LENGTH_SHORT).show();
@@ -369,16 +346,16 @@ public class AddEditTaskActivity extends BaseActivity {
 //                        }
                         
                         // 先保存到本地数据库并设置为当前任务
-                        taskDao.insertTodo(newTodo);
+                        entityCache.insertTodo(newTodo);
                         currentTodo = newTodo;
                         
                         // 如果是属于代办集的子任务，处理ACL
                         if (parentGroupId != null) {
                             // 当获取父任务组时，也应该基于当前用户ID
-                            TaskGroup parentGroup = taskGroupDao.getTaskGroupByIdForUser(parentGroupId);
+                            TaskGroup parentGroup = entityCache.getTaskGroup(parentGroupId);
                             if (parentGroup != null) {
                                 parentGroup.addSubTask(newTodo.uuid); // 确保 addSubTask 内部做了null检查
-                                taskGroupDao.insertTaskGroup(parentGroup);
+                                entityCache.insertTaskGroup(parentGroup);
                             } else {
                                 Log.w(TAG, "Parent group " + parentGroupId + " not found for user " + currentUserId + " when adding subtask " + newTodo.uuid);
                                 // 根据业务逻辑决定如何处理：是允许子任务独立存在，还是提示错误？
@@ -388,18 +365,7 @@ public class AddEditTaskActivity extends BaseActivity {
 
                         // Trigger sync
                         Log.d(TAG, "New task saved locally, triggering sync.");
-                        SyncWorker.pushLocalToCloud(getApplicationContext()); // [修改1] 使用 getApplicationContext()
-                        if (parentGroupId != null) {
-                            SyncWorker.pushTaskGroupsToCloud(getApplicationContext()); // [修改2] 使用 getApplicationContext()
-                        }
-
-                        // 发送数据更新广播，以便其他界面（如MainActivity/TasksFragment）可以刷新
-                        Intent dataUpdatedIntent = new Intent("com.example.todolist.ACTION_DATA_UPDATED");
-                        if (newTodo.completed && newTodo.points > 0) { // 如果任务在创建时就已完成并有积分
-                            dataUpdatedIntent.putExtra("task_completed", true);
-                            dataUpdatedIntent.putExtra("task_points", newTodo.points);
-                        }
-                        sendBroadcast(dataUpdatedIntent); // [修改3] 发送广播
+                        SyncCoordinator.getInstance().requestPush(getApplicationContext());
                         
                         runOnUiThread(() -> {
                             Toast.makeText(this, "任务已保存", Toast.LENGTH_SHORT).show();
@@ -412,7 +378,7 @@ public class AddEditTaskActivity extends BaseActivity {
                         Toast.makeText(this, "保存失败: " + e.getMessage(), Toast.LENGTH_SHORT).show();
                     });
                 }
-            }).start();
+            });
         });
         
         buttonDelete.setOnClickListener(v -> {
@@ -421,17 +387,17 @@ public class AddEditTaskActivity extends BaseActivity {
                     .setMessage("确定要删除这个任务吗？")
                     .setPositiveButton("确定", (dialog, which) -> {
                         if (currentTodo != null) {
-                            new Thread(() -> {
+                            AppExecutors.getInstance().diskIO().execute(() -> {
                                 // 标记为已删除而不是物理删除
                                 currentTodo.deleted = true;
-                                taskDao.insertTodo(currentTodo);
+                                entityCache.insertTodo(currentTodo);
                                 
                                 // 如果是子任务，从代办集中移除
                                 if (parentGroupId != null && !TextUtils.isEmpty(parentGroupId)) {
-                                    TaskGroup group = taskGroupDao.getTaskGroupByIdForUser(parentGroupId);
+                                    TaskGroup group = entityCache.getTaskGroup(parentGroupId);
                                     if (group != null) {
                                         group.removeSubTask(currentTodo.uuid);
-                                        taskGroupDao.insertTaskGroup(group);
+                                        entityCache.insertTaskGroup(group);
                                     }
                                 }
                                 
@@ -440,7 +406,7 @@ public class AddEditTaskActivity extends BaseActivity {
                                     setResult(RESULT_OK);
                                     finish();
                                 });
-                            }).start();
+                            });
                         } else if (parentGroupId != null) {
                             setResult(RESULT_CANCELED);
                             finish();
@@ -457,7 +423,7 @@ public class AddEditTaskActivity extends BaseActivity {
                 return;
             }
             
-            new DecomposeTaskAsyncTask().execute(title);
+            new DecomposeTaskAsyncTask().executeOnExecutor(AppExecutors.getInstance().networkIO(), title);
         });
     }
     
@@ -535,8 +501,8 @@ public class AddEditTaskActivity extends BaseActivity {
         );
         
         // 保存代办集
-        new Thread(() -> {
-            taskGroupDao.insertTaskGroup(taskGroup);
+        AppExecutors.getInstance().diskIO().execute(() -> {
+            entityCache.insertTaskGroup(taskGroup);
             
             // 获取当前任务的一些信息作为子任务的默认值
             String place = editPlace.getText().toString().trim();
@@ -559,23 +525,22 @@ public class AddEditTaskActivity extends BaseActivity {
                 String uuid = UUID.randomUUID().toString();
                 Todo newSubTodo = new Todo(uuid, subTask.getTitle(), taskCalendar.getTimeInMillis(), place, finalCategory, false, currentUserId);
                 newSubTodo.belongsToTaskGroup = true;
-                taskDao.insertTodo(newSubTodo);
+                entityCache.insertTodo(newSubTodo);
                 subTaskIds.add(uuid);
             }
             
             // 更新代办集的子任务列表
             taskGroup.subTaskIds = subTaskIds;
-            taskGroupDao.insertTaskGroup(taskGroup);
+            entityCache.insertTaskGroup(taskGroup);
             
-            // 立即同步到云端
-            SyncWorker.pushLocalToCloud(this);
-            SyncWorker.pushTaskGroupsToCloud(this);
+            // 同步到云端
+            SyncCoordinator.getInstance().requestPush(this);
             
             runOnUiThread(() -> {
                 Toast.makeText(this, "代办集已创建", Toast.LENGTH_SHORT).show();
                 finish();
             });
-        }).start();
+        });
     }
     
     /**
@@ -697,7 +662,7 @@ public class AddEditTaskActivity extends BaseActivity {
                            // 重新尝试，使用当前编辑框中的标题
                            String title = editTitle.getText().toString().trim();
                            if (!title.isEmpty()) {
-                               new DecomposeTaskAsyncTask().execute(title);
+                               new DecomposeTaskAsyncTask().executeOnExecutor(AppExecutors.getInstance().networkIO(), title);
                            }
                        })
                        .setNegativeButton("取消", null)
@@ -728,7 +693,6 @@ public class AddEditTaskActivity extends BaseActivity {
     protected void onResume() {
         super.onResume();
         IntentFilter filter = new IntentFilter();
-        filter.addAction("com.example.todolist.ACTION_DATA_UPDATED");
         filter.addAction("com.example.todolist.ACTION_SYNC_FAILED");
         registerReceiver(syncReceiver, filter);
     }
@@ -5,9 +5,14 @@ import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.util.Log;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
 
+import com.example.todolist.BuildConfig;
 import com.example.todolist.R;
+import com.example.todolist.data.QueryStats;
 import com.parse.ParseUser;
 
 /**
@@ -34,6 +39,38 @@ public class BaseActivity extends AppCompatActivity {
         // 在super.onCreate之前应用主题
         applyTheme();
         super.onCreate(savedInstanceState);
+        // 调试版本记录当前显示的 Fragment，数据库语句统计按界面归类
+        if (BuildConfig.DEBUG) {
+            getSupportFragmentManager().registerFragmentLifecycleCallbacks(new FragmentManager.FragmentLifecycleCallbacks() {
+                @Override
+                public void onFragmentResumed(@NonNull FragmentManager fm, @NonNull Fragment f) {
+                    QueryStats.getInstance().setCurrentScreen(f.getClass().getSimpleName());
+                }
+
+                @Override
+                public void onFragmentPaused(@NonNull FragmentManager fm, @NonNull Fragment f) {
+                    QueryStats.getInstance().leaveScreen(f.getClass().getSimpleName());
+                }
+            }, false);
+        }
+    }
+
+    // 在 super.onPostResume 分发 Fragment 的 onResume 之前记录 Activity，
+    // 这样有 Fragment 时以 Fragment 为准，不会被 Activity 名称覆盖
+    @Override
+    protected void onPostResume() {
+        if (BuildConfig.DEBUG) {
+            QueryStats.getInstance().setCurrentScreen(getClass().getSimpleName());
+        }
+        super.onPostResume();
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        if (BuildConfig.DEBUG) {
+            QueryStats.getInstance().leaveScreen(getClass().getSimpleName());
+        }
     }
 
     /**
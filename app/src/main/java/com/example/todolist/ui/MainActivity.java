@@ -6,7 +6,6 @@ import android.annotation.SuppressLint;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
 import android.content.SharedPreferences;
 import android.content.res.ColorStateList;
 import android.os.Bundle;
@@ -29,9 +28,9 @@ import androidx.cardview.widget.CardView;
 import com.example.todolist.TodoList;
 import com.example.todolist.data.AppDatabase;
 import com.example.todolist.data.TaskDao;
-import com.example.todolist.data.Todo;
 import com.example.todolist.auth.LoginActivity;
 import com.example.todolist.R;
+import com.example.todolist.sync.SyncCoordinator;
 import com.example.todolist.sync.SyncWorker;
 import com.example.todolist.utils.LoadingStateManager;
 import com.example.todolist.utils.NetworkStateMonitor;
@@ -39,7 +38,7 @@ import com.parse.ParseUser;
 import android.view.View;
 import com.google.android.material.snackbar.Snackbar;
 
-import java.util.List;
+import java.util.Arrays;
 import java.util.Locale;
 
 public class MainActivity extends BaseActivity {
@@ -118,15 +117,6 @@ public class MainActivity extends BaseActivity {
             
             // 初始化应用
             initializeApp();
-
-            // 检查是否需要定时刷新任务列表
-            Intent intent = getIntent();
-            if (intent != null && intent.getBooleanExtra("extra_refresh_tasks", false)) {
-                // 延迟执行，确保Fragment已初始化
-                new Handler().postDelayed(() -> {
-                    refreshTasksFragmentPeriodically();
-                }, 500);
-            }
         } catch (Exception e) {
             Log.e(TAG, "onCreate 过程异常", e);
             Toast.makeText(this, "应用启动失败: " + e.getMessage(), Toast.LENGTH_LONG).show();
@@ -241,53 +231,6 @@ public class MainActivity extends BaseActivity {
         }
     }
 
-    @Override
-    protected void onDestroy() {
-        try {
-            // 取消注册广播接收器
-            unregisterReceiver(dataUpdateReceiver);
-        } catch (Exception e) {
-            Log.e(TAG, "注销广播接收器失败", e);
-        }
-        super.onDestroy();
-    }
-
-    @Override
-    protected void onStart() {
-        super.onStart();
-        try {
-            // 注册广播接收器，用于监听数据更新
-            IntentFilter filter = new IntentFilter("com.example.todolist.ACTION_DATA_UPDATED");
-//            registerReceiver(dataUpdateReceiver, filter);
-        } catch (Exception e) {
-            Log.e(TAG, "注册广播接收器失败", e);
-        }
-    }
-
-    private final BroadcastReceiver dataUpdateReceiver = new BroadcastReceiver() {
-        @Override
-        public void onReceive(Context context, Intent intent) {
-            // 由于现在使用了Fragment，这里不直接刷新任务列表
-            // 而是通过广播通知各个Fragment自行处理数据更新
-            // Fragment应该在其onResume方法中刷新数据
-            
-            // 检查是否是任务完成广播，更新积分
-            if (intent.getAction().equals("com.example.todolist.ACTION_DATA_UPDATED") && 
-                intent.hasExtra("task_completed") && intent.getBooleanExtra("task_completed", false)) {
-                
-                // 如果是任务完成，增加积分
-                if (intent.hasExtra("task_points")) {
-                    int points = intent.getIntExtra("task_points", 10);
-                    addUserPoints(points);
-
-                    // 显示积分获取提示
-                    Toast.makeText(MainActivity.this, 
-                            "恭喜完成任务！获得 " + points + " 积分", 
-                            Toast.LENGTH_SHORT).show();
-                }
-            }
-        }
-    };
     private BroadcastReceiver syncStatusReceiver = new BroadcastReceiver() {
         @Override
         public void onReceive(Context context, Intent intent) {
@@ -298,33 +241,25 @@ public class MainActivity extends BaseActivity {
                 int failureCount = intent.getIntExtra(SyncWorker.EXTRA_FAILURE_COUNT, 0);
                 String errorMessage = intent.getStringExtra(SyncWorker.EXTRA_SYNC_ERROR_MESSAGE);
 
-                Log.d("MainActivity_SyncLog", "接收到同步完成广播: 类型=" + syncType + ", 成功=" + successCount + ", 失败=" + failureCount);
+                int[] chunkFailureCounts = intent.getIntArrayExtra(SyncWorker.EXTRA_CHUNK_FAILURE_COUNTS);
 
-                // 根据 syncType 判断是哪个同步完成了，然后刷新对应的列表
-                if ("todo".equals(syncType)) {
-                    // 刷新 Todo 列表的逻辑
-                    if (tasksFragment != null && tasksFragment.isAdded()) {
-                        tasksFragment.loadTasks(); // 假设 TasksFragment 有一个公共的刷新方法
-                    }
-                } else if ("task_group".equals(syncType)) {
-                    // 刷新 TaskGroup 列表的逻辑
-                    if (taskGroupsFragment != null && taskGroupsFragment.isAdded()) {
-                        taskGroupsFragment.loadTaskGroups(); // 假设 TaskGroupsFragment 有一个公共的刷新方法
-                    }
-                }
+                Log.d("MainActivity_SyncLog", "接收到同步完成广播: 类型=" + syncType + ", 成功=" + successCount + ", 失败=" + failureCount
+                        + (chunkFailureCounts != null ? ", 各块失败数=" + Arrays.toString(chunkFailureCounts) : ""));
+
+                // 列表由各 Fragment 观察数据库自动刷新，这里只负责提示
 
                 // 可以给用户一个提示
                 String message;
                 if (failureCount > 0) {
                     message = String.format(Locale.getDefault(), "%s同步部分失败: %d 成功, %d 失败. %s",
-                            "待办事项".equals(syncType) ? "任务" : "待办集",
+                            SyncWorker.SYNC_TYPE_TODO.equals(syncType) ? "任务" : "待办集",
                             successCount,
                             failureCount,
                             errorMessage != null ? errorMessage : "");
                     Toast.makeText(context, message, Toast.LENGTH_LONG).show();
                 } else if (successCount > 0) {
                     // message = String.format(Locale.getDefault(), "%s数据已同步 (%d 项)",
-                    //        "待办事项".equals(syncType) ? "任务" : "待办集",
+                    //        SyncWorker.SYNC_TYPE_TODO.equals(syncType) ? "任务" : "待办集",
                     //        successCount);
                     // Toast.makeText(context, message, Toast.LENGTH_SHORT).show();
                     // 成功的提示可以更柔和或不提示，避免过多打扰
@@ -337,7 +272,7 @@ public class MainActivity extends BaseActivity {
                 String syncType = intent.getStringExtra(SyncWorker.EXTRA_SYNC_TYPE);
                 String reason = intent.getStringExtra("reason");
                 Log.w("MainActivity_SyncLog", "接收到同步失败广播: 类型=" + syncType + ", 原因=" + reason);
-                String typeName = "待办事项".equals(syncType) ? "任务" : "待办集";
+                String typeName = SyncWorker.SYNC_TYPE_TODO.equals(syncType) ? "任务" : "待办集";
                 if ("network_unavailable".equals(reason)) {
                     Toast.makeText(context, typeName + "同步失败：网络不可用", Toast.LENGTH_LONG).show();
                 } else if ("user_not_logged_in".equals(reason)) {
@@ -507,30 +442,14 @@ public class MainActivity extends BaseActivity {
                 return;
             }
             
-            // 从云端拉取数据
-            SyncWorker.pullCloudToLocal(getApplicationContext());
-            SyncWorker.pullTaskGroupsToLocal(getApplicationContext());
-            
-            // 上传本地修改
-            SyncWorker.pushLocalToCloud(getApplicationContext());
-            SyncWorker.pushTaskGroupsToCloud(getApplicationContext());
+            // 从云端拉取数据并上传本地修改
+            SyncCoordinator.getInstance().syncNow(getApplicationContext());
             
             // 同步完成，重置标记
             isDataSyncScheduled = false;
         }, 1000);
     }
     
-    // 增加用户积分
-    private void addUserPoints(int points) {
-        int currentPoints = preferences.getInt(PREF_USER_POINTS, 0);
-        int completedTasks = preferences.getInt(PREF_COMPLETED_TASKS, 0);
-        
-        preferences.edit()
-            .putInt(PREF_USER_POINTS, currentPoints + points)
-            .putInt(PREF_COMPLETED_TASKS, completedTasks + 1)
-            .apply();
-    }
-    
     /**
      * 获取用户积分（供ProfileFragment调用）
      * @return 用户积分
@@ -569,68 +488,6 @@ public class MainActivity extends BaseActivity {
                 }
             });
 
-            // 检查版本号，进行数据库升级后的修复操作
-            int currentDbVersion = 0;
-            try {
-                currentDbVersion = getSharedPreferences("app_preferences", MODE_PRIVATE).getInt("db_version", 0);
-            } catch (Exception e) {
-                Log.e(TAG, "获取保存的数据库版本号失败", e);
-            }
-            
-            // 数据库版本为6，但保存的版本低于6，说明可能刚刚进行过迁移
-            int latestDbVersion = 6; // 当前最新版本号
-            if (currentDbVersion < latestDbVersion) {
-                Log.d(TAG, "检测到数据库版本升级: " + currentDbVersion + " -> " + latestDbVersion);
-                
-                // 修复可能由版本升级导致的问题
-                try {
-                    new Thread(() -> {
-                        try {
-                            String currentUserId = ParseUser.getCurrentUser().getObjectId();
-                            // 获取所有任务
-                            List<Todo> allTasks = taskDao.getAllTasksForUser();
-                            Log.d(TAG, "获取到 " + allTasks.size() + " 个任务进行迁移检查");
-                            
-                            int fixedCount = 0;
-                            // 检查并修复每个任务
-                            for (Todo task : allTasks) {
-                                boolean needUpdate = false;
-                                
-                                // 检查并修复新增字段的默认值
-                                if (task.pomodoroMinutes < 0) {
-                                    task.pomodoroMinutes = 0;
-                                    needUpdate = true;
-                                }
-                                
-                                if (task.pomodoroCompletedCount < 0) {
-                                    task.pomodoroCompletedCount = 0;
-                                    needUpdate = true;
-                                }
-                                
-                                // 如果需要更新，保存回数据库
-                                if (needUpdate) {
-                                    taskDao.updateTodo(task);
-                                    fixedCount++;
-                                }
-                            }
-                            
-                            Log.d(TAG, "修复了 " + fixedCount + " 个受数据库迁移影响的任务");
-                            
-                            // 保存当前版本号
-                            getSharedPreferences("app_preferences", MODE_PRIVATE)
-                                .edit()
-                                .putInt("db_version", latestDbVersion)
-                                .apply();
-                            
-                        } catch (Exception e) {
-                            Log.e(TAG, "版本迁移修复操作失败", e);
-                        }
-                    }).start();
-                } catch (Exception e) {
-                    Log.e(TAG, "创建版本修复线程失败", e);
-                }
-            }
-            
             // 同步服务器数据
             ParseUser currentUser = ParseUser.getCurrentUser();
             if (currentUser != null) {
@@ -655,32 +512,6 @@ public class MainActivity extends BaseActivity {
         }
     }
 
-    // 定时刷新TasksFragment
-    private void refreshTasksFragmentPeriodically() {
-        final int[] count = {0};
-        final Handler handler = new Handler();
-        Runnable runnable = new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    if (tasksFragment == null) {
-                        tasksFragment = (TasksFragment) getSupportFragmentManager().findFragmentByTag("TasksFragment");
-                    }
-                    if (tasksFragment != null) {
-                        tasksFragment.loadTasks();
-                    }
-                } catch (Exception e) {
-                    Log.e(TAG, "定时刷新任务列表异常", e);
-                }
-                count[0]++;
-                if (count[0] < 10) {
-                    handler.postDelayed(this, 500);
-                }
-            }
-        };
-        handler.post(runnable);
-    }
-
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         getMenuInflater().inflate(R.menu.menu_main, menu);
@@ -699,10 +530,7 @@ public class MainActivity extends BaseActivity {
         if (id == R.id.action_statistics) {
             // 点击"同步"按钮，自动同步数据
             Toast.makeText(this, "正在同步数据...", Toast.LENGTH_SHORT).show();
-            SyncWorker.pullCloudToLocal(this);
-            SyncWorker.pullTaskGroupsToLocal(this);
-            SyncWorker.pushLocalToCloud(this);
-            SyncWorker.pushTaskGroupsToCloud(this);
+            SyncCoordinator.getInstance().syncNow(this);
             return true;
         }
         return super.onOptionsItemSelected(item);
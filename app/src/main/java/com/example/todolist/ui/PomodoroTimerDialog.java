@@ -12,8 +12,9 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 
 import com.example.todolist.R;
-import com.example.todolist.data.AppDatabase;
+import com.example.todolist.data.EntityCache;
 import com.example.todolist.data.Todo;
+import com.example.todolist.utils.AppExecutors;
 import com.google.android.material.progressindicator.CircularProgressIndicator;
 
 import java.util.Locale;
@@ -190,13 +191,13 @@ public class PomodoroTimerDialog extends Dialog {
             updatePomodoroStats();
             
             // 异步保存到数据库
-            new Thread(() -> {
+            AppExecutors.getInstance().diskIO().execute(() -> {
                 try {
-                    AppDatabase.getInstance(getContext()).taskDao().updateTodo(currentTask);
+                    EntityCache.getInstance(getContext()).updateTodo(currentTask);
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
-            }).start();
+            });
         }
     }
 
@@ -28,14 +28,18 @@ import androidx.cardview.widget.CardView;
 import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 
+import com.example.todolist.BuildConfig;
 import com.example.todolist.R;
 import com.example.todolist.auth.LoginActivity;
 import com.example.todolist.auth.SessionManager;
 import com.example.todolist.data.AppDatabase;
+import com.example.todolist.data.DailyStatsDao;
+import com.example.todolist.data.EntityCache;
+import com.example.todolist.data.StatsSummary;
 import com.example.todolist.data.TaskDao;
 import com.example.todolist.data.TaskGroupDao;
-import com.example.todolist.data.Todo;
-import com.example.todolist.sync.SyncWorker;
+import com.example.todolist.sync.SyncCoordinator;
+import com.example.todolist.utils.AppExecutors;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.card.MaterialCardView;
 import com.parse.ParseFile;
@@ -44,9 +48,6 @@ import com.parse.SaveCallback;
 import de.hdodenhof.circleimageview.CircleImageView;
 
 import java.io.ByteArrayOutputStream;
-import java.util.List;
-import java.util.concurrent.ExecutorService; // 引入 ExecutorService
-import java.util.concurrent.Executors; // 引入 Executors
 
 
 public class ProfileFragment extends Fragment {
@@ -87,13 +88,12 @@ public class ProfileFragment extends Fragment {
     private MaterialCardView themeBrown;
     private MaterialCardView themeBlack;
 
-    private TaskDao taskDao;
+    private DailyStatsDao dailyStatsDao;
     private SharedPreferences preferences;
 
     private CircleImageView profileImageLarge;
 
     private SessionManager sessionManager; // 添加 SessionManager 实例
-    private ExecutorService databaseExecutor; // 用于数据库操作的线程池
 
 
     public ProfileFragment() {
@@ -109,7 +109,7 @@ public class ProfileFragment extends Fragment {
             preferences = requireActivity().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
             
             // 初始化数据库
-            taskDao = AppDatabase.getInstance(requireContext()).taskDao();
+            dailyStatsDao = AppDatabase.getInstance(requireContext()).dailyStatsDao();
             
             // 初始化UI组件
             textUsername = view.findViewById(R.id.textUsername);
@@ -124,7 +124,6 @@ public class ProfileFragment extends Fragment {
             profileImageLarge.setOnClickListener(v -> showAvatarOptions());
 
             sessionManager = SessionManager.getInstance(requireContext()); // 初始化 SessionManager
-            databaseExecutor = Executors.newSingleThreadExecutor(); // 初始化线程池
             
             // 设置用户信息
             setupUserInfo();
@@ -136,8 +135,7 @@ public class ProfileFragment extends Fragment {
             
             settingSync.setOnClickListener(v -> {
                 Toast.makeText(requireContext(), "正在同步数据...", Toast.LENGTH_SHORT).show();
-                SyncWorker.pullCloudToLocal(requireContext());
-                SyncWorker.pushLocalToCloud(requireContext());
+                SyncCoordinator.getInstance().syncNow(requireContext());
             });
             
             settingNotification.setOnClickListener(v -> {
@@ -148,6 +146,15 @@ public class ProfileFragment extends Fragment {
                 Intent intent = new Intent(requireContext(), AboutActivity.class);
                 startActivity(intent);
             });
+            // 调试版本长按“关于”打开数据库语句统计
+            settingAbout.setOnLongClickListener(v -> {
+                if (!BuildConfig.DEBUG) {
+                    return false;
+                }
+                // QueryStatsActivity 只在 debug 源码集中，按类名启动
+                startActivity(new Intent().setClassName(requireContext(), "com.example.todolist.ui.QueryStatsActivity"));
+                return true;
+            });
             
             // 设置兑换奖励按钮
             buttonRewards.setOnClickListener(v -> {
@@ -230,7 +237,7 @@ public class ProfileFragment extends Fragment {
     }
 
     private void clearLocalDataAndNavigateToLogin(final String userId) {
-        databaseExecutor.execute(() -> {
+        AppExecutors.getInstance().diskIO().execute(() -> {
             try {
                 AppDatabase db = AppDatabase.getInstance(requireContext());
                 TaskDao taskDao = db.taskDao();
@@ -239,6 +246,11 @@ public class ProfileFragment extends Fragment {
                 Log.d(TAG, "开始清理所有 Room 数据库数据...");
                 int tasksDeleted = taskDao.deleteAll();
                 int groupsDeleted = taskGroupDao.deleteAllTaskGroupsUnfiltered();
+                // 清空拉取进度，下次登录重新全量拉取；清空待推送队列（须在删除数据之后）
+                db.syncStateDao().deleteAll();
+                db.pendingMutationDao().deleteAll();
+                db.syncBaseDao().deleteAll();
+                EntityCache.getInstance(requireContext()).evictAll();
                 Log.d(TAG, "所有 Room 数据已清理。删除了 " + tasksDeleted + " 个任务和 " + groupsDeleted + " 个任务组。");
 
                 // 清理 SharedPreferences (这部分逻辑不变，因为 SharedPreferences 通常是应用级别的，也应该在登出时重置)
@@ -294,13 +306,15 @@ public class ProfileFragment extends Fragment {
         if (profileImageLarge != null) {
             profileImageLarge.setOnClickListener(v -> showAvatarOptions());
         }
+
+        if (dailyStatsDao != null) {
+            observeTaskStatistics();
+        }
     }
 
     @Override
     public void onResume() {
         super.onResume();
-        loadTaskStatistics();
-        
         // 更新当前主题高亮显示
         updateThemeSelection();
     }
@@ -674,38 +688,22 @@ public class ProfileFragment extends Fragment {
         }
     }
     
-    private void loadTaskStatistics() {
-        try {
-            // 统计所有已完成且未删除的任务
-            String currentUserId = com.example.todolist.ui.CurrentUserUtil.getCurrentUserId();
-            List<Todo> allTasks = taskDao.getAllUnfiltered();
-            int completedCount = 0;
-            int points = 0;
-            for (Todo todo : allTasks) {
-                if (todo.completed && !todo.deleted && currentUserId.equals(todo.userId)) {
-                    completedCount++;
-                    // 按优先级计分
-                    if ("高".equals(todo.priority)) {
-                        points += 3;
-                    } else if ("中".equals(todo.priority)) {
-                        points += 2;
-                    } else if ("低".equals(todo.priority)) {
-                        points += 1;
-                    } else {
-                        points += 2; // 默认中
-                    }
-                }
-            }
-            // 更新UI
-            final int finalPoints = points;
-            final int finalCompletedCount = completedCount;
-            if (getActivity() != null) {
-                getActivity().runOnUiThread(() -> {
-                    textTotalPoints.setText(String.valueOf(finalPoints));
-                    textCompletedTasks.setText(String.valueOf(finalCompletedCount));
-                    quickPointsIndicator.setText("积分: " + finalPoints);
-                });
+    // 观察当前用户的统计汇总，任务表变化时触发器更新汇总，积分和完成数自动刷新
+    private void observeTaskStatistics() {
+        String currentUserId = com.example.todolist.ui.CurrentUserUtil.getCurrentUserId();
+        dailyStatsDao.observeTotalsForUser(currentUserId).observe(getViewLifecycleOwner(), totals -> {
+            if (totals != null) {
+                showTaskStatistics(totals);
             }
+        });
+    }
+
+    private void showTaskStatistics(StatsSummary totals) {
+        try {
+            // 汇总表只统计未删除的任务，积分按已完成任务的优先级累计
+            textTotalPoints.setText(String.valueOf(totals.points));
+            textCompletedTasks.setText(String.valueOf(totals.completed));
+            quickPointsIndicator.setText("积分: " + totals.points);
         } catch (Exception e) {
             Log.e(TAG, "加载统计数据失败", e);
         }
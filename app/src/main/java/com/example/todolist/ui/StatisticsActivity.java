@@ -6,11 +6,9 @@ import android.widget.TextView;
 import androidx.appcompat.widget.Toolbar;
 import com.example.todolist.R;
 import com.example.todolist.data.AppDatabase;
-import com.example.todolist.data.TaskDao;
-import com.example.todolist.data.Todo;
-import java.util.HashMap;
+import com.example.todolist.data.DailyStatsDao;
+import com.example.todolist.data.StatsSummary;
 import java.util.List;
-import java.util.Map;
 
 public class StatisticsActivity extends BaseActivity {
     private TextView textTotalTasks;
@@ -25,7 +23,7 @@ public class StatisticsActivity extends BaseActivity {
     private TextView textPersonalCount;
     private ProgressBar progressOther;
     private TextView textOtherCount;
-    private TaskDao taskDao;
+    private DailyStatsDao dailyStatsDao;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -42,10 +40,12 @@ public class StatisticsActivity extends BaseActivity {
         initViews();
         
         // 初始化数据库
-        taskDao = AppDatabase.getInstance(getApplicationContext()).taskDao();
+        dailyStatsDao = AppDatabase.getInstance(getApplicationContext()).dailyStatsDao();
         
-        // 加载统计数据
-        loadStatistics();
+        // 观察统计汇总表，任务变化时由触发器更新，这里只读取汇总结果
+        setDefaultValues();
+        dailyStatsDao.observeVisibleTotals().observe(this, this::showTotals);
+        dailyStatsDao.observeVisibleByCategory().observe(this, this::showCategories);
     }
 
     private void initViews() {
@@ -68,98 +68,60 @@ public class StatisticsActivity extends BaseActivity {
         textOtherCount = findViewById(R.id.textOtherCount);
     }
 
-    private void loadStatistics() {
-        // 在后台线程中获取所有（未删除的）任务数据
-        new Thread(() -> {
-            String currentUserId = CurrentUserUtil.getCurrentUserId();
-            // 获取所有可见任务
-            List<Todo> allTasks = taskDao.getVisibleTasksForUser();
-            
-            // 如果没有任务，设置默认值并返回
-            if (allTasks == null || allTasks.isEmpty()) {
-                runOnUiThread(this::setDefaultValues);
-                return;
-            }
-            
-            // 统计数据计算
-            final int totalTasks = allTasks.size();
-            int completedTasks = 0;
-            int totalPoints = 0;
-            
-            // 分类任务计数
-            Map<String, Integer> categoryCounts = new HashMap<>();
-            categoryCounts.put("工作", 0);
-            categoryCounts.put("个人", 0);
-            categoryCounts.put("其他", 0);
-            
-            // 统计各项数据
-            for (Todo task : allTasks) {
-                // 计算已完成任务
-                if (task.completed) {
-                    completedTasks++;
-                    // 统计积分
-                    if ("高".equals(task.priority)) {
-                        totalPoints += 3;
-                    } else if ("中".equals(task.priority)) {
-                        totalPoints += 2;
-                    } else if ("低".equals(task.priority)) {
-                        totalPoints += 1;
-                    } else {
-                        totalPoints += 2;
-                    }
-                }
-                
-                // 计算各分类任务数量
-                String category = task.category;
-                if (category != null && !category.isEmpty()) {
-                    categoryCounts.put(category, categoryCounts.getOrDefault(category, 0) + 1);
-                } else {
-                    // 没有分类的任务归为"其他"
-                    categoryCounts.put("其他", categoryCounts.get("其他") + 1);
-                }
+    private void showTotals(StatsSummary totals) {
+        if (totals == null) {
+            return;
+        }
+        // 计算未完成任务和完成率
+        final int totalTasks = totals.total;
+        final int pendingTasks = totalTasks - totals.completed;
+        final int completionRate = (totalTasks > 0) ? (totals.completed * 100 / totalTasks) : 0;
+
+        // 更新任务总览数据（积分已在汇总表中按优先级累计）
+        textTotalTasks.setText(String.valueOf(totalTasks));
+        textCompletedTasks.setText(String.valueOf(totals.completed));
+        textPendingTasks.setText(String.valueOf(pendingTasks));
+        textTotalPoints.setText(String.valueOf(totals.points));
+
+        // 更新完成率
+        progressCompletionRate.setProgress(completionRate);
+        textCompletionRate.setText(completionRate + "%");
+    }
+
+    private void showCategories(List<StatsSummary> categories) {
+        if (categories == null) {
+            return;
+        }
+        // 各分类任务数量，没有分类的任务在汇总表中已归为"其他"
+        int totalTasks = 0;
+        int workCount = 0;
+        int personalCount = 0;
+        int otherCount = 0;
+        for (StatsSummary category : categories) {
+            totalTasks += category.total;
+            if ("工作".equals(category.label)) {
+                workCount = category.total;
+            } else if ("个人".equals(category.label)) {
+                personalCount = category.total;
+            } else if ("其他".equals(category.label)) {
+                otherCount = category.total;
             }
-            
-            // 计算未完成任务
-            final int pendingTasks = totalTasks - completedTasks;
-            final int completedTasksFinal = completedTasks;
-            final int finalTotalPoints = totalPoints;
-            
-            // 计算完成率
-            final int completionRate = (totalTasks > 0) ? (completedTasksFinal * 100 / totalTasks) : 0;
-            
-            // 获取各分类计数
-            final int workCount = categoryCounts.get("工作");
-            final int personalCount = categoryCounts.get("个人");
-            final int otherCount = categoryCounts.get("其他");
-            
-            // 计算分类比例进度（最大100）
-            final int workProgress = (totalTasks > 0) ? (workCount * 100 / totalTasks) : 0;
-            final int personalProgress = (totalTasks > 0) ? (personalCount * 100 / totalTasks) : 0;
-            final int otherProgress = (totalTasks > 0) ? (otherCount * 100 / totalTasks) : 0;
-            
-            // 在UI线程更新界面
-            runOnUiThread(() -> {
-                // 更新任务总览数据
-                textTotalTasks.setText(String.valueOf(totalTasks));
-                textCompletedTasks.setText(String.valueOf(completedTasksFinal));
-                textPendingTasks.setText(String.valueOf(pendingTasks));
-                textTotalPoints.setText(String.valueOf(finalTotalPoints));
-                
-                // 更新完成率
-                progressCompletionRate.setProgress(completionRate);
-                textCompletionRate.setText(completionRate + "%");
-                
-                // 更新分类统计
-                textWorkCount.setText(String.valueOf(workCount));
-                progressWork.setProgress(workProgress);
-                
-                textPersonalCount.setText(String.valueOf(personalCount));
-                progressPersonal.setProgress(personalProgress);
-                
-                textOtherCount.setText(String.valueOf(otherCount));
-                progressOther.setProgress(otherProgress);
-            });
-        }).start();
+        }
+
+        // 计算分类比例进度（最大100）
+        final int workProgress = (totalTasks > 0) ? (workCount * 100 / totalTasks) : 0;
+        final int personalProgress = (totalTasks > 0) ? (personalCount * 100 / totalTasks) : 0;
+        final int otherProgress = (totalTasks > 0) ? (otherCount * 100 / totalTasks) : 0;
+
+        // 更新分类统计
+        textWorkCount.setText(String.valueOf(workCount));
+        progressWork.setProgress(workProgress);
+
+        textPersonalCount.setText(String.valueOf(personalCount));
+        progressPersonal.setProgress(personalProgress);
+
+        textOtherCount.setText(String.valueOf(otherCount));
+        progressOther.setProgress(otherProgress);
     }
     
     private void setDefaultValues() {
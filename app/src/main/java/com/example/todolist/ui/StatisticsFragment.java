@@ -9,12 +9,14 @@ import android.view.ViewGroup;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 
 import com.example.todolist.R;
 import com.example.todolist.data.AppDatabase;
-import com.example.todolist.data.TaskDao;
-import com.example.todolist.data.Todo;
+import com.example.todolist.data.DailyStatsDao;
+import com.example.todolist.data.StatsSummary;
 import com.github.mikephil.charting.charts.BarChart;
 import com.github.mikephil.charting.charts.LineChart;
 import com.github.mikephil.charting.charts.PieChart;
@@ -34,7 +36,6 @@ import com.github.mikephil.charting.utils.ColorTemplate;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -57,7 +58,10 @@ public class StatisticsFragment extends Fragment {
     private BarChart barChart;
     private LineChart lineChart;
 
-    private TaskDao taskDao;
+    private DailyStatsDao dailyStatsDao;
+
+    // 柱状图和折线图显示的天数
+    private static final int RECENT_DAYS = 5;
 
     public StatisticsFragment() {
         // Required empty public constructor
@@ -69,7 +73,7 @@ public class StatisticsFragment extends Fragment {
         
         try {
             // 初始化数据库
-            taskDao = AppDatabase.getInstance(requireContext()).taskDao();
+            dailyStatsDao = AppDatabase.getInstance(requireContext()).dailyStatsDao();
             
             // 初始化UI组件
             // 任务总览
@@ -84,9 +88,6 @@ public class StatisticsFragment extends Fragment {
             // 初始化图表
             initCharts(view);
             
-            // 加载统计数据
-            loadStatistics();
-            
         } catch (Exception e) {
             Log.e(TAG, "初始化失败", e);
         }
@@ -161,95 +162,90 @@ public class StatisticsFragment extends Fragment {
     }
     
     @Override
-    public void onResume() {
-        super.onResume();
-        loadStatistics();
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        if (dailyStatsDao == null) {
+            return;
+        }
+        // 统计数据读取 daily_stats 汇总表，任务变化时触发器会更新汇总，LiveData 自动回调
+        dailyStatsDao.observeVisibleTotals().observe(getViewLifecycleOwner(), this::showTotals);
+        dailyStatsDao.observeVisibleByCategory().observe(getViewLifecycleOwner(), this::showCategories);
+        observeRecentDays();
     }
-    
-    private void loadStatistics() {
+
+    private void showTotals(StatsSummary totals) {
         try {
-            new Thread(() -> {
-                try {
-                    String currentUserId = CurrentUserUtil.getCurrentUserId();
-                    // 从数据库加载所有非删除的任务
-                    List<Todo> tasks = taskDao.getVisibleTasksForUser();
+            int totalTasks = totals != null ? totals.total : 0;
+            int completedTasks = totals != null ? totals.completed : 0;
+            int pendingTasks = totalTasks - completedTasks;
 
-                    // 计算统计信息
-                    final int totalTasks = tasks.size();
-                    final int completedTasks = (int) tasks.stream().filter(task -> task.completed).count();
-                    final int pendingTasks = totalTasks - completedTasks;
-                    
-                    // 计算完成率
-                    final int completionRate = totalTasks > 0 ? (completedTasks * 100) / totalTasks : 0;
-                    
-                    // 计算分类统计
-                    Map<String, Integer> categoryCount = new HashMap<>();
-                    for (Todo task : tasks) {
-                        String category = task.category != null ? task.category : "其他";
-                        categoryCount.put(category, categoryCount.getOrDefault(category, 0) + 1);
-                    }
-                    
-                    // 获取近5天的日期
-                    Calendar calendar = Calendar.getInstance();
-                    SimpleDateFormat dateFormat = new SimpleDateFormat("MM-dd", Locale.getDefault());
-                    String[] dates = new String[5];
-                    for (int i = 4; i >= 0; i--) {
-                        calendar.setTime(new Date());
-                        calendar.add(Calendar.DAY_OF_MONTH, -i);
-                        dates[4-i] = dateFormat.format(calendar.getTime());
-                    }
-                    
-                    // 计算每日专注用时（使用番茄钟分钟数）
-                    Map<String, Float> dailyFocusTime = new HashMap<>();
-                    for (Todo task : tasks) {
-                        if (task.time > 0) {
-                            String date = dateFormat.format(new Date(task.time));
-                            if (dailyFocusTime.containsKey(date)) {
-                                dailyFocusTime.put(date, dailyFocusTime.get(date) + task.pomodoroMinutes);
-                            } else {
-                                dailyFocusTime.put(date, (float)task.pomodoroMinutes);
-                            }
-                        }
-                    }
-                    
-                    // 计算每日完成任务数（使用任务时间）
-                    Map<String, Integer> dailyCompletedTasks = new HashMap<>();
-                    for (Todo task : tasks) {
-                        if (task.completed && task.time > 0) {
-                            String date = dateFormat.format(new Date(task.time));
-                            dailyCompletedTasks.put(date, dailyCompletedTasks.getOrDefault(date, 0) + 1);
-                        }
-                    }
-                    
-                    // 在UI线程更新界面
-                    if (getActivity() != null) {
-                        getActivity().runOnUiThread(() -> {
-                            // 更新任务总览
-                            textTotalTasks.setText(String.valueOf(totalTasks));
-                            textCompletedTasks.setText(String.valueOf(completedTasks));
-                            textPendingTasks.setText(String.valueOf(pendingTasks));
-                            
-                            // 更新完成率
-                            textCompletionRate.setText(completionRate + "%");
-                            progressCompletionRate.setProgress(completionRate);
-                            
-                            // 更新饼图
-                            updatePieChart(categoryCount);
-                            
-                            // 更新柱状图
-                            updateBarChart(dates, dailyFocusTime);
-                            
-                            // 更新折线图
-                            updateLineChart(dates, dailyCompletedTasks);
-                        });
-                    }
-                } catch (Exception e) {
-                    Log.e(TAG, "加载统计数据失败", e);
-                }
-            }).start();
+            // 计算完成率
+            int completionRate = totalTasks > 0 ? (completedTasks * 100) / totalTasks : 0;
+
+            // 更新任务总览
+            textTotalTasks.setText(String.valueOf(totalTasks));
+            textCompletedTasks.setText(String.valueOf(completedTasks));
+            textPendingTasks.setText(String.valueOf(pendingTasks));
+
+            // 更新完成率
+            textCompletionRate.setText(completionRate + "%");
+            progressCompletionRate.setProgress(completionRate);
         } catch (Exception e) {
-            Log.e(TAG, "创建统计线程失败", e);
+            Log.e(TAG, "加载统计数据失败", e);
+        }
+    }
+
+    private void showCategories(List<StatsSummary> categories) {
+        if (categories == null) {
+            return;
+        }
+        Map<String, Integer> categoryCount = new HashMap<>();
+        for (StatsSummary category : categories) {
+            categoryCount.put(category.label, category.total);
+        }
+        updatePieChart(categoryCount);
+    }
+
+    // 观察近几天的专注用时和完成任务数
+    private void observeRecentDays() {
+        // 汇总表中的日期格式为 yyyy-MM-dd，图表上显示 MM-dd
+        SimpleDateFormat dayFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+        SimpleDateFormat labelFormat = new SimpleDateFormat("MM-dd", Locale.getDefault());
+        Calendar calendar = Calendar.getInstance();
+        calendar.add(Calendar.DAY_OF_MONTH, -(RECENT_DAYS - 1));
+        String[] days = new String[RECENT_DAYS];
+        String[] dates = new String[RECENT_DAYS];
+        for (int i = 0; i < RECENT_DAYS; i++) {
+            days[i] = dayFormat.format(calendar.getTime());
+            dates[i] = labelFormat.format(calendar.getTime());
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
         }
+
+        dailyStatsDao.observeVisibleByDay(days[0], days[RECENT_DAYS - 1]).observe(getViewLifecycleOwner(), rows -> {
+            if (rows == null) {
+                return;
+            }
+            try {
+                Map<String, StatsSummary> byDay = new HashMap<>();
+                for (StatsSummary row : rows) {
+                    byDay.put(row.label, row);
+                }
+                // 每日专注用时（番茄钟分钟数）和每日完成任务数
+                Map<String, Float> dailyFocusTime = new HashMap<>();
+                Map<String, Integer> dailyCompletedTasks = new HashMap<>();
+                for (int i = 0; i < RECENT_DAYS; i++) {
+                    StatsSummary row = byDay.get(days[i]);
+                    if (row != null) {
+                        dailyFocusTime.put(dates[i], (float) row.focusMinutes);
+                        dailyCompletedTasks.put(dates[i], row.completed);
+                    }
+                }
+                updateBarChart(dates, dailyFocusTime);
+                updateLineChart(dates, dailyCompletedTasks);
+            } catch (Exception e) {
+                Log.e(TAG, "加载每日统计失败", e);
+            }
+        });
     }
 
     private void updatePieChart(Map<String, Integer> categoryCount) {
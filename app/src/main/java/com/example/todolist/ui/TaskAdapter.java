@@ -11,9 +11,11 @@ import android.widget.CheckBox;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
-import com.example.todolist.data.AppDatabase;
-import com.example.todolist.data.Todo;
+import com.example.todolist.data.EntityCache;
+import com.example.todolist.data.TodoListItem;
 import com.example.todolist.R;
+import com.example.todolist.sync.SyncCoordinator;
+import com.example.todolist.utils.AppExecutors;
 import com.google.android.material.checkbox.MaterialCheckBox;
 import com.google.android.material.chip.Chip;
 import com.parse.ParseObject;
@@ -30,21 +32,26 @@ import android.widget.Toast;
 import android.widget.ImageView;
 
 public class TaskAdapter extends RecyclerView.Adapter<TaskAdapter.ViewHolder> {
-    private List<Todo> taskList;
+    private List<TodoListItem> taskList;
     private LayoutInflater inflater;
     private OnItemClickListener itemClickListener;
     private OnItemLongClickListener itemLongClickListener;
+    private OnCompletedChangeListener completedChangeListener;
     private Context context;
 
-    // 列表项点击事件接口
+    // 列表项点击事件接口；列表只持有投影，需要完整任务时由调用方按 uuid 读取
     public interface OnItemClickListener {
-        void onItemClick(Todo todo);
+        void onItemClick(TodoListItem item);
     }
     public interface OnItemLongClickListener {
-        void onItemLongClick(Todo todo);
+        void onItemLongClick(TodoListItem item);
+    }
+    // 完成状态变化接口，未设置时直接写入数据库并同步
+    public interface OnCompletedChangeListener {
+        void onCompletedChange(TodoListItem item, boolean completed);
     }
 
-    public TaskAdapter(Context context, List<Todo> taskList) {
+    public TaskAdapter(Context context, List<TodoListItem> taskList) {
         this.context = context;
         this.taskList = taskList;
         this.inflater = LayoutInflater.from(context);
@@ -56,19 +63,32 @@ public class TaskAdapter extends RecyclerView.Adapter<TaskAdapter.ViewHolder> {
     public void setOnItemLongClickListener(OnItemLongClickListener listener) {
         this.itemLongClickListener = listener;
     }
+    public void setOnCompletedChangeListener(OnCompletedChangeListener listener) {
+        this.completedChangeListener = listener;
+    }
 
     // 更新列表数据并刷新
-    public void updateList(List<Todo> newList) {
+    public void updateList(List<TodoListItem> newList) {
         this.taskList = newList;
         notifyDataSetChanged();
     }
     
     // 添加updateData方法，与updateList功能相同
-    public void updateData(List<Todo> newList) {
+    public void updateData(List<TodoListItem> newList) {
         this.taskList = newList;
         notifyDataSetChanged();
     }
 
+    // 追加一页数据，只通知新增的部分
+    public void appendData(List<TodoListItem> moreItems) {
+        if (moreItems == null || moreItems.isEmpty()) {
+            return;
+        }
+        int start = taskList.size();
+        taskList.addAll(moreItems);
+        notifyItemRangeInserted(start, moreItems.size());
+    }
+
     @NonNull
     @Override
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -78,7 +98,7 @@ public class TaskAdapter extends RecyclerView.Adapter<TaskAdapter.ViewHolder> {
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        Todo todo = taskList.get(position);
+        TodoListItem todo = taskList.get(position);
         holder.textTitle.setText(todo.title);
         
         // 根据完成状态设置标题文字效果（删除线/正常）
@@ -137,13 +157,17 @@ public class TaskAdapter extends RecyclerView.Adapter<TaskAdapter.ViewHolder> {
                 animateTaskUncomplete(holder);
             }
             
-            // 更新数据对象并异步保存到本地数据库
+            // 更新列表项并异步保存到本地数据库（只更新完成状态列）
             todo.completed = newStatus;
-            new Thread(() -> {
-                AppDatabase.getInstance(context).taskDao().updateTodo(todo);
-                // 自动同步到云端
-                com.example.todolist.sync.SyncWorker.pushLocalToCloud(context);
-            }).start();
+            if (completedChangeListener != null) {
+                completedChangeListener.onCompletedChange(todo, newStatus);
+                return;
+            }
+            AppExecutors.getInstance().diskIO().execute(() -> {
+                EntityCache.getInstance(context).setTodoCompleted(todo.uuid, newStatus);
+                // 稍后推送到云端，连续勾选会合并为一次
+                SyncCoordinator.getInstance().requestPush(context);
+            });
         });
 
         // 列表项点击：触发监听回调（打开编辑）
@@ -220,7 +244,7 @@ public class TaskAdapter extends RecyclerView.Adapter<TaskAdapter.ViewHolder> {
             holder.textTitle.setPaintFlags(holder.textTitle.getPaintFlags() & ~Paint.STRIKE_THRU_TEXT_FLAG);
             
             // 判断是否已过期，过期任务显示红色
-            Todo todo = taskList.get(holder.getAdapterPosition());
+            TodoListItem todo = taskList.get(holder.getAdapterPosition());
             long now = System.currentTimeMillis();
             if (todo.time < now) {
                 holder.textTitle.setTextColor(context.getResources().getColor(R.color.task_overdue));
@@ -16,17 +16,20 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.todolist.R;
 import com.example.todolist.data.AppDatabase;
+import com.example.todolist.data.EntityCache;
+import com.example.todolist.data.TableObserver;
 import com.example.todolist.data.TaskGroup;
 import com.example.todolist.data.TaskGroupDao;
 import com.example.todolist.data.Todo;
-import com.example.todolist.sync.SyncWorker;
+import com.example.todolist.data.TodoListItem;
+import com.example.todolist.sync.SyncCoordinator;
+import com.example.todolist.utils.AppExecutors;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.Executors;
 
 import androidx.core.content.ContextCompat;
 
@@ -50,6 +53,8 @@ public class TaskGroupActivity extends BaseActivity {
     private RecyclerView recyclerSubTasks;
     private TaskAdapter adapter;
     private List<Todo> subTasks = new ArrayList<>();
+    // 与 subTasks 一一对应的列表项，供适配器渲染
+    private List<TodoListItem> subTaskItems = new ArrayList<>();
     private TextView textGroupName;
     private TextView textCategory;
     private TextView textEstimatedDays;
@@ -59,6 +64,7 @@ public class TaskGroupActivity extends BaseActivity {
     private Button buttonDeleteTaskGroup;
     private Button buttonShareTaskGroup;
     private TaskGroupDao taskGroupDao;
+    private EntityCache entityCache;
     private EditText editGroupName;
     private EditText editCategory;
     private EditText editEstimatedDays;
@@ -74,6 +80,7 @@ public class TaskGroupActivity extends BaseActivity {
 
         // 初始化DAO
         taskGroupDao = AppDatabase.getInstance(this).taskGroupDao();
+        entityCache = EntityCache.getInstance(this);
 
         // 初始化视图
         Toolbar toolbar = findViewById(R.id.toolbar);
@@ -105,21 +112,38 @@ public class TaskGroupActivity extends BaseActivity {
 
         // 设置RecyclerView
         recyclerSubTasks.setLayoutManager(new LinearLayoutManager(this));
-        adapter = new TaskAdapter(this, subTasks);
+        adapter = new TaskAdapter(this, subTaskItems);
         recyclerSubTasks.setAdapter(adapter);
-        // 设置子任务点击事件，跳转到编辑页面
-        adapter.setOnItemClickListener(todo -> {
+        // 设置子任务点击事件，跳转到编辑页面（完整子任务已在 subTasks 中）
+        adapter.setOnItemClickListener(item -> {
+            Todo todo = findSubTask(item);
+            if (todo == null) {
+                return;
+            }
             Intent intent = new Intent(TaskGroupActivity.this, AddEditTaskActivity.class);
             intent.putExtra("todo", todo);
             intent.putExtra("parent_group_id", taskGroup != null ? taskGroup.uuid : null);
             startActivity(intent);
         });
+        // 勾选子任务：同时修改内存中的子任务，新建模式下随代办集一起保存
+        adapter.setOnCompletedChangeListener((item, completed) -> {
+            Todo todo = findSubTask(item);
+            if (todo != null) {
+                todo.completed = completed;
+            }
+            if (!isCreateMode) {
+                AppExecutors.getInstance().diskIO().execute(() -> {
+                    entityCache.setTodoCompleted(item.uuid, completed);
+                    SyncCoordinator.getInstance().requestPush(this);
+                });
+            }
+        });
 
         // 新建模式下初始化空代办集
         if (isCreateMode) {
             taskGroup = new TaskGroup();
             subTasks.clear();
-            adapter.updateList(subTasks);
+            showSubTasks();
         } else {
             // 获取传递的代办集ID
             String groupId = getIntent().getStringExtra("group_id");
@@ -129,6 +153,9 @@ public class TaskGroupActivity extends BaseActivity {
                 return;
             }
             loadTaskGroup(groupId);
+            // 代办集或子任务被修改时重新加载详情
+            TableObserver.observe(AppDatabase.getInstance(this), this, () -> loadTaskGroup(groupId),
+                    "taskgroups", "task_group_members", "todos");
         }
 
         // fabAddTask：添加子任务
@@ -230,13 +257,13 @@ public class TaskGroupActivity extends BaseActivity {
         // 可以在这里添加对表单的验证和更新逻辑
         // 目前简单地保存现有的taskGroup对象
         
-        Executors.newSingleThreadExecutor().execute(() -> {
+        AppExecutors.getInstance().diskIO().execute(() -> {
             try {
                 // 保存到本地数据库
-                taskGroupDao.insertTaskGroup(taskGroup);
+                entityCache.insertTaskGroup(taskGroup);
                 
                 // 同步到云端
-                SyncWorker.pushTaskGroupsToCloud(this);
+                SyncCoordinator.getInstance().requestPush(this);
                 
                 runOnUiThread(() -> {
                     Toast.makeText(this, "代办集已保存", Toast.LENGTH_SHORT).show();
@@ -273,24 +300,23 @@ public class TaskGroupActivity extends BaseActivity {
             return;
         }
         
-        Executors.newSingleThreadExecutor().execute(() -> {
+        AppExecutors.getInstance().diskIO().execute(() -> {
             try {
                 String currentUserId = CurrentUserUtil.getCurrentUserId();
                 // 先删除所有子任务
                 if (taskGroup.subTaskIds != null && !taskGroup.subTaskIds.isEmpty()) {
                     for (String taskId : taskGroup.subTaskIds) {
-                        AppDatabase.getInstance(this).taskDao().logicalDeleteTodoForUser(taskId);
+                        entityCache.logicalDeleteTodo(taskId);
                     }
                 }
                 
                 // 设置删除标记
                 taskGroup.deleted = true;
                 taskGroup.touch();
-                taskGroupDao.insertTaskGroup(taskGroup);
+                entityCache.insertTaskGroup(taskGroup);
                 
                 // 同步到云端
-                SyncWorker.pushTaskGroupsToCloud(this);
-                SyncWorker.pushLocalToCloud(this);
+                SyncCoordinator.getInstance().requestPush(this);
                 
                 runOnUiThread(() -> {
                     Toast.makeText(this, "代办集已删除", Toast.LENGTH_SHORT).show();
@@ -305,15 +331,6 @@ public class TaskGroupActivity extends BaseActivity {
         });
     }
 
-    @Override
-    protected void onResume() {
-        super.onResume();
-        // 只在非新建模式下刷新代办集和子任务
-        if (!isCreateMode && taskGroup != null) {
-            loadTaskGroup(taskGroup.uuid);
-        }
-    }
-
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
         if (item.getItemId() == android.R.id.home) {
@@ -327,11 +344,11 @@ public class TaskGroupActivity extends BaseActivity {
      * 加载代办集和子任务
      */
     private void loadTaskGroup(String groupId) {
-        Executors.newSingleThreadExecutor().execute(() -> {
+        AppExecutors.getInstance().diskIO().execute(() -> {
             try {
                 String currentUserId = CurrentUserUtil.getCurrentUserId();
                 // 加载代办集
-                taskGroup = taskGroupDao.getTaskGroupByIdForUser(groupId);
+                taskGroup = entityCache.getTaskGroup(groupId);
                 if (taskGroup == null) {
                     runOnUiThread(() -> {
                         Toast.makeText(this, "代办集不存在", Toast.LENGTH_SHORT).show();
@@ -375,26 +392,14 @@ public class TaskGroupActivity extends BaseActivity {
                     textCreatedAt.setText("创建时间: " + sdf.format(taskGroup.createdAt));
                 });
 
-                // 加载子任务
-                List<String> subTaskIds = taskGroup.subTaskIds;
-                List<Todo> tasks = new ArrayList<>();
-                
-                if (subTaskIds != null && !subTaskIds.isEmpty()) {
-                    for (String taskId : subTaskIds) {
-                        Todo task = AppDatabase.getInstance(this).taskDao().getTodoByIdForUser(taskId);
-                        if (task != null && !task.deleted) {
-                            tasks.add(task);
-                        }
-                    }
-                }
-                
-                final List<Todo> finalTasks = tasks;
+                // 加载子任务（通过成员表一次关联查询）
+                final List<Todo> finalTasks = taskGroupDao.getSubTasksForGroup(groupId);
                 
                 runOnUiThread(() -> {
                     // 更新任务列表
                     subTasks.clear();
                     subTasks.addAll(finalTasks);
-                    adapter.notifyDataSetChanged();
+                    showSubTasks();
                 });
             } catch (Exception e) {
                 runOnUiThread(() -> {
@@ -410,7 +415,7 @@ public class TaskGroupActivity extends BaseActivity {
         ProgressDialog progressDialog = ProgressDialog.show(this, "", "正在准备共享信息...", true);
         
         // 首先确保当前TaskGroup已经上传到云端
-        new Thread(() -> {
+        AppExecutors.getInstance().networkIO().execute(() -> {
             try {
                 // 先尝试上传当前TaskGroup到云端，确保云端有数据
                 if (taskGroup != null) {
@@ -480,7 +485,7 @@ public class TaskGroupActivity extends BaseActivity {
                                 runOnUiThread(() -> {
                                     Toast.makeText(TaskGroupActivity.this, "正在准备共享信息，请稍后再试", Toast.LENGTH_SHORT).show();
                                     // 触发后台同步
-                                    com.example.todolist.sync.SyncWorker.pushTaskGroupsToCloud(TaskGroupActivity.this);
+                                    SyncCoordinator.getInstance().requestPush(TaskGroupActivity.this);
                                 });
                             } else {
                                 runOnUiThread(() -> {
@@ -510,7 +515,7 @@ public class TaskGroupActivity extends BaseActivity {
                     Toast.makeText(TaskGroupActivity.this, "操作失败: " + e.getMessage(), Toast.LENGTH_SHORT).show();
                 });
             }
-        }).start();
+        });
     }
 
     private void showShareDialog(ParseObject parseTaskGroupObject) {
@@ -578,7 +583,7 @@ public class TaskGroupActivity extends BaseActivity {
                             shareSubTasksACL(taskGroup.subTaskIds, finalAcl);
                         }
                         // 同步本地 taskGroup 到云端，确保本地和云端数据一致
-                        SyncWorker.pushTaskGroupsToCloud(this);
+                        SyncCoordinator.getInstance().requestPush(this);
                     } else {
                         android.util.Log.e("TaskGroupActivity", "保存TaskGroup ACL失败: " + eSave.getMessage());
                         Toast.makeText(this, "共享失败: " + eSave.getMessage(), Toast.LENGTH_SHORT).show();
@@ -619,6 +624,18 @@ public class TaskGroupActivity extends BaseActivity {
         });
     }
 
+    // 根据 subTasks 重建列表项并刷新
+    private void showSubTasks() {
+        subTaskItems = TodoListItem.fromTodos(subTasks);
+        adapter.updateList(subTaskItems);
+    }
+
+    // 列表项按位置对应回完整子任务
+    private Todo findSubTask(TodoListItem item) {
+        int index = subTaskItems.indexOf(item);
+        return index >= 0 && index < subTasks.size() ? subTasks.get(index) : null;
+    }
+
     // 新建模式下弹窗添加子任务
     private void showAddSubTaskDialog() {
         EditText input = new EditText(this);
@@ -631,7 +648,7 @@ public class TaskGroupActivity extends BaseActivity {
                     Todo subTask = new Todo();
                     subTask.title = title;
                     subTasks.add(subTask);
-                    adapter.updateList(subTasks);
+                    showSubTasks();
                 }
             })
             .setNegativeButton("取消", null)
@@ -656,24 +673,33 @@ public class TaskGroupActivity extends BaseActivity {
         taskGroup.subTaskIds.clear();
 
         // 数据库操作放到子线程
-        new Thread(() -> {
+        AppExecutors.getInstance().diskIO().execute(() -> {
             long now = System.currentTimeMillis();
+            if (TextUtils.isEmpty(taskGroup.uuid)) {
+                // 新建模式下的空代办集还没有uuid
+                taskGroup.uuid = java.util.UUID.randomUUID().toString();
+            }
+            if (TextUtils.isEmpty(taskGroup.userId)) {
+                taskGroup.userId = CurrentUserUtil.getCurrentUserId();
+            }
             if (taskGroup.createdAt == 0) {
                 taskGroup.createdAt = now;
             }
+            taskGroup.updatedAt = now;
             for (Todo t : subTasks) {
                 String uuid = java.util.UUID.randomUUID().toString();
                 t.uuid = uuid;
                 t.belongsToTaskGroup = true;
                 if (t.time == 0) t.time = now;
+                t.updatedAt = now;
                 taskGroup.subTaskIds.add(uuid);
-                AppDatabase.getInstance(this).taskDao().insertTodo(t);
             }
-            AppDatabase.getInstance(this).taskGroupDao().insertTaskGroup(taskGroup);
+            // 子任务和代办集在一个事务中写入
+            entityCache.insertTaskGroupWithSubTasks(taskGroup, new ArrayList<>(subTasks));
             runOnUiThread(() -> {
                 Toast.makeText(this, "代办集已创建", Toast.LENGTH_SHORT).show();
                 finish();
             });
-        }).start();
+        });
     }
 } 
\ No newline at end of file
@@ -17,6 +17,8 @@ import android.widget.ImageView;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
 import androidx.cardview.widget.CardView;
 import androidx.core.content.ContextCompat;
@@ -27,11 +29,14 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.example.todolist.R;
 import com.example.todolist.ai.TaskDecomposer;
 import com.example.todolist.data.AppDatabase;
+import com.example.todolist.data.EntityCache;
 import com.example.todolist.data.TaskDao;
 import com.example.todolist.data.TaskGroup;
 import com.example.todolist.data.TaskGroupDao;
+import com.example.todolist.data.TaskGroupProgress;
 import com.example.todolist.data.Todo;
-import com.example.todolist.sync.SyncWorker;
+import com.example.todolist.sync.SyncCoordinator;
+import com.example.todolist.utils.AppExecutors;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.parse.ParseObject;
 import com.parse.ParseUser;
@@ -53,6 +58,7 @@ public class TaskGroupsFragment extends Fragment {
     private View emptyViewGroups;
     private TaskDao taskDao;
     private TaskGroupDao taskGroupDao;
+    private EntityCache entityCache;
     private TaskGroupAdapter taskGroupAdapter;
     private List<TaskGroup> allTaskGroups = new ArrayList<>();
 
@@ -73,6 +79,7 @@ public class TaskGroupsFragment extends Fragment {
             // 初始化DAO
             taskDao = AppDatabase.getInstance(requireContext()).taskDao();
             taskGroupDao = AppDatabase.getInstance(requireContext()).taskGroupDao();
+            entityCache = EntityCache.getInstance(requireContext());
             
             // 初始化UI组件
             recyclerViewGroups = view.findViewById(R.id.recyclerViewGroups);
@@ -107,9 +114,6 @@ public class TaskGroupsFragment extends Fragment {
                     })
                     .show();
             });
-
-            // 加载代办集数据
-            loadTaskGroups();
             
         } catch (Exception e) {
             Log.e(TAG, "UI初始化失败", e);
@@ -120,64 +124,39 @@ public class TaskGroupsFragment extends Fragment {
     }
     
     @Override
-    public void onResume() {
-        super.onResume();
-        loadTaskGroups();
-    }
-    
-    void loadTaskGroups() {
-        try {
-            String currentUserId = CurrentUserUtil.getCurrentUserId();
-
-            new Thread(() -> {
-                try {
-                    Log.d(TAG, "正在加载所有代办集...");
-                    List<TaskGroup> groups = taskGroupDao != null ? taskGroupDao.getAllTaskGroupsForUser() : new ArrayList<>();
-                    if (groups == null) {
-                        Log.e(TAG, "代办集查询返回 null");
-                        groups = new ArrayList<>();
-                    }
-                    Log.d(TAG, "成功加载 " + groups.size() + " 个代办集");
-                    
-                    // 预先统计每个代办集的完成进度
-                    for (TaskGroup group : groups) {
-                        group.totalCount = group.subTaskIds.size();
-                        group.completedCount = 0;
-                        
-                        // 遍历子任务ID，统计已完成数量
-                        for (String taskId : group.subTaskIds) {
-                            try {
-                                Todo todo = taskDao.getTodoByIdForUser(taskId);
-                                if (todo != null && todo.completed && !todo.deleted) {
-                                    group.completedCount++;
-                                }
-                            } catch (Exception e) {
-                                Log.e(TAG, "获取子任务状态出错: " + e.getMessage());
-                            }
-                        }
-                    }
-                    
-                    allTaskGroups.clear();
-                    allTaskGroups.addAll(groups);
-                    if (getActivity() != null) {
-                        getActivity().runOnUiThread(() -> {
-                            taskGroupAdapter.notifyDataSetChanged();
-                            // 根据是否有数据显示空视图
-                            if (allTaskGroups.isEmpty()) {
-                                recyclerViewGroups.setVisibility(View.GONE);
-                                emptyViewGroups.setVisibility(View.VISIBLE);
-                            } else {
-                                recyclerViewGroups.setVisibility(View.VISIBLE);
-                                emptyViewGroups.setVisibility(View.GONE);
-                            }
-                        });
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        if (taskGroupDao == null) {
+            return;
+        }
+        // 代办集及其完成进度由一次聚合查询得到，相关表变化时 Room 会自动重新查询
+        taskGroupDao.observeTaskGroupProgress().observe(getViewLifecycleOwner(), rows -> {
+            try {
+                List<TaskGroup> groups = new ArrayList<>();
+                if (rows != null) {
+                    for (TaskGroupProgress row : rows) {
+                        groups.add(row.toTaskGroup());
                     }
-                } catch (Exception e) {
-                    Log.e(TAG, "在加载代办集中发生异常", e);
                 }
-            }).start();
-        } catch (Exception e) {
-            Log.e(TAG, "加载代办集执行失败", e);
+                Log.d(TAG, "成功加载 " + groups.size() + " 个代办集");
+                showTaskGroups(groups);
+            } catch (Exception e) {
+                Log.e(TAG, "在加载代办集中发生异常", e);
+            }
+        });
+    }
+    
+    private void showTaskGroups(List<TaskGroup> groups) {
+        allTaskGroups.clear();
+        allTaskGroups.addAll(groups);
+        taskGroupAdapter.notifyDataSetChanged();
+        // 根据是否有数据显示空视图
+        if (allTaskGroups.isEmpty()) {
+            recyclerViewGroups.setVisibility(View.GONE);
+            emptyViewGroups.setVisibility(View.VISIBLE);
+        } else {
+            recyclerViewGroups.setVisibility(View.VISIBLE);
+            emptyViewGroups.setVisibility(View.GONE);
         }
     }
     
@@ -221,7 +200,7 @@ public class TaskGroupsFragment extends Fragment {
             dialog.dismiss();
             
             // 执行AI任务分解
-            new DecomposeTaskAsyncTask().execute(taskTitle);
+            new DecomposeTaskAsyncTask().executeOnExecutor(AppExecutors.getInstance().networkIO(), taskTitle);
         });
     }
     
@@ -286,9 +265,7 @@ public class TaskGroupsFragment extends Fragment {
         );
         
         // 保存代办集
-        new Thread(() -> {
-            taskGroupDao.insertTaskGroup(taskGroup);
-            
+        AppExecutors.getInstance().diskIO().execute(() -> {
             // 设置子任务的默认值
             String category = result.getCategory();
             if (TextUtils.isEmpty(category) || !isValidCategory(category)) {
@@ -300,6 +277,7 @@ public class TaskGroupsFragment extends Fragment {
             
             // 为每个子任务创建新的Todo对象并保存
             final String finalCategory = category;
+            List<Todo> newTasks = new ArrayList<>();
             for (TaskDecomposer.SubTask subTask : result.getSubTasks()) {
                 String subTaskId = UUID.randomUUID().toString();
                 Todo newTask = new Todo(
@@ -318,37 +296,28 @@ public class TaskGroupsFragment extends Fragment {
                 // 将任务时间递增3小时，让子任务时间有序排列
                 taskCalendar.add(Calendar.HOUR_OF_DAY, 3);
                 
-                // 保存到本地数据库
-                taskDao.insertTodo(newTask);
+                newTasks.add(newTask);
                 
                 // 添加到代办集
                 taskGroup.addSubTask(newTask.uuid);
             }
             
-            // 更新代办集
-            taskGroupDao.insertTaskGroup(taskGroup);
+            // 代办集和全部子任务在一个事务中保存
+            entityCache.insertTaskGroupWithSubTasks(taskGroup, newTasks);
             
             // 同步到云端，添加异常捕获
             try {
-                SyncWorker.pushTaskGroupsToCloud(requireContext());
+                SyncCoordinator.getInstance().requestPush(requireContext());
             } catch (Exception e) {
-                Log.e(TAG, "同步TaskGroup到云端失败", e);
+                Log.e(TAG, "安排同步失败", e);
                 // 同步失败不影响本地数据保存
             }
             
-            try {
-                SyncWorker.pushLocalToCloud(requireContext());
-            } catch (Exception e) {
-                Log.e(TAG, "同步任务到云端失败", e);
-                // 同步失败不影响本地数据保存
-            }
-            
-            // 刷新界面
+            // 提示创建成功，列表由观察者自动刷新
             try {
                 if (getActivity() != null && !getActivity().isFinishing()) {
                     getActivity().runOnUiThread(() -> {
                         try {
-                            loadTaskGroups();
                             Toast.makeText(requireContext(), "已创建代办集：" + result.getMainTask(), Toast.LENGTH_SHORT).show();
                         } catch (Exception e) {
                             Log.e(TAG, "刷新界面出错", e);
@@ -358,7 +327,7 @@ public class TaskGroupsFragment extends Fragment {
             } catch (Exception e) {
                 Log.e(TAG, "尝试刷新UI出错", e);
             }
-        }).start();
+        });
     }
     
     /**
@@ -590,7 +559,7 @@ public class TaskGroupsFragment extends Fragment {
                            EditText editTaskGroupTitle = dialogView.findViewById(R.id.editTaskGroupTitle);
                            String lastTitle = editTaskGroupTitle.getText().toString().trim();
                            if (!lastTitle.isEmpty()) {
-                               new DecomposeTaskAsyncTask().execute(lastTitle);
+                               new DecomposeTaskAsyncTask().executeOnExecutor(AppExecutors.getInstance().networkIO(), lastTitle);
                            } else {
                                showCreateTaskGroupDialog();
                            }
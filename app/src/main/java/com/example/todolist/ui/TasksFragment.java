@@ -3,22 +3,38 @@ package com.example.todolist.ui;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.app.AlertDialog;
+import android.widget.EditText;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
+import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 
 import com.example.todolist.R;
 import com.example.todolist.data.AppDatabase;
+import com.example.todolist.data.EntityCache;
+import com.example.todolist.data.Priority;
+import com.example.todolist.data.TableObserver;
 import com.example.todolist.data.TaskDao;
+import com.example.todolist.data.TaskFilter;
+import com.example.todolist.data.TaskPagingSource;
 import com.example.todolist.data.Todo;
+import com.example.todolist.data.TodoListItem;
+import com.example.todolist.sync.SyncCoordinator;
+import com.example.todolist.utils.AppExecutors;
 import com.google.android.material.chip.Chip;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.parse.ParseObject;
@@ -26,20 +42,45 @@ import com.parse.ParseUser;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Future;
 
 public class TasksFragment extends Fragment {
     private TaskDao taskDao;
+    private EntityCache entityCache;
     private RecyclerView recyclerView;
     private TaskAdapter adapter;
     private View emptyView;
     private Chip spinnerTime;
     private Chip spinnerCategory;
     private Chip spinnerStatus;
-    private List<Todo> allTasks = new ArrayList<>();
+    private Chip spinnerPriority;
+    private Chip spinnerSort;
+    private SwipeRefreshLayout swipeRefresh;
+    // 已经分页加载到内存的任务（数据库已按筛选条件过滤）
+    private List<TodoListItem> allTasks = new ArrayList<>();
+    // 当前筛选条件
+    private TaskFilter filter = new TaskFilter();
     private static final String TAG = "TasksFragment";
+    // 距离列表底部还剩多少项时预加载下一页
+    private static final int PREFETCH_DISTANCE = 10;
+
+    private TaskPagingSource pagingSource;
+    private boolean isLoadingPage = false;
+    // 每次刷新递增，用于丢弃过期的分页结果
+    private int loadGeneration = 0;
+
+    // 搜索输入停止后多久才真正查询
+    private static final long SEARCH_DEBOUNCE_MS = 250;
+    private static final int SEARCH_LIMIT = 200;
+    private EditText editSearch;
+    // 当前生效的搜索关键词，null 表示未在搜索
+    private String searchKeyword = null;
+    private final Handler searchHandler = new Handler(Looper.getMainLooper());
+    private Runnable pendingSearch;
+    // 新的搜索会取消还在排队的旧搜索
+    private Future<?> searchFuture;
 
     public TasksFragment() {
         // Required empty public constructor
@@ -52,6 +93,7 @@ public class TasksFragment extends Fragment {
         try {
             // 初始化数据库
             taskDao = AppDatabase.getInstance(requireContext()).taskDao();
+            entityCache = EntityCache.getInstance(requireContext());
         } catch (Exception e) {
             Log.e(TAG, "数据库访问失败", e);
             Toast.makeText(requireContext(), "数据库访问失败", Toast.LENGTH_SHORT).show();
@@ -61,46 +103,84 @@ public class TasksFragment extends Fragment {
         try {
             // 初始化任务列表UI组件
             recyclerView = view.findViewById(R.id.recyclerView);
-            recyclerView.setLayoutManager(new LinearLayoutManager(requireContext()));
+            LinearLayoutManager layoutManager = new LinearLayoutManager(requireContext());
+            recyclerView.setLayoutManager(layoutManager);
             emptyView = view.findViewById(R.id.emptyView);
+
+            // 滚动接近底部时加载下一页
+            recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+                @Override
+                public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                    if (dy <= 0 || adapter == null) {
+                        return;
+                    }
+                    if (layoutManager.findLastVisibleItemPosition() >= adapter.getItemCount() - PREFETCH_DISTANCE) {
+                        loadNextPage();
+                    }
+                }
+            });
+
+            // 下拉刷新：从云端拉取并重新加载第一页
+            swipeRefresh = view.findViewById(R.id.swipeRefresh);
+            swipeRefresh.setOnRefreshListener(() -> {
+                try {
+                    SyncCoordinator.getInstance().pullNow(requireContext());
+                } catch (Exception e) {
+                    Log.e(TAG, "下拉刷新同步失败", e);
+                }
+                loadTasks();
+            });
             
             // 设置筛选器
             spinnerTime = view.findViewById(R.id.spinnerTime);
             spinnerCategory = view.findViewById(R.id.spinnerCategory);
             spinnerStatus = view.findViewById(R.id.spinnerStatus);
+            spinnerPriority = view.findViewById(R.id.spinnerPriority);
+            spinnerSort = view.findViewById(R.id.spinnerSort);
             setupFilterSpinners();
 
+            // 设置搜索框
+            editSearch = view.findViewById(R.id.editSearch);
+            editSearch.addTextChangedListener(new TextWatcher() {
+                @Override
+                public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+                }
+
+                @Override
+                public void onTextChanged(CharSequence s, int start, int before, int count) {
+                }
+
+                @Override
+                public void afterTextChanged(Editable s) {
+                    scheduleSearch(s.toString());
+                }
+            });
+
             // 设置任务列表适配器
-            adapter = new TaskAdapter(requireContext(), allTasks);
+            adapter = new TaskAdapter(requireContext(), new ArrayList<>());
             recyclerView.setAdapter(adapter);
 
-            // 设置任务点击事件
-            adapter.setOnItemClickListener(todo -> {
-                Intent editIntent = new Intent(requireContext(), AddEditTaskActivity.class);
-                editIntent.putExtra("todo", todo);
-                startActivity(editIntent);
-            });
+            // 设置任务点击事件：列表只有投影，打开编辑页前再读取完整任务
+            adapter.setOnItemClickListener(item -> openEditor(item.uuid));
 
             // 设置任务长按删除事件
-            adapter.setOnItemLongClickListener(todo -> {
+            adapter.setOnItemLongClickListener(item -> {
                 new AlertDialog.Builder(requireContext())
                         .setTitle("删除确认")
                         .setMessage("确定删除该待办事项吗？")
                         .setPositiveButton("删除", (dialog, which) -> {
                             try {
                                 // 软删除操作
-                                todo.deleted = true;
-                                todo.updatedAt = System.currentTimeMillis();
-                                new Thread(() -> {
+                                AppExecutors.getInstance().diskIO().execute(() -> {
                                     try {
-                                        taskDao.insertTodo(todo);
+                                        entityCache.logicalDeleteTodo(item.uuid);
                                     } catch (Exception e) {
                                         Log.e(TAG, "删除任务失败", e);
                                     }
-                                }).start();
+                                });
                                 
-                                allTasks.remove(todo);
-                                applyFiltersAndRefresh();
+                                allTasks.remove(item);
+                                refreshList();
                                 Toast.makeText(requireContext(), "已删除", Toast.LENGTH_SHORT).show();
                             } catch (Exception e) {
                                 Log.e(TAG, "删除操作失败", e);
@@ -129,17 +209,129 @@ public class TasksFragment extends Fragment {
     }
     
     @Override
-    public void onResume() {
-        super.onResume();
-        loadTasks();
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        if (taskDao == null) {
+            return;
+        }
+        // todos 表变化时重新加载已显示的范围，替代数据更新广播和 onResume 全量刷新
+        TableObserver.observe(AppDatabase.getInstance(requireContext()), getViewLifecycleOwner(),
+                () -> loadTasks(Math.max(TaskPagingSource.DEFAULT_PAGE_SIZE, allTasks.size())), "todos");
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (pendingSearch != null) {
+            searchHandler.removeCallbacks(pendingSearch);
+        }
+        if (searchFuture != null) {
+            searchFuture.cancel(false);
+        }
+    }
+
+    // 按uuid读取完整任务后打开编辑页
+    private void openEditor(String uuid) {
+        AppExecutors.getInstance().diskIO().execute(() -> {
+            Todo todo;
+            try {
+                todo = entityCache.getTodo(uuid);
+            } catch (Exception e) {
+                Log.e(TAG, "读取任务失败", e);
+                todo = null;
+            }
+            final Todo finalTodo = todo;
+            if (getActivity() != null) {
+                getActivity().runOnUiThread(() -> {
+                    if (!isAdded()) {
+                        return;
+                    }
+                    if (finalTodo == null) {
+                        Toast.makeText(requireContext(), "任务不存在或已删除", Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+                    Intent editIntent = new Intent(requireContext(), AddEditTaskActivity.class);
+                    editIntent.putExtra("todo", finalTodo);
+                    startActivity(editIntent);
+                });
+            }
+        });
+    }
+
+    // 输入变化后延迟执行搜索，连续输入时只查询最后一次
+    private void scheduleSearch(String text) {
+        final String keyword = text == null ? "" : text.trim();
+        if (pendingSearch != null) {
+            searchHandler.removeCallbacks(pendingSearch);
+        }
+        pendingSearch = () -> {
+            if (keyword.isEmpty()) {
+                if (searchKeyword != null) {
+                    // 清空搜索框，回到分页列表
+                    searchKeyword = null;
+                    loadTasks();
+                }
+            } else {
+                searchKeyword = keyword;
+                runSearch(keyword);
+            }
+        };
+        searchHandler.postDelayed(pendingSearch, SEARCH_DEBOUNCE_MS);
+    }
+
+    // 在全文索引中搜索，结果替换当前列表
+    private void runSearch(String keyword) {
+        // 递增代数后，正在执行的旧搜索和分页结果都会被丢弃
+        final int generation = ++loadGeneration;
+        pagingSource = null;
+        isLoadingPage = false;
+        if (searchFuture != null) {
+            searchFuture.cancel(false);
+        }
+        searchFuture = AppExecutors.getInstance().diskIO().submit(() -> {
+            List<TodoListItem> results;
+            try {
+                results = taskDao.searchVisibleTasks(keyword, SEARCH_LIMIT);
+            } catch (Exception e) {
+                Log.e(TAG, "搜索任务失败", e);
+                results = new ArrayList<>();
+            }
+            final List<TodoListItem> finalResults = results;
+            Log.d(TAG, "搜索 \"" + keyword + "\" 找到 " + finalResults.size() + " 个任务");
+            if (getActivity() != null) {
+                getActivity().runOnUiThread(() -> {
+                    if (generation != loadGeneration) {
+                        return; // 已有更新的搜索或刷新
+                    }
+                    if (swipeRefresh != null) {
+                        swipeRefresh.setRefreshing(false);
+                    }
+                    allTasks.clear();
+                    allTasks.addAll(finalResults);
+                    refreshList();
+                });
+            }
+        });
     }
     
+    // 重新从第一页开始加载任务；正在搜索时重新执行搜索
     void loadTasks() {
+        loadTasks(TaskPagingSource.DEFAULT_PAGE_SIZE);
+    }
+
+    // firstPageSize 大于默认页大小时，一次加载回用户已经滚动到的范围
+    private void loadTasks(int firstPageSize) {
+        if (searchKeyword != null) {
+            runSearch(searchKeyword);
+            return;
+        }
         try {
-            String currentUserId = CurrentUserUtil.getCurrentUserId();
-            new Thread(() -> {
+            final int generation = ++loadGeneration;
+            final TaskFilter currentFilter = filter.copy();
+            isLoadingPage = true;
+            AppExecutors.getInstance().diskIO().execute(() -> {
                 try {
-                    Log.d(TAG, "正在加载所有非代办集任务...");
+                    Log.d(TAG, "正在加载第一页非代办集任务...");
                     
                     if (taskDao == null) {
                         Log.e(TAG, "TaskDao对象为空，可能是数据库初始化失败");
@@ -158,53 +350,41 @@ public class TasksFragment extends Fragment {
                         }
                     }
                     
-                    // 安全地查询数据
-                    List<Todo> dbTasks;
+                    // 只读取符合筛选条件的第一页，不把整张表读入内存
+                    TaskPagingSource source = new TaskPagingSource(taskDao, currentFilter);
+                    List<TodoListItem> firstPage;
                     try {
-                        dbTasks = taskDao.getVisibleTasksForUser();
-                        Log.d(TAG, "数据库查询执行成功");
+                        firstPage = source.loadNextPage(firstPageSize);
                     } catch (Exception ex) {
                         Log.e(TAG, "获取可见任务时出错: " + ex.getMessage(), ex);
-                        // 如果查询特定方法失败，尝试获取所有任务
-                        try {
-                            dbTasks = taskDao.getAllTasksForUser();
-                            Log.d(TAG, "回退到获取所有任务成功");
-                            // 手动过滤任务
-                            List<Todo> filteredTasks = new ArrayList<>();
-                            for (Todo todo : dbTasks) {
-                                if (!todo.deleted && !todo.belongsToTaskGroup) {
-                                    filteredTasks.add(todo);
-                                }
-                            }
-                            dbTasks = filteredTasks;
-                        } catch (Exception e) {
-                            Log.e(TAG, "获取所有任务也失败: " + e.getMessage(), e);
-                            dbTasks = new ArrayList<>();
-                            if (getActivity() != null) {
-                                getActivity().runOnUiThread(() -> {
-                                    Toast.makeText(requireContext(), "数据库查询失败", Toast.LENGTH_SHORT).show();
-                                });
-                            }
+                        firstPage = new ArrayList<>();
+                        if (getActivity() != null) {
+                            getActivity().runOnUiThread(() -> {
+                                Toast.makeText(requireContext(), "数据库查询失败", Toast.LENGTH_SHORT).show();
+                            });
                         }
                     }
                     
-                    if (dbTasks == null) {
-                        Log.e(TAG, "数据库查询返回null");
-                        dbTasks = new ArrayList<>();
-                    }
-                    
-                    final List<Todo> finalTasks = dbTasks;
-                    Log.d(TAG, "成功加载 " + finalTasks.size() + " 个非代办集任务");
+                    final List<TodoListItem> finalTasks = firstPage;
+                    Log.d(TAG, "成功加载第一页 " + finalTasks.size() + " 个非代办集任务");
                     
                     if (getActivity() != null) {
                         getActivity().runOnUiThread(() -> {
                             try {
+                                if (generation != loadGeneration) {
+                                    return; // 已有更新的刷新请求
+                                }
+                                pagingSource = source;
+                                isLoadingPage = false;
+                                if (swipeRefresh != null) {
+                                    swipeRefresh.setRefreshing(false);
+                                }
                                 // 更新任务列表
                                 allTasks.clear();
                                 allTasks.addAll(finalTasks);
                                 
-                                // 应用筛选器并刷新列表
-                                applyFiltersAndRefresh();
+                                // 刷新列表
+                                refreshList();
                                 
                             } catch (Exception e) {
                                 Log.e(TAG, "UI更新异常", e);
@@ -214,14 +394,50 @@ public class TasksFragment extends Fragment {
                 } catch (Exception e) {
                     Log.e(TAG, "加载任务异常", e);
                 }
-            }).start();
+            });
         } catch (Exception e) {
             Log.e(TAG, "创建任务加载线程失败", e);
         }
     }
 
+    // 加载下一页并追加到列表末尾
+    private void loadNextPage() {
+        final TaskPagingSource source = pagingSource;
+        if (source == null || isLoadingPage || !source.hasMore()) {
+            return;
+        }
+        isLoadingPage = true;
+        final int generation = loadGeneration;
+        AppExecutors.getInstance().diskIO().execute(() -> {
+            List<TodoListItem> page;
+            try {
+                page = source.loadNextPage();
+            } catch (Exception e) {
+                Log.e(TAG, "加载下一页失败", e);
+                page = new ArrayList<>();
+            }
+            final List<TodoListItem> finalPage = page;
+            if (getActivity() != null) {
+                getActivity().runOnUiThread(() -> {
+                    if (generation != loadGeneration) {
+                        return;
+                    }
+                    isLoadingPage = false;
+                    allTasks.addAll(finalPage);
+                    adapter.appendData(finalPage);
+                    updateEmptyView();
+                });
+            }
+        });
+    }
+
+    private void updateEmptyView() {
+        boolean noMore = pagingSource == null || !pagingSource.hasMore();
+        emptyView.setVisibility(adapter.getItemCount() == 0 && noMore ? View.VISIBLE : View.GONE);
+    }
+
     private void setupFilterSpinners() {
-        // 时间过滤器选项
+        // 时间过滤器选项，顺序与 TaskFilter.TimeWindow 一致
         String[] timeOptions = {"全部时间", "今天", "本周内", "已过期"};
         spinnerTime.setText(timeOptions[0]);
         
@@ -231,7 +447,8 @@ public class TasksFragment extends Fragment {
                 .setTitle("选择时间过滤")
                 .setItems(timeOptions, (dialog, which) -> {
                     spinnerTime.setText(timeOptions[which]);
-                    applyFiltersAndRefresh();
+                    filter.timeWindow = TaskFilter.TimeWindow.values()[which];
+                    loadTasks();
                 })
                 .show();
         });
@@ -246,12 +463,13 @@ public class TasksFragment extends Fragment {
                 .setTitle("选择类别过滤")
                 .setItems(categoryOptions, (dialog, which) -> {
                     spinnerCategory.setText(categoryOptions[which]);
-                    applyFiltersAndRefresh();
+                    filter.category = which == 0 ? null : categoryOptions[which];
+                    loadTasks();
                 })
                 .show();
         });
 
-        // 状态过滤器选项
+        // 状态过滤器选项，顺序与 TaskFilter.Status 一致
         String[] statusOptions = {"全部状态", "未完成", "已完成"};
         spinnerStatus.setText(statusOptions[0]);
 
@@ -261,74 +479,62 @@ public class TasksFragment extends Fragment {
                 .setTitle("选择状态过滤")
                 .setItems(statusOptions, (dialog, which) -> {
                     spinnerStatus.setText(statusOptions[which]);
-                    applyFiltersAndRefresh();
+                    filter.status = TaskFilter.Status.values()[which];
+                    loadTasks();
+                })
+                .show();
+        });
+
+        // 优先级过滤器选项，第一项为全部，其余与 Priority 编码一致
+        String[] priorityOptions = {"全部优先级", "高优先级", "中优先级", "低优先级"};
+        spinnerPriority.setText(priorityOptions[0]);
+
+        // 点击时显示选项对话框
+        spinnerPriority.setOnClickListener(v -> {
+            new AlertDialog.Builder(requireContext())
+                .setTitle("选择优先级过滤")
+                .setItems(priorityOptions, (dialog, which) -> {
+                    spinnerPriority.setText(priorityOptions[which]);
+                    filter.priority = which == 0 ? null : Priority.HIGH + which - 1;
+                    loadTasks();
+                })
+                .show();
+        });
+
+        // 排序方式选项，排序在数据库中完成
+        String[] sortOptions = {"按时间排序", "按优先级排序"};
+        TaskFilter.Sort[] sorts = {TaskFilter.Sort.TIME_ASC, TaskFilter.Sort.PRIORITY};
+        spinnerSort.setText(sortOptions[0]);
+
+        spinnerSort.setOnClickListener(v -> {
+            new AlertDialog.Builder(requireContext())
+                .setTitle("选择排序方式")
+                .setItems(sortOptions, (dialog, which) -> {
+                    spinnerSort.setText(sortOptions[which]);
+                    filter.sort = sorts[which];
+                    loadTasks();
                 })
                 .show();
         });
     }
 
-    private void applyFiltersAndRefresh() {
-        // 创建过滤后的任务列表
-        List<Todo> filteredTasks = new ArrayList<>(allTasks);
-        
-        // 应用时间过滤
-        String timeFilter = spinnerTime.getText().toString();
-        if (!timeFilter.equals("全部时间")) {
-            Calendar now = Calendar.getInstance();
-            Calendar today = Calendar.getInstance();
-            today.set(Calendar.HOUR_OF_DAY, 0);
-            today.set(Calendar.MINUTE, 0);
-            today.set(Calendar.SECOND, 0);
-            today.set(Calendar.MILLISECOND, 0);
-            
-            Calendar endOfWeek = Calendar.getInstance();
-            endOfWeek.add(Calendar.DAY_OF_YEAR, 7);
-            
-            filteredTasks.removeIf(todo -> {
-                Calendar todoTime = Calendar.getInstance();
-                todoTime.setTimeInMillis(todo.time);
-                
-                if (timeFilter.equals("今天")) {
-                    Calendar tomorrow = (Calendar) today.clone();
-                    tomorrow.add(Calendar.DAY_OF_YEAR, 1);
-                    return !(todoTime.compareTo(today) >= 0 && todoTime.compareTo(tomorrow) < 0);
-                } else if (timeFilter.equals("本周内")) {
-                    return !(todoTime.compareTo(now) >= 0 && todoTime.compareTo(endOfWeek) <= 0);
-                } else if (timeFilter.equals("已过期")) {
-                    return todoTime.compareTo(now) >= 0;
-                }
-                return false;
-            });
-        }
-        
-        // 应用类别过滤
-        String categoryFilter = spinnerCategory.getText().toString();
-        if (!categoryFilter.equals("全部类别")) {
-            filteredTasks.removeIf(todo -> !todo.category.equals(categoryFilter));
-        }
-        
-        // 应用状态过滤
-        String statusFilter = spinnerStatus.getText().toString();
-        if (statusFilter.equals("未完成")) {
-            filteredTasks.removeIf(todo -> todo.completed);
-        } else if (statusFilter.equals("已完成")) {
-            filteredTasks.removeIf(todo -> !todo.completed);
-        }
-        
-        // 更新适配器数据
-        adapter.updateData(filteredTasks);
-        
-        // 更新空视图状态
-        emptyView.setVisibility(filteredTasks.isEmpty() ? View.VISIBLE : View.GONE);
+    // 用已加载的任务刷新列表（筛选已在数据库查询中完成）
+    private void refreshList() {
+        adapter.updateData(new ArrayList<>(allTasks));
+        updateEmptyView();
     }
 
     // Method to clear UI (called from MainActivity on logout)
     public void clearTasksAndUpdateUI() {
+        // 丢弃正在进行的分页加载
+        loadGeneration++;
+        pagingSource = null;
+        isLoadingPage = false;
         if (allTasks != null) {
             allTasks.clear();
         }
         if (adapter != null) {
-            adapter.notifyDataSetChanged();
+            adapter.updateData(new ArrayList<>());
         }
         if (emptyView != null && recyclerView != null) {
             emptyView.setVisibility(allTasks == null || allTasks.isEmpty() ? View.VISIBLE : View.GONE);
@@ -0,0 +1,189 @@
+package com.example.todolist.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 全局线程池
+ * diskIO：数据库读写；transaction：Room 事务；network：Parse/AI 等网络请求；sync：云同步（单线程，同一时间只执行一个同步操作）；
+ * compute：统计等计算；mainThread：回到主线程
+ * 每个线程池都会统计排队数量和任务耗时，排队或执行过久的任务会输出警告日志
+ */
+public class AppExecutors {
+    private static final String TAG = "AppExecutors";
+    // 超过这个时间的排队或执行会打印警告
+    private static final long SLOW_TASK_MS = 200;
+
+    private static volatile AppExecutors instance;
+
+    private final InstrumentedExecutor diskIO;
+    private final InstrumentedExecutor transactionIO;
+    private final InstrumentedExecutor networkIO;
+    private final InstrumentedExecutor syncIO;
+    private final InstrumentedExecutor compute;
+    private final Executor mainThread;
+
+    private AppExecutors() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        // WAL 模式下读可以并发，写由 SQLite 串行化
+        diskIO = new InstrumentedExecutor("db-io", 4);
+        transactionIO = new InstrumentedExecutor("db-transaction", 1);
+        networkIO = new InstrumentedExecutor("network-io", 3);
+        // 拉取/推送按提交顺序逐个执行，不会同时写同一批数据，也不占用 networkIO 的线程
+        syncIO = new InstrumentedExecutor("sync-io", 1);
+        compute = new InstrumentedExecutor("compute", Math.max(2, cores - 1));
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        mainThread = mainHandler::post;
+    }
+
+    public static AppExecutors getInstance() {
+        if (instance == null) {
+            synchronized (AppExecutors.class) {
+                if (instance == null) {
+                    instance = new AppExecutors();
+                }
+            }
+        }
+        return instance;
+    }
+
+    public InstrumentedExecutor diskIO() {
+        return diskIO;
+    }
+
+    public InstrumentedExecutor transactionIO() {
+        return transactionIO;
+    }
+
+    public InstrumentedExecutor networkIO() {
+        return networkIO;
+    }
+
+    public InstrumentedExecutor syncIO() {
+        return syncIO;
+    }
+
+    public InstrumentedExecutor compute() {
+        return compute;
+    }
+
+    public Executor mainThread() {
+        return mainThread;
+    }
+
+    // 设置每个任务结束后在工作线程上执行的回调（调试版本用来结束数据库语句计时），传 null 取消
+    public void setTaskFinishedListener(@Nullable Runnable listener) {
+        diskIO.taskFinishedListener = listener;
+        transactionIO.taskFinishedListener = listener;
+        networkIO.taskFinishedListener = listener;
+        syncIO.taskFinishedListener = listener;
+        compute.taskFinishedListener = listener;
+    }
+
+    // 输出所有线程池的统计信息
+    public void logStats() {
+        Log.i(TAG, diskIO.stats());
+        Log.i(TAG, transactionIO.stats());
+        Log.i(TAG, networkIO.stats());
+        Log.i(TAG, syncIO.stats());
+        Log.i(TAG, compute.stats());
+    }
+
+    /**
+     * 带统计的固定大小线程池，空闲线程会在 30 秒后回收
+     */
+    public static class InstrumentedExecutor extends ThreadPoolExecutor {
+        private final String name;
+        private final AtomicLong submitted = new AtomicLong();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong totalWaitNanos = new AtomicLong();
+        private final AtomicLong totalRunNanos = new AtomicLong();
+        private final AtomicLong maxRunNanos = new AtomicLong();
+        private final AtomicInteger maxQueueDepth = new AtomicInteger();
+        private volatile Runnable taskFinishedListener;
+
+        InstrumentedExecutor(String name, int threads) {
+            super(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new NamedThreadFactory(name));
+            this.name = name;
+            allowCoreThreadTimeOut(true);
+        }
+
+        @Override
+        public void execute(@NonNull Runnable command) {
+            final long enqueuedAt = System.nanoTime();
+            submitted.incrementAndGet();
+            super.execute(() -> {
+                long startedAt = System.nanoTime();
+                try {
+                    command.run();
+                } finally {
+                    Runnable listener = taskFinishedListener;
+                    if (listener != null) {
+                        listener.run();
+                    }
+                    long finishedAt = System.nanoTime();
+                    record(startedAt - enqueuedAt, finishedAt - startedAt);
+                }
+            });
+            int depth = getQueue().size();
+            maxQueueDepth.accumulateAndGet(depth, Math::max);
+        }
+
+        private void record(long waitNanos, long runNanos) {
+            completed.incrementAndGet();
+            totalWaitNanos.addAndGet(waitNanos);
+            totalRunNanos.addAndGet(runNanos);
+            maxRunNanos.accumulateAndGet(runNanos, Math::max);
+            long waitMs = waitNanos / 1_000_000;
+            long runMs = runNanos / 1_000_000;
+            if (waitMs > SLOW_TASK_MS || runMs > SLOW_TASK_MS) {
+                Log.w(TAG, String.format(Locale.US, "[%s] 慢任务：排队 %d ms，执行 %d ms，当前排队 %d",
+                        name, waitMs, runMs, getQueue().size()));
+            }
+        }
+
+        // 当前排队等待执行的任务数
+        public int getQueueDepth() {
+            return getQueue().size();
+        }
+
+        public String stats() {
+            long done = completed.get();
+            return String.format(Locale.US,
+                    "[%s] 提交 %d，完成 %d，排队 %d（最多 %d），平均排队 %.1f ms，平均执行 %.1f ms，最长执行 %d ms",
+                    name, submitted.get(), done, getQueueDepth(), maxQueueDepth.get(),
+                    done == 0 ? 0.0 : totalWaitNanos.get() / 1e6 / done,
+                    done == 0 ? 0.0 : totalRunNanos.get() / 1e6 / done,
+                    maxRunNanos.get() / 1_000_000);
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(@NonNull Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.todolist.data;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 字符串列表转换器：兼容性测试和编码/解码吞吐量基准（缓存 Type 与原来每次新建 TypeToken 对比）。
+ * 结果打印到标准输出。
+ */
+public class ConvertersBenchmarkTest {
+    private static final int WARMUP_ROUNDS = 2_000;
+    private static final long MEASURE_NANOS = 300_000_000L;
+
+    private final Gson gson = new Gson();
+
+    @Test
+    public void roundTripKeepsValues() {
+        List<String> values = Arrays.asList("a", "", null, "带\"引号\"", "反斜杠\\", "换行\n制表\t", "\u0001", " ", "emoji 😀");
+        assertEquals(values, Converters.fromString(Converters.fromList(values)));
+        assertTrue(Converters.fromString(Converters.fromList(new ArrayList<>())).isEmpty());
+    }
+
+    @Test
+    public void readsExistingGsonRows() {
+        List<String> values = Arrays.asList(UUID.randomUUID().toString(), "<a&b='c'>", "中文", null, " ");
+        // Gson 默认会把 < > & = ' 写成 Unicode 转义
+        String legacy = gson.toJson(values);
+        assertEquals(values, Converters.fromString(legacy));
+        assertEquals(values, Converters.fromString(" [ " + legacy.substring(1, legacy.length() - 1) + " ] "));
+        // 写出的格式与直接用 Gson 一致
+        assertEquals(values, gson.fromJson(Converters.fromList(values), new TypeToken<List<String>>() {}.getType()));
+    }
+
+    @Test
+    public void nullAndBlankValues() {
+        assertTrue(Converters.fromString(null).isEmpty());
+        assertTrue(Converters.fromString("").isEmpty());
+        assertTrue(Converters.fromString("[]").isEmpty());
+        assertEquals(null, Converters.fromList(null));
+    }
+
+    @Test
+    public void benchmark10() {
+        runBenchmark(10);
+    }
+
+    @Test
+    public void benchmark1000() {
+        runBenchmark(1000);
+    }
+
+    private void runBenchmark(int size) {
+        List<String> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(UUID.randomUUID().toString());
+        }
+        String json = gson.toJson(list);
+        assertEquals(json, Converters.fromList(list));
+
+        double gsonEncode = opsPerSecond(() -> gson.toJson(list));
+        double cachedEncode = opsPerSecond(() -> Converters.fromList(list));
+        double gsonDecode = opsPerSecond(() -> gson.fromJson(json, new TypeToken<List<String>>() {}.getType()));
+        double cachedDecode = opsPerSecond(() -> Converters.fromString(json));
+
+        System.out.println(String.format("%d 个元素: 编码 gson %.0f ops/s, 缓存 Type %.0f ops/s; 解码 gson 新建 TypeToken %.0f ops/s, 缓存 Type %.0f ops/s",
+                size, gsonEncode, cachedEncode, gsonDecode, cachedDecode));
+    }
+
+    private double opsPerSecond(Runnable operation) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            operation.run();
+        }
+        long operations = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < 100; i++) {
+                operation.run();
+            }
+            operations += 100;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < MEASURE_NANOS);
+        return operations * 1e9 / elapsed;
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.todolist.sync;
+
+import com.example.todolist.data.Priority;
+import com.example.todolist.data.TaskGroup;
+import com.example.todolist.data.Todo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 冲突合并测试：不同字段的改动都保留、计数按增量相加、子任务列表按元素合并，以及 10k 行合并的耗时基准。
+ * 结果打印到标准输出。
+ */
+public class ConflictResolverTest {
+    private static final int BENCHMARK_ROWS = 10_000;
+    private static final int BENCHMARK_ROUNDS = 20;
+
+    private static Todo todo(String uuid, long updatedAt) {
+        Todo todo = new Todo(uuid, "写周报", 1_700_000_000_000L, "办公室", "工作", false, "user");
+        todo.objectId = "obj-" + uuid;
+        todo.updatedAt = updatedAt;
+        return todo;
+    }
+
+    private static Todo copy(Todo source, long updatedAt) {
+        Todo todo = todo(source.uuid, updatedAt);
+        todo.title = source.title;
+        todo.time = source.time;
+        todo.place = source.place;
+        todo.category = source.category;
+        todo.completed = source.completed;
+        todo.priority = source.priority;
+        todo.pomodoroEnabled = source.pomodoroEnabled;
+        todo.pomodoroMinutes = source.pomodoroMinutes;
+        todo.pomodoroCompletedCount = source.pomodoroCompletedCount;
+        todo.deleted = source.deleted;
+        todo.belongsToTaskGroup = source.belongsToTaskGroup;
+        todo.points = source.points;
+        return todo;
+    }
+
+    @Test
+    public void keepsEditsToDifferentFields() {
+        Todo base = todo("a", 100);
+        base.pomodoroMinutes = 50;
+        // 本地离线勾选完成，另一台设备上专注了 25 分钟
+        Todo local = copy(base, 200);
+        local.completed = true;
+        Todo cloud = copy(base, 300);
+        cloud.pomodoroMinutes = 75;
+        cloud.pomodoroCompletedCount = 1;
+
+        Todo merged = ConflictResolver.mergeTodo(base, local, cloud);
+        assertTrue(merged.completed);
+        assertEquals(75, merged.pomodoroMinutes);
+        assertEquals(1, merged.pomodoroCompletedCount);
+        // 与云端不同，需要推送并覆盖云端
+        assertFalse(ConflictResolver.sameTodo(merged, cloud));
+        assertTrue(merged.updatedAt > cloud.updatedAt);
+    }
+
+    @Test
+    public void countersMergeAdditively() {
+        Todo base = todo("a", 100);
+        base.pomodoroMinutes = 50;
+        base.pomodoroCompletedCount = 2;
+        Todo local = copy(base, 200);
+        local.pomodoroMinutes = 75;
+        local.pomodoroCompletedCount = 3;
+        Todo cloud = copy(base, 150);
+        cloud.pomodoroMinutes = 100;
+        cloud.pomodoroCompletedCount = 4;
+
+        Todo merged = ConflictResolver.mergeTodo(base, local, cloud);
+        assertEquals(125, merged.pomodoroMinutes);
+        assertEquals(5, merged.pomodoroCompletedCount);
+    }
+
+    @Test
+    public void newerSideWinsWhenBothEditTheSameField() {
+        Todo base = todo("a", 100);
+        Todo local = copy(base, 200);
+        local.title = "本地标题";
+        local.priority = Priority.HIGH;
+        Todo cloud = copy(base, 300);
+        cloud.title = "云端标题";
+
+        Todo merged = ConflictResolver.mergeTodo(base, local, cloud);
+        assertEquals("云端标题", merged.title);
+        assertEquals(Priority.HIGH, merged.priority);
+    }
+
+    @Test
+    public void pointsFollowMergedPriorityAndPomodoro() {
+        Todo base = todo("a", 100);
+        base.priority = Priority.LOW;
+        base.pomodoroEnabled = false;
+        base.points = base.calculatePoints();
+        Todo local = copy(base, 200);
+        local.priority = Priority.HIGH;
+        local.points = local.calculatePoints();
+        Todo cloud = copy(base, 300);
+        cloud.pomodoroEnabled = true;
+        cloud.points = cloud.calculatePoints();
+
+        Todo merged = ConflictResolver.mergeTodo(base, local, cloud);
+        assertEquals(Priority.HIGH, merged.priority);
+        assertTrue(merged.pomodoroEnabled);
+        assertEquals(merged.calculatePoints(), merged.points);
+    }
+
+    @Test
+    public void deletionWins() {
+        Todo base = todo("a", 100);
+        Todo local = copy(base, 300);
+        local.title = "改了标题";
+        Todo cloud = copy(base, 200);
+        cloud.deleted = true;
+
+        assertTrue(ConflictResolver.mergeTodo(base, local, cloud).deleted);
+    }
+
+    @Test
+    public void withoutBaseNewerRowWinsAndCountersTakeMax() {
+        Todo local = todo("a", 200);
+        local.title = "本地";
+        local.pomodoroMinutes = 30;
+        Todo cloud = todo("a", 300);
+        cloud.title = "云端";
+        cloud.pomodoroMinutes = 20;
+
+        Todo merged = ConflictResolver.mergeTodo(null, local, cloud);
+        assertEquals("云端", merged.title);
+        assertEquals(30, merged.pomodoroMinutes);
+    }
+
+    @Test
+    public void identicalResultAdoptsCloudVersion() {
+        Todo base = todo("a", 100);
+        Todo local = copy(base, 200);
+        local.completed = true;
+        Todo cloud = copy(base, 300);
+        cloud.completed = true;
+
+        Todo merged = ConflictResolver.mergeTodo(base, local, cloud);
+        assertTrue(ConflictResolver.sameTodo(merged, cloud));
+        assertEquals(cloud.updatedAt, merged.updatedAt);
+    }
+
+    @Test
+    public void subTaskIdsMergeByElement() {
+        TaskGroup base = new TaskGroup("g", "读书计划", "学习", 7, "user");
+        base.subTaskIds = new ArrayList<>(Arrays.asList("a", "b", "c"));
+        base.updatedAt = 100;
+        // 本地新增 d、移除 b；云端新增 e、移除 c，并改了标题
+        TaskGroup local = new TaskGroup("g", "读书计划", "学习", 7, "user");
+        local.subTaskIds = new ArrayList<>(Arrays.asList("a", "c", "d"));
+        local.createdAt = base.createdAt;
+        local.updatedAt = 200;
+        TaskGroup cloud = new TaskGroup("g", "读书计划（第二版）", "学习", 7, "user");
+        cloud.subTaskIds = new ArrayList<>(Arrays.asList("a", "b", "e"));
+        cloud.createdAt = base.createdAt;
+        cloud.updatedAt = 150;
+
+        TaskGroup merged = ConflictResolver.mergeTaskGroup(base, local, cloud);
+        assertEquals(Arrays.asList("a", "d", "e"), merged.subTaskIds);
+        assertEquals("读书计划（第二版）", merged.title);
+        assertTrue(merged.updatedAt > cloud.updatedAt);
+    }
+
+    @Test
+    public void benchmark10kMerges() {
+        List<Todo> bases = new ArrayList<>(BENCHMARK_ROWS);
+        List<Todo> locals = new ArrayList<>(BENCHMARK_ROWS);
+        List<Todo> clouds = new ArrayList<>(BENCHMARK_ROWS);
+        for (int i = 0; i < BENCHMARK_ROWS; i++) {
+            Todo base = todo(UUID.randomUUID().toString(), 100);
+            base.pomodoroMinutes = i % 100;
+            Todo local = copy(base, 200);
+            local.completed = i % 2 == 0;
+            local.pomodoroMinutes += 25;
+            Todo cloud = copy(base, 300);
+            cloud.title = i % 3 == 0 ? "云端标题 " + i : base.title;
+            cloud.pomodoroMinutes += 25;
+            bases.add(base);
+            locals.add(local);
+            clouds.add(cloud);
+        }
+
+        // 预热
+        for (int round = 0; round < 5; round++) {
+            mergeAll(bases, locals, clouds);
+        }
+        long best = Long.MAX_VALUE;
+        long total = 0;
+        for (int round = 0; round < BENCHMARK_ROUNDS; round++) {
+            long start = System.nanoTime();
+            int repush = mergeAll(bases, locals, clouds);
+            long elapsed = System.nanoTime() - start;
+            best = Math.min(best, elapsed);
+            total += elapsed;
+            assertEquals(BENCHMARK_ROWS, repush);
+        }
+        System.out.println(String.format("%d 行合并: 平均 %.2f ms, 最快 %.2f ms (%.0f 行/秒)",
+                BENCHMARK_ROWS, total / 1e6 / BENCHMARK_ROUNDS, best / 1e6, BENCHMARK_ROWS * 1e9 / best));
+    }
+
+    private static int mergeAll(List<Todo> bases, List<Todo> locals, List<Todo> clouds) {
+        int repush = 0;
+        for (int i = 0; i < bases.size(); i++) {
+            Todo merged = ConflictResolver.mergeTodo(bases.get(i), locals.get(i), clouds.get(i));
+            if (!ConflictResolver.sameTodo(merged, clouds.get(i))) {
+                repush++;
+            }
+        }
+        return repush;
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.todolist.sync;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 进程内的同步后端，用于在 JVM 上驱动完整的同步，不需要 Parse 服务器
+ * - 每次调用计为一次往返，可注入固定延迟
+ * - failEvery(n) 使每第 n 次调用抛出可重试的错误；批量保存失败时前一半对象已保存
+ * - reject(uuid) 使批量保存拒绝这个对象（不可重试），同一批的其他对象照常保存
+ * - 服务端时间单调递增，同一次批量保存的对象 updatedAt 相同，用来覆盖游标中 objectId 的比较
+ * 所有对象都属于构造时指定的用户，读写时复制，模拟网络传输
+ */
+class InMemorySyncBackend implements SyncBackend {
+    private static final Comparator<SyncRecord> CURSOR_ORDER = (a, b) -> {
+        if (a.updatedAt != b.updatedAt) {
+            return Long.compare(a.updatedAt, b.updatedAt);
+        }
+        return a.objectId.compareTo(b.objectId);
+    };
+
+    private final String userId;
+    private final Map<String, Table> tables = new HashMap<>();
+    private final Set<String> rejectedUuids = new HashSet<>();
+    private long latencyMillis;
+    private int failEvery;
+    private long lastServerTime;
+    private long nextObjectId;
+    private long roundTrips;
+    private long recordsSent;
+    private long recordsReceived;
+    private long injectedFailures;
+
+    InMemorySyncBackend(String userId) {
+        this.userId = userId;
+    }
+
+    synchronized void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    // 0 表示不注入错误
+    synchronized void failEvery(int n) {
+        this.failEvery = n;
+    }
+
+    synchronized void reject(String uuid) {
+        rejectedUuids.add(uuid);
+    }
+
+    synchronized long getRoundTrips() {
+        return roundTrips;
+    }
+
+    // 客户端上传的对象数
+    synchronized long getRecordsReceived() {
+        return recordsReceived;
+    }
+
+    // 返回给客户端的对象数
+    synchronized long getRecordsSent() {
+        return recordsSent;
+    }
+
+    synchronized long getInjectedFailures() {
+        return injectedFailures;
+    }
+
+    synchronized int size(String className) {
+        return table(className).byObjectId.size();
+    }
+
+    @Override
+    public synchronized List<SyncRecord> querySince(String className, long afterUpdatedAt, String afterObjectId, int limit) throws SyncBackendException {
+        failIfInjected("querySince", beginCall());
+        SyncRecord probe = new SyncRecord(className);
+        probe.updatedAt = afterUpdatedAt;
+        probe.objectId = afterObjectId != null ? afterObjectId : "";
+        NavigableSet<SyncRecord> tail = table(className).byCursor.tailSet(probe, afterObjectId == null);
+        List<SyncRecord> page = new ArrayList<>(Math.min(limit, tail.size()));
+        for (SyncRecord record : tail) {
+            if (page.size() >= limit) {
+                break;
+            }
+            page.add(new SyncRecord(record));
+        }
+        recordsSent += page.size();
+        return page;
+    }
+
+    @Override
+    public synchronized List<SyncRecord> findByUuids(String className, List<String> uuids) throws SyncBackendException {
+        failIfInjected("findByUuids", beginCall());
+        Table table = table(className);
+        List<SyncRecord> found = new ArrayList<>();
+        for (String uuid : uuids) {
+            SyncRecord record = table.byUuid.get(uuid);
+            if (record != null && userId.equals(record.ownerId)) {
+                found.add(new SyncRecord(record));
+            }
+        }
+        recordsSent += found.size();
+        return found;
+    }
+
+    @Override
+    public synchronized void saveAll(List<SyncRecord> records) throws SyncBackendException {
+        boolean fail = beginCall();
+        long now = nextServerTime();
+        int toSave = fail ? records.size() / 2 : records.size();
+        Set<String> saved = new HashSet<>();
+        boolean rejected = false;
+        for (int i = 0; i < toSave; i++) {
+            SyncRecord record = records.get(i);
+            if (rejectedUuids.contains(record.getString("uuid"))) {
+                rejected = true;
+                continue;
+            }
+            save(record, now);
+            saved.add(record.getString("uuid"));
+        }
+        recordsReceived += saved.size();
+        if (fail) {
+            injectedFailures++;
+            throw new SyncBackendException("模拟批量保存部分失败", true, null, saved);
+        }
+        if (rejected) {
+            throw new SyncBackendException("模拟云端拒绝对象", false, true, null, saved);
+        }
+    }
+
+    @Override
+    public synchronized void deleteAll(List<SyncRecord> records) throws SyncBackendException {
+        failIfInjected("deleteAll", beginCall());
+        for (SyncRecord record : records) {
+            Table table = table(record.className);
+            SyncRecord existing = table.byObjectId.remove(record.objectId);
+            if (existing != null) {
+                table.byCursor.remove(existing);
+                table.byUuid.remove(existing.getString("uuid"));
+            }
+        }
+    }
+
+    private void save(SyncRecord record, long now) {
+        Table table = table(record.className);
+        SyncRecord existing = record.objectId != null ? table.byObjectId.get(record.objectId) : null;
+        if (existing == null) {
+            existing = new SyncRecord(record.className);
+            existing.objectId = record.objectId != null ? record.objectId : String.format(Locale.US, "o%09d", ++nextObjectId);
+            existing.ownerId = userId;
+            existing.createdAt = now;
+            table.byObjectId.put(existing.objectId, existing);
+        } else {
+            table.byCursor.remove(existing);
+        }
+        // 只更新上传的字段
+        SyncRecord copy = new SyncRecord(record);
+        existing.getFields().putAll(copy.getFields());
+        existing.updatedAt = now;
+        table.byCursor.add(existing);
+        table.byUuid.put(existing.getString("uuid"), existing);
+    }
+
+    // 计一次往返并等待注入的延迟，返回这次调用是否应失败
+    private boolean beginCall() {
+        roundTrips++;
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return failEvery > 0 && roundTrips % failEvery == 0;
+    }
+
+    private void failIfInjected(String name, boolean fail) throws SyncBackendException {
+        if (fail) {
+            injectedFailures++;
+            throw new SyncBackendException("模拟 " + name + " 请求超时", true, null);
+        }
+    }
+
+    private long nextServerTime() {
+        lastServerTime = Math.max(System.currentTimeMillis(), lastServerTime + 1);
+        return lastServerTime;
+    }
+
+    private Table table(String className) {
+        Table table = tables.get(className);
+        if (table == null) {
+            table = new Table();
+            tables.put(className, table);
+        }
+        return table;
+    }
+
+    private static class Table {
+        final Map<String, SyncRecord> byObjectId = new HashMap<>();
+        final Map<String, SyncRecord> byUuid = new HashMap<>();
+        final TreeSet<SyncRecord> byCursor = new TreeSet<>(CURSOR_ORDER);
+    }
+}
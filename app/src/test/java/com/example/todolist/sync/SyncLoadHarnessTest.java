@@ -0,0 +1,273 @@
+package com.example.todolist.sync;
+
+import android.app.Application;
+
+import androidx.room.Room;
+
+import com.example.todolist.data.AppDatabase;
+import com.example.todolist.data.PendingMutation;
+import com.example.todolist.data.Todo;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 同步压测：两台“设备”（各自的内存数据库）通过进程内后端同步，驱动完整的推送、拉取流程，
+ * 输出每个阶段的耗时、往返次数和峰值堆内存；另外验证注入错误后同步能继续完成、被云端拒绝的对象不阻塞推送、
+ * 两端并发修改能合并。
+ * 往返次数乘以实际网络延迟即为真实网络下的额外耗时，也可以用 -Dsync.harness.latencyMs 注入延迟。
+ * 结果打印到标准输出。
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33, application = Application.class)
+// todos_fts 使用 ICU 分词器，旧的 sqlite4java 实现不支持
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class SyncLoadHarnessTest {
+    private static final String USER_ID = "harness-user";
+    private static final int PAGE_SIZE = SyncWorker.DEFAULT_PULL_PAGE_SIZE;
+
+    private final List<AppDatabase> databases = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        for (AppDatabase db : databases) {
+            db.close();
+        }
+    }
+
+    @Test
+    public void cycle1k() throws Exception {
+        runCycle(1_000);
+    }
+
+    @Test
+    public void cycle10k() throws Exception {
+        runCycle(10_000);
+    }
+
+    @Test
+    public void cycle50k() throws Exception {
+        runCycle(50_000);
+    }
+
+    @Test
+    public void transientErrorsResumeWithoutLoss() throws Exception {
+        InMemorySyncBackend backend = new InMemorySyncBackend(USER_ID);
+        AppDatabase deviceA = newDevice();
+        AppDatabase deviceB = newDevice();
+        SyncEngine engineA = new SyncEngine(deviceA, backend, USER_ID, null);
+        SyncEngine engineB = new SyncEngine(deviceB, backend, USER_ID, null);
+        List<Todo> todos = createTodos(2_000);
+        deviceA.taskDao().insertTodos(todos);
+
+        backend.failEvery(5);
+        int retries = 0;
+        for (int attempt = 0; attempt < 100 && deviceA.pendingMutationDao().countPending(PendingMutation.TYPE_TODO) > 0; attempt++) {
+            if (engineA.pushTodos().hasTransientFailure()) {
+                retries++;
+            }
+        }
+        assertEquals(0, deviceA.pendingMutationDao().countPending(PendingMutation.TYPE_TODO));
+        assertEquals(todos.size(), backend.size("Todo"));
+        assertTrue(retries > 0);
+        // 每块上传后即提交检查点，重试只上传未确认的对象，不会重复上传
+        assertEquals(todos.size(), backend.getRecordsReceived());
+
+        boolean pulled = false;
+        for (int attempt = 0; attempt < 100 && !pulled; attempt++) {
+            try {
+                engineB.pullTodos(PAGE_SIZE);
+                pulled = true;
+            } catch (SyncBackendException e) {
+                assertTrue(e.isTransient());
+            }
+        }
+        assertTrue(pulled);
+        assertTrue(backend.getInjectedFailures() > 0);
+        assertEquals(todos.size(), deviceB.taskDao().getTodosByUuids(uuidsOf(todos)).size());
+    }
+
+    @Test
+    public void rejectedObjectsDoNotBlockThePush() throws Exception {
+        InMemorySyncBackend backend = new InMemorySyncBackend(USER_ID);
+        AppDatabase device = newDevice();
+        SyncEngine engine = new SyncEngine(device, backend, USER_ID, null);
+        List<Todo> todos = createTodos(200);
+        device.taskDao().insertTodos(todos);
+        backend.reject(todos.get(3).uuid);
+        backend.reject(todos.get(120).uuid);
+
+        SyncEngine.PushResult result = engine.pushTodos();
+        assertEquals(2, result.getRejectedCount());
+        assertEquals(2, result.getFailureCount());
+        assertFalse(result.hasTransientFailure());
+        assertEquals(todos.size() - 2, backend.size("Todo"));
+        assertEquals(0, device.pendingMutationDao().countPending(PendingMutation.TYPE_TODO));
+        assertEquals(2, device.pendingMutationDao().countRejected(PendingMutation.TYPE_TODO));
+
+        // 下次推送不再重试被拒绝的对象；本地再次修改后重新入队
+        assertEquals(0, engine.pushTodos().getFailureCount());
+        device.taskDao().setTodoCompleted(todos.get(3).uuid, true, System.currentTimeMillis());
+        assertEquals(1, device.pendingMutationDao().countPending(PendingMutation.TYPE_TODO));
+        assertEquals(1, device.pendingMutationDao().countRejected(PendingMutation.TYPE_TODO));
+    }
+
+    @Test
+    public void concurrentEditsMergeAcrossDevices() throws Exception {
+        InMemorySyncBackend backend = new InMemorySyncBackend(USER_ID);
+        AppDatabase deviceA = newDevice();
+        AppDatabase deviceB = newDevice();
+        SyncEngine engineA = new SyncEngine(deviceA, backend, USER_ID, null);
+        SyncEngine engineB = new SyncEngine(deviceB, backend, USER_ID, null);
+        Todo todo = createTodos(1).get(0);
+        deviceA.taskDao().insertTodos(createList(todo));
+        engineA.pushTodos();
+        engineB.pullTodos(PAGE_SIZE);
+
+        // A 上专注了 25 分钟，B 离线勾选完成
+        Todo onA = deviceA.taskDao().getTodosByUuids(createList(todo.uuid)).get(0);
+        onA.pomodoroMinutes += 25;
+        onA.pomodoroCompletedCount += 1;
+        onA.updatedAt = todo.updatedAt + 1_000;
+        deviceA.taskDao().updateTodo(onA);
+        deviceB.taskDao().setTodoCompleted(todo.uuid, true, todo.updatedAt + 2_000);
+
+        engineA.pushTodos();
+        engineB.pullTodos(PAGE_SIZE);
+        engineB.pushTodos();
+        engineA.pullTodos(PAGE_SIZE);
+
+        for (AppDatabase device : new AppDatabase[]{deviceA, deviceB}) {
+            Todo merged = device.taskDao().getTodosByUuids(createList(todo.uuid)).get(0);
+            assertTrue(merged.completed);
+            assertEquals(25, merged.pomodoroMinutes);
+            assertEquals(1, merged.pomodoroCompletedCount);
+        }
+        assertEquals(0, deviceB.pendingMutationDao().countPending(PendingMutation.TYPE_TODO));
+    }
+
+    /**
+     * A 新建 n 个任务并推送 -> A 拉取（自己推送的回显）-> B 全量拉取 -> B 修改 10% 并推送 -> A 增量拉取
+     */
+    private void runCycle(int n) throws Exception {
+        InMemorySyncBackend backend = new InMemorySyncBackend(USER_ID);
+        backend.setLatencyMillis(Long.getLong("sync.harness.latencyMs", 0L));
+        AppDatabase deviceA = newDevice();
+        AppDatabase deviceB = newDevice();
+        SyncEngine engineA = new SyncEngine(deviceA, backend, USER_ID, null);
+        SyncEngine engineB = new SyncEngine(deviceB, backend, USER_ID, null);
+        List<Todo> todos = createTodos(n);
+        deviceA.taskDao().insertTodos(todos);
+        int edits = n / 10;
+
+        System.out.println(n + " 个对象：");
+        Phase phase = new Phase(backend, "A 推送");
+        SyncEngine.PushResult pushed = engineA.pushTodos();
+        phase.end(pushed.getSuccessCount());
+        assertEquals(n, pushed.getSuccessCount());
+
+        phase = new Phase(backend, "A 拉取回显");
+        int echoed = engineA.pullTodos(PAGE_SIZE);
+        phase.end(echoed);
+
+        phase = new Phase(backend, "B 全量拉取");
+        int pulled = engineB.pullTodos(PAGE_SIZE);
+        phase.end(pulled);
+        assertEquals(n, pulled);
+
+        long editedAt = System.currentTimeMillis() + 1_000;
+        for (int i = 0; i < edits; i++) {
+            deviceB.taskDao().setTodoCompleted(todos.get(i * 10).uuid, true, editedAt);
+        }
+        phase = new Phase(backend, "B 推送修改");
+        SyncEngine.PushResult edited = engineB.pushTodos();
+        phase.end(edited.getSuccessCount());
+        assertEquals(edits, edited.getSuccessCount());
+
+        phase = new Phase(backend, "A 增量拉取");
+        int applied = engineA.pullTodos(PAGE_SIZE);
+        phase.end(applied);
+        assertEquals(edits, applied);
+    }
+
+    private AppDatabase newDevice() {
+        AppDatabase db = Room.inMemoryDatabaseBuilder(RuntimeEnvironment.getApplication(), AppDatabase.class)
+                .addCallback(AppDatabase.OPEN_CALLBACK)
+                .allowMainThreadQueries()
+                .build();
+        databases.add(db);
+        return db;
+    }
+
+    private static List<Todo> createTodos(int n) {
+        List<Todo> todos = new ArrayList<>(n);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < n; i++) {
+            Todo todo = new Todo(UUID.randomUUID().toString(), "任务 " + i, now + i * 60_000L, "地点 " + (i % 10), "工作", false, USER_ID);
+            todo.updatedAt = now;
+            todos.add(todo);
+        }
+        return todos;
+    }
+
+    private static List<String> uuidsOf(List<Todo> todos) {
+        List<String> uuids = new ArrayList<>(todos.size());
+        for (Todo todo : todos) {
+            uuids.add(todo.uuid);
+        }
+        return uuids;
+    }
+
+    private static <T> List<T> createList(T item) {
+        List<T> list = new ArrayList<>(1);
+        list.add(item);
+        return list;
+    }
+
+    // 一个阶段的耗时、往返次数和峰值堆内存
+    private static class Phase {
+        private final InMemorySyncBackend backend;
+        private final String name;
+        private final long startNanos;
+        private final long startRoundTrips;
+
+        Phase(InMemorySyncBackend backend, String name) {
+            this.backend = backend;
+            this.name = name;
+            System.gc();
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                pool.resetPeakUsage();
+            }
+            this.startRoundTrips = backend.getRoundTrips();
+            this.startNanos = System.nanoTime();
+        }
+
+        void end(int objects) {
+            long elapsed = System.nanoTime() - startNanos;
+            long peakHeap = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                    peakHeap += pool.getPeakUsage().getUsed();
+                }
+            }
+            System.out.println(String.format("  %-8s %6d 个  %9.1f ms  往返 %5d 次  峰值堆 %6.1f MB",
+                    name, objects, elapsed / 1e6, backend.getRoundTrips() - startRoundTrips, peakHeap / 1048576.0));
+        }
+    }
+}
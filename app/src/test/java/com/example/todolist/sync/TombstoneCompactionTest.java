@@ -0,0 +1,106 @@
+package com.example.todolist.sync;
+
+import android.app.Application;
+
+import androidx.room.Room;
+
+import com.example.todolist.data.AppDatabase;
+import com.example.todolist.data.SyncState;
+import com.example.todolist.data.Todo;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 墓碑压缩：只有云端副本存在、已标记删除、且删除版本不早于本地墓碑的任务才会被物理删除
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33, application = Application.class)
+// todos_fts 使用 ICU 分词器，旧的 sqlite4java 实现不支持
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class TombstoneCompactionTest {
+    private static final String USER_ID = "compaction-user";
+    private static final long DELETED_AT = System.currentTimeMillis() - TombstoneCompactionWorker.RETENTION_MS - 60_000L;
+
+    private AppDatabase db;
+    private InMemorySyncBackend backend;
+
+    @Before
+    public void setUp() {
+        db = Room.inMemoryDatabaseBuilder(RuntimeEnvironment.getApplication(), AppDatabase.class)
+                .addCallback(AppDatabase.OPEN_CALLBACK)
+                .allowMainThreadQueries()
+                .build();
+        backend = new InMemorySyncBackend(USER_ID);
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void onlyConfirmedTombstonesAreHardDeleted() throws Exception {
+        Todo notInCloud = tombstone();
+        Todo cloudNotDeleted = tombstone();
+        Todo cloudOlder = tombstone();
+        Todo confirmed = tombstone();
+        List<Todo> todos = new ArrayList<>();
+        todos.add(notInCloud);
+        todos.add(cloudNotDeleted);
+        todos.add(cloudOlder);
+        todos.add(confirmed);
+        db.taskDao().insertTodos(todos);
+
+        List<SyncRecord> cloud = new ArrayList<>();
+        cloud.add(cloudTodo(cloudNotDeleted.uuid, false, DELETED_AT));
+        // 云端的删除早于本地最后一次修改
+        cloud.add(cloudTodo(cloudOlder.uuid, true, DELETED_AT - 1));
+        cloud.add(cloudTodo(confirmed.uuid, true, DELETED_AT));
+        backend.saveAll(cloud);
+
+        long cutoff = System.currentTimeMillis() - TombstoneCompactionWorker.RETENTION_MS;
+        assertEquals(1, TombstoneCompactionWorker.compactTodos(db.taskDao(), backend, cutoff));
+
+        Set<String> remaining = new HashSet<>();
+        for (Todo todo : db.taskDao().getAllUnfiltered()) {
+            remaining.add(todo.uuid);
+        }
+        assertEquals(3, remaining.size());
+        assertTrue(remaining.contains(notInCloud.uuid));
+        assertTrue(remaining.contains(cloudNotDeleted.uuid));
+        assertTrue(remaining.contains(cloudOlder.uuid));
+        assertFalse(remaining.contains(confirmed.uuid));
+    }
+
+    private static Todo tombstone() {
+        Todo todo = new Todo(UUID.randomUUID().toString(), "已删除的任务", DELETED_AT, "", "工作", false, USER_ID);
+        todo.deleted = true;
+        todo.updatedAt = DELETED_AT;
+        return todo;
+    }
+
+    private static SyncRecord cloudTodo(String uuid, boolean deleted, long clientUpdatedAt) {
+        SyncRecord record = new SyncRecord(SyncState.CLASS_TODO);
+        record.put("uuid", uuid);
+        record.put("deleted", deleted);
+        record.put("clientUpdatedAt", clientUpdatedAt);
+        return record;
+    }
+}